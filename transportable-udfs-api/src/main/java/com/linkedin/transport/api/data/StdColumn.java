@@ -0,0 +1,64 @@
+/**
+ * Copyright 2021 LinkedIn Corporation. All rights reserved.
+ * Licensed under the BSD-2 Clause license.
+ * See LICENSE in the project root for license information.
+ */
+package com.linkedin.transport.api.data;
+
+/**
+ * A read-only column of values of the same type, holding one input argument of a
+ * {@link com.linkedin.transport.api.udf.StdBatchUDF} for a batch of rows.
+ */
+public interface StdColumn {
+
+  /** Returns the number of values in the column. */
+  int size();
+
+  /** Returns false if no value in the column is null, so that null checks can be skipped for the whole column. */
+  boolean mayHaveNull();
+
+  /**
+   * Returns true if the value at the specified position is null.
+   *
+   * @param position  the position of the value
+   */
+  boolean isNull(int position);
+
+  /**
+   * Gets the value at the specified position, or null if the value is null.
+   *
+   * The returned {@link StdData} may be reused by the column for the next call to this method, so it must not be
+   * retained after reading the value at another position.
+   *
+   * @param position  the position of the value to be retrieved
+   */
+  StdData get(int position);
+
+  /**
+   * Gets the non-null value at the specified position of an {@code integer} column without wrapping it.
+   *
+   * @param position  the position of the value to be retrieved
+   */
+  int getInteger(int position);
+
+  /**
+   * Gets the non-null value at the specified position of a {@code bigint} column without wrapping it.
+   *
+   * @param position  the position of the value to be retrieved
+   */
+  long getLong(int position);
+
+  /**
+   * Gets the non-null value at the specified position of a {@code double} column without wrapping it.
+   *
+   * @param position  the position of the value to be retrieved
+   */
+  double getDouble(int position);
+
+  /**
+   * Gets the non-null value at the specified position of a {@code boolean} column without wrapping it.
+   *
+   * @param position  the position of the value to be retrieved
+   */
+  boolean getBoolean(int position);
+}
@@ -0,0 +1,51 @@
+/**
+ * Copyright 2021 LinkedIn Corporation. All rights reserved.
+ * Licensed under the BSD-2 Clause license.
+ * See LICENSE in the project root for license information.
+ */
+package com.linkedin.transport.api.data;
+
+/**
+ * A builder of a column of values of the same type, receiving the output of a
+ * {@link com.linkedin.transport.api.udf.StdBatchUDF} for a batch of rows. Values are appended in the order of the rows.
+ */
+public interface StdColumnBuilder {
+
+  /** Appends a null value to the column. */
+  void appendNull();
+
+  /**
+   * Appends a value to the column.
+   *
+   * @param value  the value to append, or null to append a null value
+   */
+  void append(StdData value);
+
+  /**
+   * Appends a value to an {@code integer} column without wrapping it.
+   *
+   * @param value  the value to append
+   */
+  void appendInteger(int value);
+
+  /**
+   * Appends a value to a {@code bigint} column without wrapping it.
+   *
+   * @param value  the value to append
+   */
+  void appendLong(long value);
+
+  /**
+   * Appends a value to a {@code double} column without wrapping it.
+   *
+   * @param value  the value to append
+   */
+  void appendDouble(double value);
+
+  /**
+   * Appends a value to a {@code boolean} column without wrapping it.
+   *
+   * @param value  the value to append
+   */
+  void appendBoolean(boolean value);
+}
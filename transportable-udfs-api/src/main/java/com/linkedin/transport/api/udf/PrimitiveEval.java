@@ -0,0 +1,169 @@
+/**
+ * Copyright 2021 LinkedIn Corporation. All rights reserved.
+ * Licensed under the BSD-2 Clause license.
+ * See LICENSE in the project root for license information.
+ */
+package com.linkedin.transport.api.udf;
+
+import com.linkedin.transport.api.StdFactory;
+import com.linkedin.transport.api.data.StdBoolean;
+import com.linkedin.transport.api.data.StdData;
+import com.linkedin.transport.api.data.StdDouble;
+import com.linkedin.transport.api.data.StdInteger;
+import com.linkedin.transport.api.data.StdLong;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+
+/**
+ * The primitive {@code eval} method of a {@link StdPrimitiveUDF} class, looked up once per class.
+ *
+ * The method is the only public {@code eval} method of the class whose number of parameters is the arity of the
+ * {@link StdUDF} and whose parameter and return types are all {@code int}, {@code long}, {@code double} or
+ * {@code boolean}. The type signatures of the {@link StdUDF} are derived from these types.
+ */
+final class PrimitiveEval {
+
+  private static final ClassValue<PrimitiveEval> PRIMITIVE_EVALS = new ClassValue<PrimitiveEval>() {
+    @Override
+    protected PrimitiveEval computeValue(Class<?> type) {
+      return new PrimitiveEval(type);
+    }
+  };
+
+  private final MethodHandle _eval;
+  private final MethodHandle _stdDataEval;
+  private final List<String> _inputParameterSignatures;
+  private final String _outputParameterSignature;
+
+  private PrimitiveEval(Class<?> stdUdfClass) {
+    int arity = StdPrimitiveUDF1.class.isAssignableFrom(stdUdfClass) ? 1 : 2;
+    Method method = findEvalMethod(stdUdfClass, arity);
+    Class<?>[] parameterTypes = method.getParameterTypes();
+    Class<?> returnType = method.getReturnType();
+    List<String> inputParameterSignatures = new ArrayList<>();
+    for (Class<?> parameterType : parameterTypes) {
+      inputParameterSignatures.add(getSignature(parameterType));
+    }
+    _inputParameterSignatures = Collections.unmodifiableList(inputParameterSignatures);
+    _outputParameterSignature = getSignature(returnType);
+
+    try {
+      // The class of the UDF may be non-public, e.g. a nested class, while its eval method is public
+      method.setAccessible(true);
+      _eval = MethodHandles.lookup().unreflect(method);
+      // (StdUDF, StdData...) -> primitive
+      MethodHandle stdDataEval = _eval.asType(_eval.type().changeParameterType(0, StdUDF.class));
+      MethodHandle[] unwrappers = new MethodHandle[parameterTypes.length];
+      for (int i = 0; i < parameterTypes.length; i++) {
+        unwrappers[i] = getUnwrapper(parameterTypes[i]);
+      }
+      stdDataEval = MethodHandles.filterArguments(stdDataEval, 1, unwrappers);
+      // (StdFactory, StdUDF, StdData...) -> StdData
+      _stdDataEval = MethodHandles.collectArguments(getWrapper(returnType), 1, stdDataEval);
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException("Cannot access the primitive eval method of " + stdUdfClass.getName(), e);
+    }
+  }
+
+  static PrimitiveEval of(Class<?> stdUdfClass) {
+    return PRIMITIVE_EVALS.get(stdUdfClass);
+  }
+
+  /** Returns the primitive eval method, with the {@link StdUDF} class as the type of the receiver */
+  MethodHandle getEval() {
+    return _eval;
+  }
+
+  /**
+   * Returns the primitive eval method adapted to {@link StdData}s, with the type
+   * {@code (StdFactory, StdUDF, StdData...) -> StdData}
+   */
+  MethodHandle getStdDataEval() {
+    return _stdDataEval;
+  }
+
+  List<String> getInputParameterSignatures() {
+    return _inputParameterSignatures;
+  }
+
+  String getOutputParameterSignature() {
+    return _outputParameterSignature;
+  }
+
+  private static Method findEvalMethod(Class<?> stdUdfClass, int arity) {
+    List<Method> methods = Arrays.stream(stdUdfClass.getMethods())
+        .filter(method -> method.getName().equals("eval") && !method.isBridge() && !method.isSynthetic()
+            && !Modifier.isStatic(method.getModifiers()) && method.getParameterCount() == arity
+            && isSupported(method.getReturnType())
+            && Arrays.stream(method.getParameterTypes()).allMatch(PrimitiveEval::isSupported))
+        .collect(Collectors.toList());
+    if (methods.size() != 1) {
+      throw new IllegalStateException(String.format(
+          "%s must declare exactly one public eval method with %d parameters on int, long, double or boolean values, "
+              + "found: %s", stdUdfClass.getName(), arity, methods));
+    }
+    return methods.get(0);
+  }
+
+  private static boolean isSupported(Class<?> type) {
+    return type == int.class || type == long.class || type == double.class || type == boolean.class;
+  }
+
+  private static String getSignature(Class<?> type) {
+    if (type == int.class) {
+      return "integer";
+    } else if (type == long.class) {
+      return "bigint";
+    } else if (type == double.class) {
+      return "double";
+    } else {
+      return "boolean";
+    }
+  }
+
+  /** Returns a MethodHandle of type {@code (StdData) -> primitive} reading the value of a {@link StdData} */
+  private static MethodHandle getUnwrapper(Class<?> type) throws ReflectiveOperationException {
+    Class<?> stdDataClass;
+    if (type == int.class) {
+      stdDataClass = StdInteger.class;
+    } else if (type == long.class) {
+      stdDataClass = StdLong.class;
+    } else if (type == double.class) {
+      stdDataClass = StdDouble.class;
+    } else {
+      stdDataClass = StdBoolean.class;
+    }
+    return MethodHandles.publicLookup().findVirtual(stdDataClass, "get", MethodType.methodType(type))
+        .asType(MethodType.methodType(type, StdData.class));
+  }
+
+  /** Returns a MethodHandle of type {@code (StdFactory, primitive) -> StdData} creating a {@link StdData} */
+  private static MethodHandle getWrapper(Class<?> type) throws ReflectiveOperationException {
+    String name;
+    Class<?> stdDataClass;
+    if (type == int.class) {
+      name = "createInteger";
+      stdDataClass = StdInteger.class;
+    } else if (type == long.class) {
+      name = "createLong";
+      stdDataClass = StdLong.class;
+    } else if (type == double.class) {
+      name = "createDouble";
+      stdDataClass = StdDouble.class;
+    } else {
+      name = "createBoolean";
+      stdDataClass = StdBoolean.class;
+    }
+    return MethodHandles.publicLookup().findVirtual(StdFactory.class, name, MethodType.methodType(stdDataClass, type))
+        .asType(MethodType.methodType(StdData.class, StdFactory.class, type));
+  }
+}
@@ -0,0 +1,39 @@
+/**
+ * Copyright 2021 LinkedIn Corporation. All rights reserved.
+ * Licensed under the BSD-2 Clause license.
+ * See LICENSE in the project root for license information.
+ */
+package com.linkedin.transport.api.udf;
+
+import com.linkedin.transport.api.data.StdColumn;
+import com.linkedin.transport.api.data.StdColumnBuilder;
+
+
+/**
+ * An opt-in interface for {@link StdUDF}s that can evaluate a whole batch of rows at once.
+ *
+ * The interface is implemented by a class extending one of the {@code StdUDF(i)} classes, which still defines the
+ * signatures, nullable arguments and required files of the UDF, as well as its row-at-a-time {@code eval()} method.
+ * Platforms that support batches call {@link #evalBatch(StdColumn[], int, StdColumnBuilder)} with the columns of the
+ * input arguments, and fall back to {@code eval()} otherwise, so both methods must produce the same results.
+ *
+ * Rows where a non-nullable argument is null are not passed to the batch, and their output is null, the same way
+ * {@code eval()} is not called for them. Required files are processed before a batch is evaluated.
+ *
+ * Batches are currently only evaluated on Spark 3, through its opt-in columnar evaluation. Trino, Hive, Avro and Spark 2
+ * fall back to row-at-a-time evaluation: they call {@code eval()} for every row, and never call
+ * {@link #evalBatch(StdColumn[], int, StdColumnBuilder)}.
+ */
+public interface StdBatchUDF {
+
+  /**
+   * Evaluates the {@link StdUDF} on a batch of rows.
+   *
+   * Exactly one value must be appended to the result for every row of the batch, in the order of the rows.
+   *
+   * @param arguments  the columns of the input arguments, each holding {@code positionCount} values
+   * @param positionCount  the number of rows in the batch
+   * @param result  the builder to which the output of every row is appended
+   */
+  void evalBatch(StdColumn[] arguments, int positionCount, StdColumnBuilder result);
+}
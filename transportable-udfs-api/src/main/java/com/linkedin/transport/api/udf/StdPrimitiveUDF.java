@@ -0,0 +1,28 @@
+/**
+ * Copyright 2021 LinkedIn Corporation. All rights reserved.
+ * Licensed under the BSD-2 Clause license.
+ * See LICENSE in the project root for license information.
+ */
+package com.linkedin.transport.api.udf;
+
+import java.lang.invoke.MethodHandle;
+
+
+/**
+ * A {@link StdUDF} whose input arguments and return value are Java primitives, i.e., one of {@link StdPrimitiveUDF1}
+ * or {@link StdPrimitiveUDF2}.
+ *
+ * Besides the {@code eval} method on {@link com.linkedin.transport.api.data.StdData}s, the {@link StdUDF} declares a
+ * single public {@code eval} method whose parameter and return types are {@code int}, {@code long}, {@code double} or
+ * {@code boolean}, which map to the {@code integer}, {@code bigint}, {@code double} and {@code boolean} type
+ * signatures respectively. Platforms look this method up once through {@link #getPrimitiveEval()} to call it directly
+ * with their native values, skipping the wrapping of arguments and results.
+ */
+public interface StdPrimitiveUDF {
+
+  /**
+   * Returns a {@link MethodHandle} to the primitive {@code eval} method of the {@link StdUDF}. The first parameter of
+   * the handle is the receiver, typed as the class of the {@link StdUDF}, followed by the primitive input arguments.
+   */
+  MethodHandle getPrimitiveEval();
+}
@@ -0,0 +1,66 @@
+/**
+ * Copyright 2021 LinkedIn Corporation. All rights reserved.
+ * Licensed under the BSD-2 Clause license.
+ * See LICENSE in the project root for license information.
+ */
+package com.linkedin.transport.api.udf;
+
+import com.linkedin.transport.api.data.StdData;
+import java.lang.invoke.MethodHandle;
+import java.util.List;
+
+
+/**
+ * A Standard UDF with two input arguments that is evaluated on Java primitives.
+ *
+ * Subclasses declare a single public {@code eval} method on {@code int}, {@code long}, {@code double} or
+ * {@code boolean} values, e.g. {@code long eval(long value, int shift)}, from which the input and output type
+ * signatures are derived. Platforms call this method with the native values of the arguments, so no {@link StdData} is
+ * created or boxed per record. Since primitives cannot represent nulls, the input arguments are not nullable and
+ * the {@link StdUDF} cannot return null.
+ */
+// Suppressing arg naming style checks since this naming convention is more suitable to Standard UDFs, and the code is
+// more readable this way.
+@SuppressWarnings({"checkstyle:regexpsinglelinejava"})
+public abstract class StdPrimitiveUDF2 extends StdUDF2<StdData, StdData, StdData> implements StdPrimitiveUDF {
+
+  private final PrimitiveEval _primitiveEval = PrimitiveEval.of(getClass());
+
+  /**
+   * Calls the primitive {@code eval} method with the values of the input arguments.
+   *
+   * @param arg1  the first input argument
+   * @param arg2  the second input argument
+   * @return the output of the {@link StdUDF} given the input arguments.
+   */
+  @Override
+  public final StdData eval(StdData arg1, StdData arg2) {
+    try {
+      return (StdData) _primitiveEval.getStdDataEval().invokeExact(getStdFactory(), (StdUDF) this, arg1, arg2);
+    } catch (RuntimeException | Error e) {
+      throw e;
+    } catch (Throwable t) {
+      throw new RuntimeException(t);
+    }
+  }
+
+  @Override
+  public final MethodHandle getPrimitiveEval() {
+    return _primitiveEval.getEval();
+  }
+
+  @Override
+  public final List<String> getInputParameterSignatures() {
+    return _primitiveEval.getInputParameterSignatures();
+  }
+
+  @Override
+  public final String getOutputParameterSignature() {
+    return _primitiveEval.getOutputParameterSignature();
+  }
+
+  @Override
+  public final boolean[] getNullableArguments() {
+    return new boolean[numberOfArguments()];
+  }
+}
@@ -0,0 +1,231 @@
+/**
+ * Copyright 2021 LinkedIn Corporation. All rights reserved.
+ * Licensed under the BSD-2 Clause license.
+ * See LICENSE in the project root for license information.
+ */
+package com.linkedin.transport.avro;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.Decoder;
+import org.apache.avro.util.Utf8;
+
+
+/**
+ * Evaluates a UDF on fields of binary encoded Avro records, reading the records straight from a {@link BinaryDecoder}
+ * instead of decoding them into {@link org.apache.avro.generic.GenericRecord}s first. It is created by
+ * {@link StdUdfWrapper#createBinaryEvaluator(Schema, List)}.
+ *
+ * A plan built once from the record schema decodes only the argument fields, and skips every other field without
+ * materializing it, so the decoding cost depends on the fields the UDF reads rather than on the width of the record.
+ * Strings are decoded into {@link Utf8}s reused across records, so the output of the UDF must not be retained after
+ * the next record is evaluated.
+ *
+ * Only arguments of primitive types, strings and bytes are read straight from the encoded bytes. Arguments of other
+ * types (records, arrays, maps, enums and fixed) are fully materialized by a {@link GenericDatumReader}, the same way
+ * as when decoding the whole record, rather than being exposed as lazy views over the encoded bytes. The
+ * {@link com.linkedin.transport.api.data.StdData} containers wrap these materialized values, and Avro's binary encoding
+ * has no offsets to seek to the elements of a nested value, so a lazy view would have to decode it again on every
+ * access.
+ */
+public final class AvroBinaryEvaluator {
+
+  private final StdUdfWrapper _stdUdfWrapper;
+  // One action per field of the record schema, in the order of the fields
+  private final FieldAction[] _fieldActions;
+  private final Object[] _arguments;
+
+  AvroBinaryEvaluator(StdUdfWrapper stdUdfWrapper, Schema recordSchema, List<String> argumentFields) {
+    if (recordSchema.getType() != Schema.Type.RECORD) {
+      throw new IllegalArgumentException("Expected a record schema, received: " + recordSchema);
+    }
+    Schema[] argumentSchemas = new Schema[argumentFields.size()];
+    _fieldActions = new FieldAction[recordSchema.getFields().size()];
+    // The first argument read from each field, or -1 if the field is skipped
+    int[] fieldArguments = new int[recordSchema.getFields().size()];
+    for (Schema.Field field : recordSchema.getFields()) {
+      _fieldActions[field.pos()] = createSkipper(field.schema());
+      fieldArguments[field.pos()] = -1;
+    }
+    for (int i = 0; i < argumentFields.size(); i++) {
+      Schema.Field field = recordSchema.getField(argumentFields.get(i));
+      if (field == null) {
+        throw new IllegalArgumentException("Argument field " + argumentFields.get(i) + " not found in record schema "
+            + recordSchema.getFullName());
+      }
+      argumentSchemas[i] = field.schema().getType() == Schema.Type.UNION
+          ? AvroWrapper.getNonNullComponent(field.schema()) : field.schema();
+      int firstArgument = fieldArguments[field.pos()];
+      if (firstArgument < 0) {
+        _fieldActions[field.pos()] = createArgumentReader(i, field.schema());
+        fieldArguments[field.pos()] = i;
+      } else {
+        // The field is passed as several arguments, so it is decoded once and its value copied
+        FieldAction readFirstArgument = _fieldActions[field.pos()];
+        int argument = i;
+        _fieldActions[field.pos()] = (decoder, arguments) -> {
+          readFirstArgument.apply(decoder, arguments);
+          arguments[argument] = arguments[firstArgument];
+        };
+      }
+    }
+    _stdUdfWrapper = stdUdfWrapper;
+    _stdUdfWrapper.initialize(argumentSchemas);
+    _arguments = new Object[argumentFields.size()];
+  }
+
+  /**
+   * Decodes the next record from the decoder and evaluates the UDF on its argument fields. The whole record is
+   * consumed, so the decoder is positioned at the start of the following record afterwards.
+   *
+   * @param decoder  a decoder positioned at the start of a record of the record schema
+   * @return the output of the UDF, in the same representation as {@link StdUdfWrapper#evaluate(Object[])}
+   */
+  public Object evaluate(BinaryDecoder decoder) throws IOException {
+    for (FieldAction fieldAction : _fieldActions) {
+      fieldAction.apply(decoder, _arguments);
+    }
+    return _stdUdfWrapper.evaluate(_arguments);
+  }
+
+  /**
+   * Decodes or skips a field of the record
+   */
+  private interface FieldAction {
+    void apply(Decoder decoder, Object[] arguments) throws IOException;
+  }
+
+  /**
+   * Skips a value without decoding it
+   */
+  private interface Skipper {
+    void skip(Decoder decoder) throws IOException;
+  }
+
+  /**
+   * Reads a value which is not null
+   */
+  private interface Reader {
+    Object read(Decoder decoder) throws IOException;
+  }
+
+  private static FieldAction createSkipper(Schema schema) {
+    Skipper skipper = skipperFor(schema, Collections.newSetFromMap(new IdentityHashMap<>()));
+    return (decoder, arguments) -> skipper.skip(decoder);
+  }
+
+  private static FieldAction createArgumentReader(int argument, Schema schema) {
+    if (schema.getType() == Schema.Type.UNION) {
+      int nullIndex = schema.getTypes().get(0).getType() == Schema.Type.NULL ? 0 : 1;
+      Reader reader = readerFor(AvroWrapper.getNonNullComponent(schema));
+      return (decoder, arguments) ->
+          arguments[argument] = decoder.readIndex() == nullIndex ? null : reader.read(decoder);
+    }
+    Reader reader = readerFor(schema);
+    return (decoder, arguments) -> arguments[argument] = reader.read(decoder);
+  }
+
+  private static Reader readerFor(Schema schema) {
+    switch (schema.getType()) {
+      case INT:
+        return Decoder::readInt;
+      case LONG:
+        return Decoder::readLong;
+      case BOOLEAN:
+        return Decoder::readBoolean;
+      case FLOAT:
+        return Decoder::readFloat;
+      case DOUBLE:
+        return Decoder::readDouble;
+      case STRING: {
+        Utf8 reused = new Utf8();
+        return decoder -> decoder.readString(reused);
+      }
+      case BYTES:
+        return decoder -> decoder.readBytes(null);
+      default: {
+        // Nested values are materialized the same way as when decoding the whole record, not read lazily
+        GenericDatumReader<Object> datumReader = new GenericDatumReader<>(schema);
+        return decoder -> datumReader.read(null, decoder);
+      }
+    }
+  }
+
+  /**
+   * @param enclosingRecords  the record schemas enclosing the schema, to detect recursive schemas
+   */
+  private static Skipper skipperFor(Schema schema, Set<Schema> enclosingRecords) {
+    switch (schema.getType()) {
+      case NULL:
+        return decoder -> { };
+      case BOOLEAN:
+        return Decoder::readBoolean;
+      case INT:
+        return Decoder::readInt;
+      case LONG:
+        return Decoder::readLong;
+      case FLOAT:
+        return decoder -> decoder.skipFixed(4);
+      case DOUBLE:
+        return decoder -> decoder.skipFixed(8);
+      case STRING:
+        return Decoder::skipString;
+      case BYTES:
+        return Decoder::skipBytes;
+      case FIXED: {
+        int size = schema.getFixedSize();
+        return decoder -> decoder.skipFixed(size);
+      }
+      case ENUM:
+        return Decoder::readEnum;
+      case ARRAY: {
+        Skipper elementSkipper = skipperFor(schema.getElementType(), enclosingRecords);
+        return decoder -> {
+          for (long count = decoder.skipArray(); count > 0; count = decoder.skipArray()) {
+            for (long i = 0; i < count; i++) {
+              elementSkipper.skip(decoder);
+            }
+          }
+        };
+      }
+      case MAP: {
+        Skipper valueSkipper = skipperFor(schema.getValueType(), enclosingRecords);
+        return decoder -> {
+          for (long count = decoder.skipMap(); count > 0; count = decoder.skipMap()) {
+            for (long i = 0; i < count; i++) {
+              decoder.skipString();
+              valueSkipper.skip(decoder);
+            }
+          }
+        };
+      }
+      case RECORD: {
+        if (!enclosingRecords.add(schema)) {
+          // A recursive record has no finite plan, so it is skipped by interpreting its schema
+          return decoder -> GenericDatumReader.skip(schema, decoder);
+        }
+        Skipper[] fieldSkippers = schema.getFields().stream().map(f -> skipperFor(f.schema(), enclosingRecords))
+            .toArray(Skipper[]::new);
+        enclosingRecords.remove(schema);
+        return decoder -> {
+          for (Skipper fieldSkipper : fieldSkippers) {
+            fieldSkipper.skip(decoder);
+          }
+        };
+      }
+      case UNION: {
+        Skipper[] branchSkippers = schema.getTypes().stream().map(t -> skipperFor(t, enclosingRecords))
+            .toArray(Skipper[]::new);
+        return decoder -> branchSkippers[decoder.readIndex()].skip(decoder);
+      }
+      default:
+        throw new RuntimeException("Unrecognized Avro Schema: " + schema.getClass());
+    }
+  }
+}
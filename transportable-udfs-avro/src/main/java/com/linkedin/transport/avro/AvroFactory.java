@@ -29,13 +29,13 @@ import com.linkedin.transport.avro.data.AvroString;
 import com.linkedin.transport.avro.data.AvroStruct;
 import com.linkedin.transport.avro.typesystem.AvroTypeFactory;
 import com.linkedin.transport.typesystem.AbstractBoundVariables;
+import com.linkedin.transport.typesystem.StdTypeCache;
 import com.linkedin.transport.typesystem.TypeSignature;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
 import org.apache.avro.util.Utf8;
 
 import static org.apache.avro.Schema.*;
@@ -45,10 +45,15 @@ public class AvroFactory implements StdFactory {
 
   final AbstractBoundVariables<Schema> _boundVariables;
   final AvroTypeFactory _typeFactory;
+  final StdTypeCache _stdTypeCache;
+  // The record schema of the last struct created from field types, and of the last struct created from a StdType
+  private StructSchema _lastStructSchema;
+  private StructSchema _lastStructTypeSchema;
 
   public AvroFactory(AbstractBoundVariables<Schema> boundVariables) {
     _boundVariables = boundVariables;
     _typeFactory = new AvroTypeFactory();
+    _stdTypeCache = new StdTypeCache();
   }
 
   @Override
@@ -108,26 +113,84 @@ public class AvroFactory implements StdFactory {
           "Field names and types are of different lengths: " + "Field names length is " + fieldNames.size() + ". "
               + "Field types length is: " + fieldTypes.size());
     }
-    List<Field> fields = new ArrayList<>();
-    for (int i = 0; i < fieldTypes.size(); i++) {
-      fields.add(new Field(fieldNames.get(i), (Schema) fieldTypes.get(i).underlyingType(), null, null));
-    }
-    return new AvroStruct(Schema.createRecord(fields));
+    return createStructWithFieldNames(fieldNames, fieldTypes);
   }
 
   @Override
   public StdStruct createStruct(List<StdType> fieldTypes) {
-    return createStruct(IntStream.range(0, fieldTypes.size()).mapToObj(i -> "field" + i).collect(Collectors.toList()),
-        fieldTypes);
+    return createStructWithFieldNames(null, fieldTypes);
+  }
+
+  /**
+   * Creates a struct with the given fields, named "field0", "field1", etc. if no field names are given.
+   */
+  private StdStruct createStructWithFieldNames(List<String> fieldNames, List<StdType> fieldTypes) {
+    // UDFs usually create structs with the same fields for every row. Reusing the record schema in that case also
+    // reuses its field accessors, instead of looking them up for a new schema every time. Fields are compared by value,
+    // since a UDF may refill the same lists with different fields between calls
+    StructSchema structSchema = _lastStructSchema;
+    if (structSchema == null || !hasFields(structSchema._schema, fieldNames, fieldTypes)) {
+      List<Field> fields = new ArrayList<>();
+      for (int i = 0; i < fieldTypes.size(); i++) {
+        fields.add(new Field(getFieldName(fieldNames, i), (Schema) fieldTypes.get(i).underlyingType(), null, null));
+      }
+      structSchema = new StructSchema(Schema.createRecord(fields));
+      _lastStructSchema = structSchema;
+    }
+    return structSchema.createStruct();
+  }
+
+  private static boolean hasFields(Schema recordSchema, List<String> fieldNames, List<StdType> fieldTypes) {
+    List<Field> fields = recordSchema.getFields();
+    if (fields.size() != fieldTypes.size()) {
+      return false;
+    }
+    for (int i = 0; i < fields.size(); i++) {
+      Field field = fields.get(i);
+      if (!field.name().equals(getFieldName(fieldNames, i))
+          || !field.schema().equals(fieldTypes.get(i).underlyingType())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static String getFieldName(List<String> fieldNames, int i) {
+    return fieldNames == null ? "field" + i : fieldNames.get(i);
   }
 
   @Override
   public StdStruct createStruct(StdType stdType) {
-    return new AvroStruct((Schema) stdType.underlyingType());
+    Schema schema = (Schema) stdType.underlyingType();
+    StructSchema structSchema = _lastStructTypeSchema;
+    if (structSchema == null || structSchema._schema != schema) {
+      structSchema = new StructSchema(schema);
+      _lastStructTypeSchema = structSchema;
+    }
+    return structSchema.createStruct();
   }
 
   @Override
   public StdType createStdType(String typeSignature) {
-    return AvroWrapper.createStdType(_typeFactory.createType(TypeSignature.parse(typeSignature), _boundVariables));
+    return _stdTypeCache.get(typeSignature,
+        s -> AvroWrapper.createStdType(_typeFactory.createType(TypeSignature.parse(s), _boundVariables)));
+  }
+
+  /**
+   * A record schema with its accessors, held together so that threads sharing the factory never pair a schema with the
+   * accessors of another one
+   */
+  private static final class StructSchema {
+    private final Schema _schema;
+    private final AvroRecordAccessors _accessors;
+
+    StructSchema(Schema schema) {
+      _schema = schema;
+      _accessors = AvroRecordAccessors.forSchema(schema);
+    }
+
+    AvroStruct createStruct() {
+      return new AvroStruct(new GenericData.Record(_schema), _schema, _accessors);
+    }
   }
 }
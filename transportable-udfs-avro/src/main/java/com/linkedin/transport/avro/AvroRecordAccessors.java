@@ -0,0 +1,84 @@
+/**
+ * Copyright 2021 LinkedIn Corporation. All rights reserved.
+ * Licensed under the BSD-2 Clause license.
+ * See LICENSE in the project root for license information.
+ */
+package com.linkedin.transport.avro;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.linkedin.transport.api.data.StdData;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import org.apache.avro.AvroRuntimeException;
+import org.apache.avro.Schema;
+
+
+/**
+ * Accessors of the fields of an Avro record schema: the position of every field name, and a function wrapping the
+ * values of every field into {@link StdData}s, with the field's schema type and simple union already resolved. They
+ * are computed once per record schema, and shared by all wrappers and UDFs through {@link #forSchema(Schema)}.
+ * Callers creating many structs of the same schema look the accessors up once and pass them to
+ * {@link com.linkedin.transport.avro.data.AvroStruct}.
+ */
+public final class AvroRecordAccessors {
+
+  static final int MAXIMUM_CACHED_SCHEMAS = 1024;
+
+  // Schemas are weakly referenced, and hence compared by identity, so that the accessors of the schemas of finished
+  // queries can be collected. The size bound covers processes creating an unbounded number of schemas
+  private static final Cache<Schema, AvroRecordAccessors> ACCESSORS =
+      CacheBuilder.newBuilder().weakKeys().maximumSize(MAXIMUM_CACHED_SCHEMAS).build();
+
+  private final Map<String, Integer> _positions;
+  private final List<Function<Object, StdData>> _fieldWrappers;
+
+  private AvroRecordAccessors(Schema recordSchema) {
+    List<Schema.Field> fields = recordSchema.getFields();
+    _positions = new HashMap<>((int) (fields.size() / 0.75f) + 1);
+    _fieldWrappers = new ArrayList<>(fields.size());
+    // Fields are listed in the order of their positions
+    for (Schema.Field field : fields) {
+      _positions.put(field.name(), field.pos());
+      _fieldWrappers.add(AvroWrapper.createStdDataFactory(field.schema()));
+    }
+  }
+
+  /**
+   * Returns the accessors of the given record schema, computing them if this is the first time the schema is seen
+   */
+  public static AvroRecordAccessors forSchema(Schema recordSchema) {
+    AvroRecordAccessors accessors = ACCESSORS.getIfPresent(recordSchema);
+    if (accessors == null) {
+      // Not Cache.get(key, loader), since computing the accessors of a record may look up the accessors of nested
+      // records. Concurrent callers may compute the same accessors, which are equivalent
+      accessors = new AvroRecordAccessors(recordSchema);
+      AvroRecordAccessors existingAccessors = ACCESSORS.asMap().putIfAbsent(recordSchema, accessors);
+      if (existingAccessors != null) {
+        accessors = existingAccessors;
+      }
+    }
+    return accessors;
+  }
+
+  /**
+   * Returns the position of the field with the given name
+   */
+  public int getPosition(String fieldName) {
+    Integer position = _positions.get(fieldName);
+    if (position == null) {
+      throw new AvroRuntimeException("Not a valid schema field: " + fieldName);
+    }
+    return position;
+  }
+
+  /**
+   * Wraps a value of the field at the given position into a {@link StdData}, or returns null for null values
+   */
+  public StdData wrapField(int position, Object value) {
+    return _fieldWrappers.get(position).apply(value);
+  }
+}
@@ -0,0 +1,127 @@
+/**
+ * Copyright 2021 LinkedIn Corporation. All rights reserved.
+ * Licensed under the BSD-2 Clause license.
+ * See LICENSE in the project root for license information.
+ */
+package com.linkedin.transport.avro;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import org.apache.avro.Schema;
+import org.apache.avro.file.DataFileStream;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+
+
+/**
+ * Evaluates a UDF on the fields of Avro records, writing its output into an additional field of the records. It is
+ * created by {@link StdUdfWrapper#createRecordEvaluator(Schema, List, String)}.
+ *
+ * The positions of the argument fields are resolved once from the input record schema, so no field is looked up by
+ * name per record. The output records are copies of the input records with the additional output field, and a single
+ * output record is reused for all input records, so it must not be retained after the next record is evaluated.
+ */
+public final class AvroRecordEvaluator {
+
+  private final StdUdfWrapper _stdUdfWrapper;
+  private final int[] _argumentPositions;
+  private final int _inputFieldCount;
+  private final Schema _outputSchema;
+  private final GenericRecord _outputRecord;
+  private final Object[] _arguments;
+
+  AvroRecordEvaluator(StdUdfWrapper stdUdfWrapper, Schema inputRecordSchema, List<String> argumentFields,
+      String outputField) {
+    if (inputRecordSchema.getType() != Schema.Type.RECORD) {
+      throw new IllegalArgumentException("Expected a record schema, received: " + inputRecordSchema);
+    }
+    if (inputRecordSchema.getField(outputField) != null) {
+      throw new IllegalArgumentException(
+          "Output field " + outputField + " already exists in record schema " + inputRecordSchema.getFullName());
+    }
+    _argumentPositions = new int[argumentFields.size()];
+    Schema[] argumentSchemas = new Schema[argumentFields.size()];
+    for (int i = 0; i < argumentFields.size(); i++) {
+      Schema.Field field = inputRecordSchema.getField(argumentFields.get(i));
+      if (field == null) {
+        throw new IllegalArgumentException("Argument field " + argumentFields.get(i) + " not found in record schema "
+            + inputRecordSchema.getFullName());
+      }
+      _argumentPositions[i] = field.pos();
+      // Null values are handled by the wrapper, so the UDF is bound to the non null component of nullable fields
+      argumentSchemas[i] = field.schema().getType() == Schema.Type.UNION
+          ? AvroWrapper.getNonNullComponent(field.schema()) : field.schema();
+    }
+    _stdUdfWrapper = stdUdfWrapper;
+    Schema outputFieldSchema = stdUdfWrapper.initialize(argumentSchemas);
+    _inputFieldCount = inputRecordSchema.getFields().size();
+    _outputSchema = createOutputSchema(inputRecordSchema, outputField, outputFieldSchema);
+    _outputRecord = new GenericData.Record(_outputSchema);
+    _arguments = new Object[argumentFields.size()];
+  }
+
+  private static Schema createOutputSchema(Schema inputRecordSchema, String outputField, Schema outputFieldSchema) {
+    List<Schema.Field> fields = new ArrayList<>(inputRecordSchema.getFields().size() + 1);
+    for (Schema.Field field : inputRecordSchema.getFields()) {
+      fields.add(new Schema.Field(field, field.schema()));
+    }
+    // The UDF may return null
+    fields.add(new Schema.Field(outputField,
+        Schema.createUnion(Arrays.asList(Schema.create(Schema.Type.NULL), outputFieldSchema)), null,
+        Schema.Field.NULL_DEFAULT_VALUE));
+    return Schema.createRecord(inputRecordSchema.getName(), inputRecordSchema.getDoc(),
+        inputRecordSchema.getNamespace(), inputRecordSchema.isError(), fields);
+  }
+
+  /**
+   * Returns the schema of the output records, which has the fields of the input record schema followed by the
+   * nullable output field.
+   */
+  public Schema getOutputSchema() {
+    return _outputSchema;
+  }
+
+  /**
+   * Evaluates the UDF on the given record.
+   *
+   * @param record  a record of the input record schema
+   * @return the output record, which is reused by the next call
+   */
+  public GenericRecord evaluate(GenericRecord record) {
+    for (int i = 0; i < _argumentPositions.length; i++) {
+      _arguments[i] = record.get(_argumentPositions[i]);
+    }
+    for (int i = 0; i < _inputFieldCount; i++) {
+      _outputRecord.put(i, record.get(i));
+    }
+    _outputRecord.put(_inputFieldCount, _stdUdfWrapper.evaluate(_arguments));
+    return _outputRecord;
+  }
+
+  /**
+   * Evaluates the UDF on every record, and passes the output records to the consumer in the order of the input
+   * records. The output record passed to the consumer is reused for the next record.
+   */
+  public void evaluate(Iterable<? extends GenericRecord> records, Consumer<? super GenericRecord> consumer) {
+    for (GenericRecord record : records) {
+      consumer.accept(evaluate(record));
+    }
+  }
+
+  /**
+   * Evaluates the UDF on every record of an Avro data file, reusing a single input record for reading the records. The
+   * output records are passed to the consumer in the order of the input records, and the output record passed to the
+   * consumer is reused for the next record.
+   */
+  public void evaluate(DataFileStream<GenericRecord> stream, Consumer<? super GenericRecord> consumer)
+      throws IOException {
+    GenericRecord record = null;
+    while (stream.hasNext()) {
+      record = stream.next(record);
+      consumer.accept(evaluate(record));
+    }
+  }
+}
@@ -5,6 +5,8 @@
  */
 package com.linkedin.transport.avro;
 
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
 import com.linkedin.transport.api.data.StdData;
 import com.linkedin.transport.api.types.StdType;
 import com.linkedin.transport.avro.data.AvroArray;
@@ -30,6 +32,7 @@ import com.linkedin.transport.avro.types.AvroStructType;
 import java.nio.ByteBuffer;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 import org.apache.avro.Schema;
 import org.apache.avro.generic.GenericArray;
 import org.apache.avro.generic.GenericEnumSymbol;
@@ -50,30 +53,9 @@ public class AvroWrapper {
         return new AvroLong((Long) avroData);
       case BOOLEAN:
         return new AvroBoolean((Boolean) avroData);
-      case ENUM: {
-        if (avroData == null) {
-          return new AvroString(null);
-        }
-
-        if (avroData instanceof String) {
-          return new AvroString(new Utf8((String) avroData));
-        } else if (avroData instanceof GenericEnumSymbol) {
-          return new AvroString(new Utf8(((GenericEnumSymbol) avroData).toString()));
-        }
-        throw new IllegalArgumentException("Unsupported type for Avro enum: " + avroData.getClass());
-      }
-      case STRING: {
-        if (avroData == null) {
-          return new AvroString(null);
-        }
-
-        if (avroData instanceof Utf8) {
-          return new AvroString((Utf8) avroData);
-        } else if (avroData instanceof String) {
-          return new AvroString(new Utf8((String) avroData));
-        }
-        throw new IllegalArgumentException("Unsupported type for Avro string: " + avroData.getClass());
-      }
+      case ENUM:
+      case STRING:
+        return new AvroString(avroData == null ? null : toUtf8(avroData, avroSchema.getType()));
       case FLOAT:
         return new AvroFloat((Float) avroData);
       case DOUBLE:
@@ -85,7 +67,7 @@ public class AvroWrapper {
       case MAP:
         return new AvroMap((Map<Object, Object>) avroData, avroSchema);
       case RECORD:
-        return new AvroStruct((GenericRecord) avroData, avroSchema);
+        return new AvroStruct((GenericRecord) avroData, avroSchema, AvroRecordAccessors.forSchema(avroSchema));
       case UNION: {
         Schema nonNullableType = getNonNullComponent(avroSchema);
         if (avroData == null) {
@@ -100,11 +82,82 @@ public class AvroWrapper {
     }
   }
 
+  /**
+   * Returns a function creating {@link StdData}s from values of the given schema. Unlike
+   * {@link #createStdData(Object, Schema)}, it dispatches on the schema type, and resolves simple unions, only once.
+   */
+  public static Function<Object, StdData> createStdDataFactory(Schema avroSchema) {
+    switch (avroSchema.getType()) {
+      case INT:
+        return avroData -> new AvroInteger((Integer) avroData);
+      case LONG:
+        return avroData -> new AvroLong((Long) avroData);
+      case BOOLEAN:
+        return avroData -> new AvroBoolean((Boolean) avroData);
+      case FLOAT:
+        return avroData -> new AvroFloat((Float) avroData);
+      case DOUBLE:
+        return avroData -> new AvroDouble((Double) avroData);
+      case BYTES:
+        return avroData -> new AvroBinary((ByteBuffer) avroData);
+      case ARRAY:
+        return avroData -> new AvroArray(toGenericArray(avroData), avroSchema);
+      case MAP:
+        return avroData -> new AvroMap(toMap(avroData), avroSchema);
+      case RECORD: {
+        // Looked up on first use rather than here, since the accessors of a recursive record create this factory
+        Supplier<AvroRecordAccessors> accessors = Suppliers.memoize(() -> AvroRecordAccessors.forSchema(avroSchema));
+        return avroData -> new AvroStruct((GenericRecord) avroData, avroSchema, accessors.get());
+      }
+      case UNION: {
+        Function<Object, StdData> nonNullFactory = createStdDataFactory(getNonNullComponent(avroSchema));
+        return avroData -> avroData == null ? null : nonNullFactory.apply(avroData);
+      }
+      case NULL:
+        return avroData -> null;
+      default:
+        return avroData -> createStdData(avroData, avroSchema);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static GenericArray<Object> toGenericArray(Object avroData) {
+    // The type of the elements is only known from the schema at runtime
+    return (GenericArray<Object>) avroData;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Map<Object, Object> toMap(Object avroData) {
+    // The types of the keys and values are only known from the schema at runtime
+    return (Map<Object, Object>) avroData;
+  }
+
+  /**
+   * Converts the value of an Avro string or enum to the {@link Utf8} held by {@link AvroString}. {@link Utf8} values
+   * are returned as they are, without allocating.
+   */
+  static Utf8 toUtf8(Object avroData, Schema.Type type) {
+    if (type == Schema.Type.STRING) {
+      if (avroData instanceof Utf8) {
+        return (Utf8) avroData;
+      } else if (avroData instanceof String) {
+        return new Utf8((String) avroData);
+      }
+      throw new IllegalArgumentException("Unsupported type for Avro string: " + avroData.getClass());
+    }
+    if (avroData instanceof String) {
+      return new Utf8((String) avroData);
+    } else if (avroData instanceof GenericEnumSymbol) {
+      return new Utf8(avroData.toString());
+    }
+    throw new IllegalArgumentException("Unsupported type for Avro enum: " + avroData.getClass());
+  }
+
   /**
    * Returns a non null component of a simple union schema. The supported union schema must have
    * only two fields where one of them is null type, the other is returned.
    */
-  private static Schema getNonNullComponent(Schema unionSchema) {
+  static Schema getNonNullComponent(Schema unionSchema) {
     List<Schema> types = unionSchema.getTypes();
     if (types.size() == 2) {
       if (types.get(0).getType().equals(Schema.Type.NULL)) {
@@ -8,6 +8,7 @@ package com.linkedin.transport.avro;
 import com.linkedin.transport.api.StdFactory;
 import com.linkedin.transport.api.data.PlatformData;
 import com.linkedin.transport.api.data.StdData;
+import com.linkedin.transport.api.udf.StdPrimitiveUDF;
 import com.linkedin.transport.api.udf.StdUDF;
 import com.linkedin.transport.api.udf.StdUDF0;
 import com.linkedin.transport.api.udf.StdUDF1;
@@ -20,8 +21,9 @@ import com.linkedin.transport.api.udf.StdUDF7;
 import com.linkedin.transport.api.udf.StdUDF8;
 import com.linkedin.transport.api.udf.TopLevelStdUDF;
 import com.linkedin.transport.avro.typesystem.AvroTypeInference;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
 import java.util.List;
-import java.util.stream.IntStream;
 import org.apache.avro.Schema;
 
 
@@ -36,7 +38,14 @@ public abstract class StdUdfWrapper {
   protected boolean _requiredFilesProcessed;
   protected StdFactory _stdFactory;
   private boolean[] _nullableArguments;
+  // Reusable StdData for each argument, rebound to the argument value of every call
   private StdData[] _args;
+  // Whether each argument is a string, which may need to be converted to a Utf8
+  private boolean[] _stringArgs;
+  // Reusable array of the arguments passed to the StdUDF, holding either the argument's StdData or null
+  private StdData[] _wrappedArgs;
+  // The primitive eval method of a StdPrimitiveUDF, taking the array of Avro arguments, or null for other UDFs
+  private MethodHandle _primitiveEval;
 
   /**
    * Given input schemas, this method matches them to the expected type signatures, and finds bindings to the
@@ -56,9 +65,38 @@ public abstract class StdUdfWrapper {
     _stdUdf.init(_stdFactory);
     _requiredFilesProcessed = false;
     createStdData();
+    createPrimitiveEval();
     return avroTypeInference.getOutputDataType();
   }
 
+  /**
+   * Creates an {@link AvroRecordEvaluator} which evaluates this UDF on the given fields of records of the input record
+   * schema, and writes its output into an additional output field. This initializes the UDF with the schemas of the
+   * argument fields, so {@link #initialize(Schema[])} must not be called.
+   *
+   * @param inputRecordSchema  the schema of the input records
+   * @param argumentFields  the names of the fields holding the arguments of the UDF, in the order of the arguments
+   * @param outputField  the name of the field holding the output of the UDF in the output records
+   * @return the evaluator
+   */
+  public AvroRecordEvaluator createRecordEvaluator(Schema inputRecordSchema, List<String> argumentFields,
+      String outputField) {
+    return new AvroRecordEvaluator(this, inputRecordSchema, argumentFields, outputField);
+  }
+
+  /**
+   * Creates an {@link AvroBinaryEvaluator} which evaluates this UDF on the given fields of binary encoded records of
+   * the record schema, decoding only those fields. This initializes the UDF with the schemas of the argument fields,
+   * so {@link #initialize(Schema[])} must not be called.
+   *
+   * @param recordSchema  the schema the records were written with
+   * @param argumentFields  the names of the fields holding the arguments of the UDF, in the order of the arguments
+   * @return the evaluator
+   */
+  public AvroBinaryEvaluator createBinaryEvaluator(Schema recordSchema, List<String> argumentFields) {
+    return new AvroBinaryEvaluator(this, recordSchema, argumentFields);
+  }
+
   protected boolean containsNullValuedNonNullableArgument(Object[] arguments) {
     for (int i = 0; i < arguments.length; i++) {
       if (arguments[i] == null && !_nullableArguments[i]) {
@@ -83,19 +121,59 @@ public abstract class StdUdfWrapper {
 
   protected void createStdData() {
     _args = new StdData[_inputSchemas.length];
+    _stringArgs = new boolean[_inputSchemas.length];
     for (int i = 0; i < _inputSchemas.length; i++) {
       _args[i] = AvroWrapper.createStdData(null, _inputSchemas[i]);
+      _stringArgs[i] = _inputSchemas[i].getType() == Schema.Type.STRING;
+    }
+    _wrappedArgs = new StdData[_inputSchemas.length];
+  }
+
+  /**
+   * Binds the primitive eval method of a {@link StdPrimitiveUDF} to the UDF and adapts it to the boxed Avro values of
+   * the arguments, so that it is called without wrapping them into {@link StdData}s. Avro holds the result as a boxed
+   * value as well.
+   */
+  private void createPrimitiveEval() {
+    if (_stdUdf instanceof StdPrimitiveUDF) {
+      // (Object[]) -> Object
+      _primitiveEval = ((StdPrimitiveUDF) _stdUdf).getPrimitiveEval()
+          .bindTo(_stdUdf)
+          .asType(MethodType.genericMethodType(_inputSchemas.length))
+          .asSpreader(Object[].class, _inputSchemas.length);
+    } else {
+      _primitiveEval = null;
     }
   }
 
+  /**
+   * Rebinds the reusable {@link StdData}s to the given arguments. Nothing is allocated, except when converting string
+   * arguments that are not {@link org.apache.avro.util.Utf8}s.
+   */
   private StdData[] wrapArguments(Object[] arguments) {
-    return IntStream.range(0, _args.length).mapToObj(i -> wrap(arguments[i], _args[i])).toArray(StdData[]::new);
+    for (int i = 0; i < _args.length; i++) {
+      Object argument = arguments[i];
+      if (argument != null && _stringArgs[i]) {
+        argument = AvroWrapper.toUtf8(argument, Schema.Type.STRING);
+      }
+      _wrappedArgs[i] = wrap(argument, _args[i]);
+    }
+    return _wrappedArgs;
   }
 
   public Object evaluate(Object[] arguments) {
     if (containsNullValuedNonNullableArgument(arguments)) {
       return null;
     }
+    if (_primitiveEval != null) {
+      try {
+        return (Object) _primitiveEval.invokeExact(arguments);
+      } catch (RuntimeException | Error e) {
+        throw e;
+      } catch (Throwable t) {
+        throw new RuntimeException(t);
+      }
+    }
     StdData[] args = wrapArguments(arguments);
     StdData result;
     switch (args.length) {
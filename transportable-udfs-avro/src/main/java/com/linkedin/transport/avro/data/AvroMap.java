@@ -11,31 +11,39 @@ import com.linkedin.transport.api.data.StdMap;
 import com.linkedin.transport.avro.AvroWrapper;
 import java.util.AbstractSet;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Iterator;
-import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 import org.apache.avro.Schema;
+import org.apache.avro.util.Utf8;
 
 import static org.apache.avro.Schema.Type.*;
 
 
 public class AvroMap implements StdMap, PlatformData {
+  // Avro map keys are always strings
+  private static final Schema KEY_SCHEMA = Schema.create(STRING);
+
   private Map<Object, Object> _map;
-  private final Schema _keySchema;
   private final Schema _valueSchema;
+  // Whether the keys of the map have been checked for keys which are not Utf8s, e.g. String keys
+  private boolean _keysChecked;
+  // Index of the values by the Utf8 form of their keys, only built if the map has keys which are not Utf8s, so that
+  // lookups of keys in any form are a single hash probe
+  private Map<Utf8, Object> _utf8Index;
 
   public AvroMap(Map<Object, Object> map, Schema mapSchema) {
     _map = map;
-    _keySchema = Schema.create(STRING);
     _valueSchema = mapSchema.getValueType();
   }
 
   public AvroMap(Schema mapSchema) {
-    _map = new LinkedHashMap<>();
-    _keySchema = Schema.create(STRING);
+    _map = new HashMap<>();
     _valueSchema = mapSchema.getValueType();
+    // The map only receives keys through put(), which normalizes them
+    _keysChecked = true;
   }
 
   @Override
@@ -46,6 +54,8 @@ public class AvroMap implements StdMap, PlatformData {
   @Override
   public void setUnderlyingData(Object value) {
     _map = (Map<Object, Object>) value;
+    _keysChecked = false;
+    _utf8Index = null;
   }
 
   @Override
@@ -55,12 +65,31 @@ public class AvroMap implements StdMap, PlatformData {
 
   @Override
   public StdData get(StdData key) {
-    return AvroWrapper.createStdData(_map.get(((PlatformData) key).getUnderlyingData()), _valueSchema);
+    Utf8 utf8Key = toUtf8(((PlatformData) key).getUnderlyingData());
+    if (_utf8Index != null) {
+      return AvroWrapper.createStdData(_utf8Index.get(utf8Key), _valueSchema);
+    }
+    Object value = _map.get(utf8Key);
+    // A miss may be due to the key being held in another form, which is only checked once per map
+    if (value == null && !_keysChecked && indexKeys()) {
+      value = _utf8Index.get(utf8Key);
+    }
+    return AvroWrapper.createStdData(value, _valueSchema);
   }
 
   @Override
   public void put(StdData key, StdData value) {
-    _map.put(((PlatformData) key).getUnderlyingData(), ((PlatformData) value).getUnderlyingData());
+    Utf8 utf8Key = toUtf8(((PlatformData) key).getUnderlyingData());
+    Object underlyingValue = ((PlatformData) value).getUnderlyingData();
+    if (!_keysChecked) {
+      indexKeys();
+    }
+    if (_utf8Index != null) {
+      // Replace an existing entry whose key is held as a String, so that the map holds a single entry per key
+      _map.remove(utf8Key.toString());
+      _utf8Index.put(utf8Key, underlyingValue);
+    }
+    _map.put(utf8Key, underlyingValue);
   }
 
   @Override
@@ -77,7 +106,7 @@ public class AvroMap implements StdMap, PlatformData {
 
           @Override
           public StdData next() {
-            return AvroWrapper.createStdData(keySet.next(), _keySchema);
+            return AvroWrapper.createStdData(keySet.next(), KEY_SCHEMA);
           }
         };
       }
@@ -96,6 +125,38 @@ public class AvroMap implements StdMap, PlatformData {
 
   @Override
   public boolean containsKey(StdData key) {
-    return _map.containsKey(((PlatformData) key).getUnderlyingData());
+    Utf8 utf8Key = toUtf8(((PlatformData) key).getUnderlyingData());
+    if (_utf8Index != null) {
+      return _utf8Index.containsKey(utf8Key);
+    }
+    return _map.containsKey(utf8Key) || (!_keysChecked && indexKeys() && _utf8Index.containsKey(utf8Key));
+  }
+
+  /**
+   * Checks whether the map has keys which are not Utf8s, and if so builds the Utf8 index of its values.
+   *
+   * @return true if the index was built
+   */
+  private boolean indexKeys() {
+    _keysChecked = true;
+    boolean allKeysAreUtf8 = true;
+    for (Object key : _map.keySet()) {
+      if (!(key instanceof Utf8)) {
+        allKeysAreUtf8 = false;
+        break;
+      }
+    }
+    if (allKeysAreUtf8) {
+      return false;
+    }
+    _utf8Index = new HashMap<>((int) (_map.size() / 0.75f) + 1);
+    for (Map.Entry<Object, Object> entry : _map.entrySet()) {
+      _utf8Index.put(toUtf8(entry.getKey()), entry.getValue());
+    }
+    return true;
+  }
+
+  private static Utf8 toUtf8(Object key) {
+    return key instanceof Utf8 ? (Utf8) key : new Utf8(key.toString());
   }
 }
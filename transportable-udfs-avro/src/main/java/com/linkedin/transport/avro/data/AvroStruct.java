@@ -8,10 +8,9 @@ package com.linkedin.transport.avro.data;
 import com.linkedin.transport.api.data.PlatformData;
 import com.linkedin.transport.api.data.StdData;
 import com.linkedin.transport.api.data.StdStruct;
-import com.linkedin.transport.avro.AvroWrapper;
+import com.linkedin.transport.avro.AvroRecordAccessors;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 import org.apache.avro.Schema;
 import org.apache.avro.generic.GenericData.Record;
 import org.apache.avro.generic.GenericRecord;
@@ -20,16 +19,25 @@ import org.apache.avro.generic.GenericRecord;
 public class AvroStruct implements StdStruct, PlatformData {
 
   private final Schema _recordSchema;
+  private final AvroRecordAccessors _accessors;
   private GenericRecord _genericRecord;
 
   public AvroStruct(GenericRecord genericRecord, Schema recordSchema) {
-    _genericRecord = genericRecord;
-    _recordSchema = recordSchema;
+    this(genericRecord, recordSchema, AvroRecordAccessors.forSchema(recordSchema));
   }
 
   public AvroStruct(Schema recordSchema) {
-    _genericRecord = new Record(recordSchema);
+    this(new Record(recordSchema), recordSchema);
+  }
+
+  /**
+   * Creates a struct with the accessors of its record schema, which callers creating many structs of the same schema
+   * look up once rather than for every struct
+   */
+  public AvroStruct(GenericRecord genericRecord, Schema recordSchema, AvroRecordAccessors accessors) {
+    _genericRecord = genericRecord;
     _recordSchema = recordSchema;
+    _accessors = accessors;
   }
 
   @Override
@@ -44,12 +52,12 @@ public class AvroStruct implements StdStruct, PlatformData {
 
   @Override
   public StdData getField(int index) {
-    return AvroWrapper.createStdData(_genericRecord.get(index), _recordSchema.getFields().get(index).schema());
+    return _accessors.wrapField(index, _genericRecord.get(index));
   }
 
   @Override
   public StdData getField(String name) {
-    return AvroWrapper.createStdData(_genericRecord.get(name), _recordSchema.getField(name).schema());
+    return getField(_accessors.getPosition(name));
   }
 
   @Override
@@ -59,11 +67,16 @@ public class AvroStruct implements StdStruct, PlatformData {
 
   @Override
   public void setField(String name, StdData value) {
-    _genericRecord.put(name, ((PlatformData) value).getUnderlyingData());
+    setField(_accessors.getPosition(name), value);
   }
 
   @Override
   public List<StdData> fields() {
-    return IntStream.range(0, _recordSchema.getFields().size()).mapToObj(i -> getField(i)).collect(Collectors.toList());
+    int fieldCount = _recordSchema.getFields().size();
+    List<StdData> fields = new ArrayList<>(fieldCount);
+    for (int i = 0; i < fieldCount; i++) {
+      fields.add(getField(i));
+    }
+    return fields;
   }
 }
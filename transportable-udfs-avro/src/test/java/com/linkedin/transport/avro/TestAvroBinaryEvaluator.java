@@ -0,0 +1,118 @@
+/**
+ * Copyright 2021 LinkedIn Corporation. All rights reserved.
+ * Licensed under the BSD-2 Clause license.
+ * See LICENSE in the project root for license information.
+ */
+package com.linkedin.transport.avro;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.util.Utf8;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+
+public class TestAvroBinaryEvaluator {
+
+  private static final Schema RECORD_SCHEMA = new Schema.Parser().parse("{\"type\": \"record\", \"name\": \"Wide\", "
+      + "\"fields\": ["
+      + "{\"name\": \"id\", \"type\": \"int\"}, "
+      + "{\"name\": \"tags\", \"type\": {\"type\": \"array\", \"items\": \"string\"}}, "
+      + "{\"name\": \"counts\", \"type\": {\"type\": \"map\", \"values\": \"long\"}}, "
+      + "{\"name\": \"score\", \"type\": \"double\"}, "
+      + "{\"name\": \"ratio\", \"type\": \"float\"}, "
+      + "{\"name\": \"flag\", \"type\": \"boolean\"}, "
+      + "{\"name\": \"kind\", \"type\": {\"type\": \"enum\", \"name\": \"Kind\", \"symbols\": [\"A\", \"B\"]}}, "
+      + "{\"name\": \"hash\", \"type\": {\"type\": \"fixed\", \"name\": \"Hash\", \"size\": 4}}, "
+      + "{\"name\": \"nested\", \"type\": {\"type\": \"record\", \"name\": \"Nested\", \"fields\": ["
+      + "{\"name\": \"x\", \"type\": \"long\"}, {\"name\": \"y\", \"type\": [\"null\", \"string\"]}]}}, "
+      + "{\"name\": \"name\", \"type\": [\"null\", \"string\"]}, "
+      + "{\"name\": \"payload\", \"type\": \"bytes\"}, "
+      + "{\"name\": \"alias\", \"type\": \"string\"}, "
+      + "{\"name\": \"other_id\", \"type\": \"int\"}]}");
+  private static final int RECORD_COUNT = 50;
+
+  @Test
+  public void testEvaluateStringFields() throws IOException {
+    AvroBinaryEvaluator evaluator = new TestStdUdfWrapper.TestWrapper(new TestStdUdfWrapper.CoalesceStringsUDF())
+        .createBinaryEvaluator(RECORD_SCHEMA, ImmutableList.of("name", "alias"));
+
+    BinaryDecoder decoder = DecoderFactory.get().binaryDecoder(encodeRecords(), null);
+    List<String> output = new ArrayList<>();
+    for (int i = 0; i < RECORD_COUNT; i++) {
+      output.add(evaluator.evaluate(decoder).toString());
+    }
+    assertTrue(decoder.isEnd());
+    assertEquals(output.get(0), "name0");
+    assertEquals(output.get(1), "alias1");
+    assertEquals(output.get(RECORD_COUNT - 1), "alias" + (RECORD_COUNT - 1));
+  }
+
+  @Test
+  public void testEvaluateIntegerFields() throws IOException {
+    AvroBinaryEvaluator evaluator = new TestStdUdfWrapper.TestWrapper(new TestStdUdfWrapper.MaxIntegersUDF())
+        .createBinaryEvaluator(RECORD_SCHEMA, ImmutableList.of("id", "other_id"));
+    // The same field passed as both arguments
+    AvroBinaryEvaluator sameFieldEvaluator = new TestStdUdfWrapper.TestWrapper(new TestStdUdfWrapper.MaxIntegersUDF())
+        .createBinaryEvaluator(RECORD_SCHEMA, ImmutableList.of("other_id", "other_id"));
+
+    byte[] records = encodeRecords();
+    BinaryDecoder decoder = DecoderFactory.get().binaryDecoder(records, null);
+    BinaryDecoder sameFieldDecoder = DecoderFactory.get().binaryDecoder(records, null);
+    for (int i = 0; i < RECORD_COUNT; i++) {
+      assertEquals(evaluator.evaluate(decoder), Math.max(i, 25 - i));
+      assertEquals(sameFieldEvaluator.evaluate(sameFieldDecoder), 25 - i);
+    }
+    assertTrue(decoder.isEnd());
+    assertTrue(sameFieldDecoder.isEnd());
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testMissingArgumentField() {
+    new TestStdUdfWrapper.TestWrapper(new TestStdUdfWrapper.CoalesceStringsUDF())
+        .createBinaryEvaluator(RECORD_SCHEMA, ImmutableList.of("name", "missing"));
+  }
+
+  private static byte[] encodeRecords() throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(bytes, null);
+    GenericDatumWriter<GenericRecord> writer = new GenericDatumWriter<>(RECORD_SCHEMA);
+    Schema nestedSchema = RECORD_SCHEMA.getField("nested").schema();
+    for (int i = 0; i < RECORD_COUNT; i++) {
+      GenericRecord nested = new GenericData.Record(nestedSchema);
+      nested.put("x", (long) i);
+      nested.put("y", i % 3 == 0 ? null : new Utf8("y" + i));
+      GenericRecord record = new GenericData.Record(RECORD_SCHEMA);
+      record.put("id", i);
+      record.put("tags", ImmutableList.of(new Utf8("a" + i), new Utf8("b")).subList(0, i % 3));
+      record.put("counts", i % 2 == 0 ? ImmutableMap.of() : ImmutableMap.of(new Utf8("c"), (long) i));
+      record.put("score", i * 1.5);
+      record.put("ratio", i * 0.5f);
+      record.put("flag", i % 2 == 0);
+      record.put("kind", new GenericData.EnumSymbol(RECORD_SCHEMA.getField("kind").schema(), i % 2 == 0 ? "A" : "B"));
+      record.put("hash", new GenericData.Fixed(RECORD_SCHEMA.getField("hash").schema(), new byte[]{1, 2, 3, (byte) i}));
+      record.put("nested", nested);
+      record.put("name", i % 2 == 0 ? new Utf8("name" + i) : null);
+      record.put("payload", ByteBuffer.wrap(new byte[i % 5]));
+      record.put("alias", new Utf8("alias" + i));
+      record.put("other_id", 25 - i);
+      writer.write(record, encoder);
+    }
+    encoder.flush();
+    return bytes.toByteArray();
+  }
+}
@@ -0,0 +1,93 @@
+/**
+ * Copyright 2021 LinkedIn Corporation. All rights reserved.
+ * Licensed under the BSD-2 Clause license.
+ * See LICENSE in the project root for license information.
+ */
+package com.linkedin.transport.avro;
+
+import com.google.common.collect.ImmutableList;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.avro.Schema;
+import org.apache.avro.file.DataFileStream;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.util.Utf8;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+
+public class TestAvroRecordEvaluator {
+
+  private static final Schema RECORD_SCHEMA = new Schema.Parser().parse("{\"type\": \"record\", \"name\": \"Test\", "
+      + "\"fields\": [{\"name\": \"id\", \"type\": \"int\"}, {\"name\": \"name\", \"type\": [\"null\", \"string\"]}, "
+      + "{\"name\": \"alias\", \"type\": \"string\"}]}");
+
+  @Test
+  public void testEvaluateRecords() {
+    AvroRecordEvaluator evaluator = new TestStdUdfWrapper.TestWrapper(new TestStdUdfWrapper.CoalesceStringsUDF())
+        .createRecordEvaluator(RECORD_SCHEMA, ImmutableList.of("name", "alias"), "display_name");
+
+    Schema outputSchema = evaluator.getOutputSchema();
+    assertEquals(outputSchema.getFields().size(), 4);
+    assertEquals(outputSchema.getField("display_name").pos(), 3);
+    assertEquals(outputSchema.getField("display_name").schema().getTypes().get(1).getType(), Schema.Type.STRING);
+
+    List<String> output = new ArrayList<>();
+    evaluator.evaluate(ImmutableList.of(createRecord(1, "foo", "f"), createRecord(2, null, "b")), record -> {
+      assertEquals(record.getSchema(), outputSchema);
+      output.add(record.get("id") + ":" + record.get("display_name"));
+    });
+    assertEquals(output, ImmutableList.of("1:foo", "2:b"));
+  }
+
+  @Test
+  public void testEvaluateDataFileStream() throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataFileWriter<GenericRecord> writer = new DataFileWriter<>(new GenericDatumWriter<>(RECORD_SCHEMA))) {
+      writer.create(RECORD_SCHEMA, bytes);
+      for (int i = 0; i < 100; i++) {
+        writer.append(createRecord(i, i % 2 == 0 ? null : "name" + i, "alias" + i));
+      }
+    }
+    AvroRecordEvaluator evaluator = new TestStdUdfWrapper.TestWrapper(new TestStdUdfWrapper.CoalesceStringsUDF())
+        .createRecordEvaluator(RECORD_SCHEMA, ImmutableList.of("name", "alias"), "display_name");
+
+    List<String> output = new ArrayList<>();
+    try (DataFileStream<GenericRecord> stream = new DataFileStream<>(new ByteArrayInputStream(bytes.toByteArray()),
+        new GenericDatumReader<>(RECORD_SCHEMA))) {
+      // The records, including their strings, are reused, so the values are copied
+      evaluator.evaluate(stream, record -> output.add(record.get(3).toString()));
+    }
+    assertEquals(output.size(), 100);
+    assertEquals(output.get(0), "alias0");
+    assertEquals(output.get(1), "name1");
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testMissingArgumentField() {
+    new TestStdUdfWrapper.TestWrapper(new TestStdUdfWrapper.CoalesceStringsUDF())
+        .createRecordEvaluator(RECORD_SCHEMA, ImmutableList.of("name", "missing"), "display_name");
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testExistingOutputField() {
+    new TestStdUdfWrapper.TestWrapper(new TestStdUdfWrapper.CoalesceStringsUDF())
+        .createRecordEvaluator(RECORD_SCHEMA, ImmutableList.of("name", "alias"), "id");
+  }
+
+  private static GenericRecord createRecord(int id, String name, String alias) {
+    GenericRecord record = new GenericData.Record(RECORD_SCHEMA);
+    record.put("id", id);
+    record.put("name", name == null ? null : new Utf8(name));
+    record.put("alias", new Utf8(alias));
+    return record;
+  }
+}
@@ -9,6 +9,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.linkedin.transport.api.data.PlatformData;
 import com.linkedin.transport.api.data.StdData;
+import com.linkedin.transport.api.data.StdStruct;
 import com.linkedin.transport.api.types.StdType;
 import com.linkedin.transport.avro.data.AvroArray;
 import com.linkedin.transport.avro.data.AvroBinary;
@@ -30,9 +31,14 @@ import com.linkedin.transport.avro.types.AvroLongType;
 import com.linkedin.transport.avro.types.AvroMapType;
 import com.linkedin.transport.avro.types.AvroStringType;
 import com.linkedin.transport.avro.types.AvroStructType;
+import com.linkedin.transport.avro.typesystem.AvroBoundVariables;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import org.apache.avro.AvroRuntimeException;
 import org.apache.avro.Schema;
 import org.apache.avro.generic.GenericArray;
 import org.apache.avro.generic.GenericData;
@@ -169,6 +175,31 @@ public class TestAvroWrapper {
     assertEquals(value, ((AvroMap) stdMapData).getUnderlyingData());
   }
 
+  @Test
+  public void testMapWithStringKeys() {
+    Schema mapSchema = Schema.createMap(createSchema("\"long\""));
+    Map<Object, Object> value = new HashMap<>(ImmutableMap.of("foo", 1L, "bar", 2L));
+    AvroMap stdMapData = (AvroMap) AvroWrapper.createStdData(value, mapSchema);
+
+    // Keys held as Strings are found by Utf8 probes
+    assertEquals(((PlatformData) stdMapData.get(new AvroString(new Utf8("foo")))).getUnderlyingData(), 1L);
+    assertTrue(stdMapData.containsKey(new AvroString(new Utf8("bar"))));
+    assertFalse(stdMapData.containsKey(new AvroString(new Utf8("baz"))));
+    assertNull(((PlatformData) stdMapData.get(new AvroString(new Utf8("baz")))).getUnderlyingData());
+
+    stdMapData.put(new AvroString(new Utf8("baz")), new AvroLong(3L));
+    assertEquals(((PlatformData) stdMapData.get(new AvroString(new Utf8("baz")))).getUnderlyingData(), 3L);
+    assertEquals(stdMapData.size(), 3);
+    // Putting an existing key replaces its entry
+    stdMapData.put(new AvroString(new Utf8("foo")), new AvroLong(5L));
+    assertEquals(((PlatformData) stdMapData.get(new AvroString(new Utf8("foo")))).getUnderlyingData(), 5L);
+    assertEquals(stdMapData.size(), 3);
+
+    stdMapData.setUnderlyingData(new HashMap<>(ImmutableMap.of(new Utf8("qux"), 4L)));
+    assertFalse(stdMapData.containsKey(new AvroString(new Utf8("foo"))));
+    assertEquals(((PlatformData) stdMapData.get(new AvroString(new Utf8("qux")))).getUnderlyingData(), 4L);
+  }
+
   @Test
   public void testRecordType() {
     Schema field1 = createSchema("field1", "\"int\"");
@@ -196,6 +227,59 @@ public class TestAvroWrapper {
     assertEquals(2.0, ((PlatformData) avroStruct.getField("field2")).getUnderlyingData());
   }
 
+  @Test
+  public void testRecordTypeWithNullableField() {
+    Schema structSchema = new Schema.Parser().parse("{\"type\": \"record\", \"name\": \"Nullable\", \"fields\": ["
+        + "{\"name\": \"id\", \"type\": \"long\"}, {\"name\": \"name\", \"type\": [\"null\", \"string\"]}]}");
+    GenericRecord value = new GenericData.Record(structSchema);
+    value.put("id", 1L);
+    AvroStruct avroStruct = (AvroStruct) AvroWrapper.createStdData(value, structSchema);
+
+    assertNull(avroStruct.getField("name"));
+    avroStruct.setField("name", new AvroString(new Utf8("foo")));
+    assertEquals(value.get(1), new Utf8("foo"));
+    assertTrue(avroStruct.getField(1) instanceof AvroString);
+    assertEquals(((AvroLong) avroStruct.getField("id")).get(), 1L);
+
+    // Accessors are computed once per schema instance
+    assertSame(AvroRecordAccessors.forSchema(structSchema), AvroRecordAccessors.forSchema(structSchema));
+    Schema equalSchema = new Schema.Parser().parse(structSchema.toString());
+    assertEquals(AvroRecordAccessors.forSchema(equalSchema).getPosition("id"),
+        AvroRecordAccessors.forSchema(structSchema).getPosition("id"));
+  }
+
+  @Test
+  public void testCreateStructReusesSchemaOfEqualFields() {
+    AvroFactory factory = new AvroFactory(new AvroBoundVariables());
+    List<String> fieldNames = new ArrayList<>(ImmutableList.of("field1"));
+    List<StdType> fieldTypes = new ArrayList<>(ImmutableList.of(new AvroIntegerType(Schema.create(Schema.Type.INT))));
+    Schema schema = getSchema(factory.createStruct(fieldNames, fieldTypes));
+    assertSame(getSchema(factory.createStruct(fieldNames, fieldTypes)), schema);
+
+    // Lists refilled with other fields get their own schema
+    fieldNames.set(0, "field2");
+    fieldTypes.set(0, new AvroStringType(Schema.create(Schema.Type.STRING)));
+    Schema refilledSchema = getSchema(factory.createStruct(fieldNames, fieldTypes));
+    assertNull(refilledSchema.getField("field1"));
+    assertEquals(refilledSchema.getField("field2").schema(), Schema.create(Schema.Type.STRING));
+
+    // Fields without names are named after their positions
+    Schema unnamedSchema = getSchema(factory.createStruct(fieldTypes));
+    assertEquals(unnamedSchema.getFields().get(0).name(), "field0");
+    assertSame(getSchema(factory.createStruct(fieldTypes)), unnamedSchema);
+  }
+
+  private static Schema getSchema(StdStruct stdStruct) {
+    return ((GenericRecord) ((AvroStruct) stdStruct).getUnderlyingData()).getSchema();
+  }
+
+  @Test(expectedExceptions = AvroRuntimeException.class)
+  public void testRecordTypeWithInvalidField() {
+    Schema structSchema = Schema.createRecord(ImmutableList.of(
+        new Schema.Field("field1", Schema.create(Schema.Type.INT), null, null)));
+    ((AvroStruct) AvroWrapper.createStdData(new GenericData.Record(structSchema), structSchema)).getField("field2");
+  }
+
   @Test
   public void testValidUnionType() {
     Schema nonNullType = createSchema("\"long\"");
@@ -0,0 +1,229 @@
+/**
+ * Copyright 2021 LinkedIn Corporation. All rights reserved.
+ * Licensed under the BSD-2 Clause license.
+ * See LICENSE in the project root for license information.
+ */
+package com.linkedin.transport.avro;
+
+import com.google.common.collect.ImmutableList;
+import com.linkedin.transport.api.data.StdData;
+import com.linkedin.transport.api.data.StdInteger;
+import com.linkedin.transport.api.data.StdString;
+import com.linkedin.transport.api.udf.StdPrimitiveUDF2;
+import com.linkedin.transport.api.udf.StdUDF;
+import com.linkedin.transport.api.udf.StdUDF1;
+import com.linkedin.transport.api.udf.StdUDF2;
+import com.linkedin.transport.api.udf.TopLevelStdUDF;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.avro.Schema;
+import org.apache.avro.util.Utf8;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+
+public class TestStdUdfWrapper {
+
+  private static final Schema STRING_SCHEMA = Schema.create(Schema.Type.STRING);
+  private static final Schema INT_SCHEMA = Schema.create(Schema.Type.INT);
+  private static final Schema LONG_SCHEMA = Schema.create(Schema.Type.LONG);
+
+  @Test
+  public void testEvaluateStrings() {
+    StdUdfWrapper wrapper = new TestWrapper(new CoalesceStringsUDF());
+    wrapper.initialize(new Schema[]{STRING_SCHEMA, STRING_SCHEMA});
+
+    Utf8 foo = new Utf8("foo");
+    assertSame(wrapper.evaluate(new Object[]{foo, new Utf8("bar")}), foo);
+    assertEquals(wrapper.evaluate(new Object[]{null, new Utf8("bar")}), new Utf8("bar"));
+    // String arguments are converted to Utf8
+    assertEquals(wrapper.evaluate(new Object[]{"foo", null}), new Utf8("foo"));
+    assertNull(wrapper.evaluate(new Object[]{null, null}));
+  }
+
+  @Test
+  public void testEvaluateDoesNotAllocate() {
+    StdUdfWrapper stringWrapper = new TestWrapper(new CoalesceStringsUDF());
+    stringWrapper.initialize(new Schema[]{STRING_SCHEMA, STRING_SCHEMA});
+    StdUdfWrapper intWrapper = new TestWrapper(new MaxIntegersUDF());
+    intWrapper.initialize(new Schema[]{INT_SCHEMA, INT_SCHEMA});
+    Object[][] stringArguments = {{new Utf8("foo"), new Utf8("bar")}, {null, new Utf8("bar")}};
+    Object[][] intArguments = {{1000, 2000}, {3000, 2000}};
+    int count = 100000;
+
+    // Evaluate before measuring, so that the code paths are initialized
+    stringWrapper.evaluate(stringArguments[0]);
+    intWrapper.evaluate(intArguments[0]);
+    assertEquals(allocatedBytes(stringWrapper, stringArguments, count) / count, 0);
+    assertEquals(allocatedBytes(intWrapper, intArguments, count) / count, 0);
+  }
+
+  @Test
+  public void testEvaluatePrimitives() {
+    StdUdfWrapper wrapper = new TestWrapper(new ShiftLeftUDF());
+    assertEquals(wrapper.initialize(new Schema[]{LONG_SCHEMA, INT_SCHEMA}), LONG_SCHEMA);
+
+    assertEquals(wrapper.evaluate(new Object[]{3L, 4}), 48L);
+    assertNull(wrapper.evaluate(new Object[]{3L, null}));
+  }
+
+  @Test
+  public void testTypeInferenceIsMemoized() {
+    StdUdfWrapper wrapper = new TestWrapper(new IdentityUDF());
+    assertEquals(wrapper.initialize(new Schema[]{INT_SCHEMA}), INT_SCHEMA);
+    int signatureCalls = IdentityUDF.SIGNATURE_CALLS.get();
+
+    // Another instance of the UDF with the same input types reuses the compiled signature
+    StdUdfWrapper otherWrapper = new TestWrapper(new IdentityUDF());
+    assertEquals(otherWrapper.initialize(new Schema[]{INT_SCHEMA}), INT_SCHEMA);
+    assertEquals(IdentityUDF.SIGNATURE_CALLS.get(), signatureCalls);
+    assertEquals(otherWrapper.evaluate(new Object[]{1}), 1);
+
+    // Other input types are compiled again
+    StdUdfWrapper stringWrapper = new TestWrapper(new IdentityUDF());
+    assertEquals(stringWrapper.initialize(new Schema[]{STRING_SCHEMA}), STRING_SCHEMA);
+    assertTrue(IdentityUDF.SIGNATURE_CALLS.get() > signatureCalls);
+    assertEquals(stringWrapper.evaluate(new Object[]{new Utf8("foo")}), new Utf8("foo"));
+  }
+
+  private static long allocatedBytes(StdUdfWrapper wrapper, Object[][] arguments, int count) {
+    com.sun.management.ThreadMXBean threadMXBean =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long threadId = Thread.currentThread().getId();
+    long allocatedBytesBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+    for (int i = 0; i < count; i++) {
+      wrapper.evaluate(arguments[i % arguments.length]);
+    }
+    return threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBytesBefore;
+  }
+
+  static class TestWrapper extends StdUdfWrapper {
+
+    private final StdUDF _udf;
+
+    TestWrapper(StdUDF udf) {
+      _udf = udf;
+    }
+
+    @Override
+    protected List<? extends StdUDF> getStdUdfImplementations() {
+      return ImmutableList.of(_udf);
+    }
+
+    @Override
+    protected Class<? extends TopLevelStdUDF> getTopLevelUdfClass() {
+      return (Class<? extends TopLevelStdUDF>) _udf.getClass();
+    }
+  }
+
+  public static class CoalesceStringsUDF extends StdUDF2<StdString, StdString, StdString> implements TopLevelStdUDF {
+
+    @Override
+    public StdString eval(StdString first, StdString second) {
+      return first != null ? first : second;
+    }
+
+    @Override
+    public boolean[] getNullableArguments() {
+      return new boolean[]{true, true};
+    }
+
+    @Override
+    public List<String> getInputParameterSignatures() {
+      return ImmutableList.of("varchar", "varchar");
+    }
+
+    @Override
+    public String getOutputParameterSignature() {
+      return "varchar";
+    }
+
+    @Override
+    public String getFunctionName() {
+      return "coalesce_strings";
+    }
+
+    @Override
+    public String getFunctionDescription() {
+      return "Returns the first non-null string";
+    }
+  }
+
+  public static class IdentityUDF extends StdUDF1<StdData, StdData> implements TopLevelStdUDF {
+
+    static final AtomicInteger SIGNATURE_CALLS = new AtomicInteger();
+
+    @Override
+    public StdData eval(StdData value) {
+      return value;
+    }
+
+    @Override
+    public List<String> getInputParameterSignatures() {
+      SIGNATURE_CALLS.incrementAndGet();
+      return ImmutableList.of("K");
+    }
+
+    @Override
+    public String getOutputParameterSignature() {
+      return "K";
+    }
+
+    @Override
+    public String getFunctionName() {
+      return "identity";
+    }
+
+    @Override
+    public String getFunctionDescription() {
+      return "Returns its argument";
+    }
+  }
+
+  public static class MaxIntegersUDF extends StdUDF2<StdInteger, StdInteger, StdInteger> implements TopLevelStdUDF {
+
+    @Override
+    public StdInteger eval(StdInteger first, StdInteger second) {
+      return first.get() >= second.get() ? first : second;
+    }
+
+    @Override
+    public List<String> getInputParameterSignatures() {
+      return ImmutableList.of("integer", "integer");
+    }
+
+    @Override
+    public String getOutputParameterSignature() {
+      return "integer";
+    }
+
+    @Override
+    public String getFunctionName() {
+      return "max_integers";
+    }
+
+    @Override
+    public String getFunctionDescription() {
+      return "Returns the larger integer";
+    }
+  }
+
+  public static class ShiftLeftUDF extends StdPrimitiveUDF2 implements TopLevelStdUDF {
+
+    public long eval(long value, int shift) {
+      return value << shift;
+    }
+
+    @Override
+    public String getFunctionName() {
+      return "shift_left";
+    }
+
+    @Override
+    public String getFunctionDescription() {
+      return "Shifts a bigint to the left";
+    }
+  }
+}
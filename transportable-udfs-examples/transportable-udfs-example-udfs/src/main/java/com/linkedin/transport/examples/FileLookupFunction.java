@@ -12,18 +12,13 @@ import com.linkedin.transport.api.data.StdInteger;
 import com.linkedin.transport.api.data.StdString;
 import com.linkedin.transport.api.udf.StdUDF2;
 import com.linkedin.transport.api.udf.TopLevelStdUDF;
-import java.io.BufferedReader;
-import java.io.FileReader;
-import java.io.IOException;
-import java.util.HashSet;
+import com.linkedin.transport.utils.IntLookupTable;
 import java.util.List;
-import java.util.Set;
-import org.apache.commons.io.IOUtils;
 
 
 public class FileLookupFunction extends StdUDF2<StdString, StdInteger, StdBoolean> implements TopLevelStdUDF {
 
-  private Set<Integer> ids;
+  private IntLookupTable ids;
 
   @Override
   public StdBoolean eval(StdString filename, StdInteger intToCheck) {
@@ -62,25 +57,6 @@ public class FileLookupFunction extends StdUDF2<StdString, StdInteger, StdBoolea
   }
 
   public void processRequiredFiles(String[] localPaths) {
-    loadIdFile(localPaths[0]);
-  }
-
-  private void loadIdFile(String localFilename) {
-    BufferedReader bufferedReader = null;
-    try {
-      ids = new HashSet<>();
-      bufferedReader = new BufferedReader(new FileReader(localFilename));
-      String line;
-      while ((line = bufferedReader.readLine()) != null) {
-        if (!line.startsWith("#") && !line.isEmpty()) {
-          Integer id = Integer.valueOf(line);
-          ids.add(id);
-        }
-      }
-    } catch (IOException e) {
-      throw new RuntimeException(e);
-    } finally {
-      IOUtils.closeQuietly(bufferedReader);
-    }
+    ids = IntLookupTable.load(localPaths[0]);
   }
 }
@@ -5,25 +5,11 @@
  */
 package com.linkedin.transport.examples;
 
-import com.google.common.collect.ImmutableList;
-import com.linkedin.transport.api.data.StdDouble;
-import com.linkedin.transport.api.udf.StdUDF2;
-import java.util.List;
+import com.linkedin.transport.api.udf.StdPrimitiveUDF2;
 
 
-public class NumericAddDoubleFunction extends StdUDF2<StdDouble, StdDouble, StdDouble> implements NumericAddFunction {
-  @Override
-  public StdDouble eval(StdDouble first, StdDouble second) {
-    return getStdFactory().createDouble(first.get() + second.get());
-  }
-
-  @Override
-  public List<String> getInputParameterSignatures() {
-    return ImmutableList.of("double", "double");
-  }
-
-  @Override
-  public String getOutputParameterSignature() {
-    return "double";
+public class NumericAddDoubleFunction extends StdPrimitiveUDF2 implements NumericAddFunction {
+  public double eval(double first, double second) {
+    return first + second;
   }
 }
@@ -5,26 +5,11 @@
  */
 package com.linkedin.transport.examples;
 
-import com.google.common.collect.ImmutableList;
-import com.linkedin.transport.api.data.StdInteger;
-import com.linkedin.transport.api.udf.StdUDF2;
-import java.util.List;
+import com.linkedin.transport.api.udf.StdPrimitiveUDF2;
 
 
-public class NumericAddIntFunction extends StdUDF2<StdInteger, StdInteger, StdInteger>
-    implements NumericAddFunction {
-  @Override
-  public StdInteger eval(StdInteger first, StdInteger second) {
-    return getStdFactory().createInteger(first.get() + second.get());
-  }
-
-  @Override
-  public List<String> getInputParameterSignatures() {
-    return ImmutableList.of("integer", "integer");
-  }
-
-  @Override
-  public String getOutputParameterSignature() {
-    return "integer";
+public class NumericAddIntFunction extends StdPrimitiveUDF2 implements NumericAddFunction {
+  public int eval(int first, int second) {
+    return first + second;
   }
 }
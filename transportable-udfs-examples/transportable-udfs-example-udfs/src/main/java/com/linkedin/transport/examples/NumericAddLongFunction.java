@@ -5,25 +5,11 @@
  */
 package com.linkedin.transport.examples;
 
-import com.google.common.collect.ImmutableList;
-import com.linkedin.transport.api.data.StdLong;
-import com.linkedin.transport.api.udf.StdUDF2;
-import java.util.List;
+import com.linkedin.transport.api.udf.StdPrimitiveUDF2;
 
 
-public class NumericAddLongFunction extends StdUDF2<StdLong, StdLong, StdLong> implements NumericAddFunction {
-  @Override
-  public StdLong eval(StdLong first, StdLong second) {
-    return getStdFactory().createLong(first.get() + second.get());
-  }
-
-  @Override
-  public List<String> getInputParameterSignatures() {
-    return ImmutableList.of("bigint", "bigint");
-  }
-
-  @Override
-  public String getOutputParameterSignature() {
-    return "bigint";
+public class NumericAddLongFunction extends StdPrimitiveUDF2 implements NumericAddFunction {
+  public long eval(long first, long second) {
+    return first + second;
   }
 }
@@ -31,6 +31,7 @@ import com.linkedin.transport.hive.data.HiveStruct;
 import com.linkedin.transport.hive.types.objectinspector.CacheableObjectInspectorConverters;
 import com.linkedin.transport.hive.typesystem.HiveTypeFactory;
 import com.linkedin.transport.typesystem.AbstractBoundVariables;
+import com.linkedin.transport.typesystem.StdTypeCache;
 import com.linkedin.transport.typesystem.TypeSignature;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
@@ -53,11 +54,13 @@ public class HiveFactory implements StdFactory {
   final AbstractBoundVariables<ObjectInspector> _boundVariables;
   final CacheableObjectInspectorConverters _converters;
   final HiveTypeFactory _typeFactory;
+  final StdTypeCache _stdTypeCache;
 
   public HiveFactory(AbstractBoundVariables<ObjectInspector> boundVariables) {
     _boundVariables = boundVariables;
     _converters = new CacheableObjectInspectorConverters();
     _typeFactory = new HiveTypeFactory();
+    _stdTypeCache = new StdTypeCache();
   }
 
   @Override
@@ -158,9 +161,8 @@ public class HiveFactory implements StdFactory {
 
   @Override
   public StdType createStdType(String typeSignature) {
-    return HiveWrapper.createStdType(
-        _typeFactory.createType(TypeSignature.parse(typeSignature), _boundVariables)
-    );
+    return _stdTypeCache.get(typeSignature,
+        s -> HiveWrapper.createStdType(_typeFactory.createType(TypeSignature.parse(s), _boundVariables)));
   }
 
   public Converter getConverter(ObjectInspector inputOI, ObjectInspector outputOI) {
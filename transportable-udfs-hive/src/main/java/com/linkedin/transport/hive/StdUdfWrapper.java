@@ -8,6 +8,7 @@ package com.linkedin.transport.hive;
 import com.linkedin.transport.api.StdFactory;
 import com.linkedin.transport.api.data.PlatformData;
 import com.linkedin.transport.api.data.StdData;
+import com.linkedin.transport.api.udf.StdPrimitiveUDF;
 import com.linkedin.transport.api.udf.StdUDF;
 import com.linkedin.transport.api.udf.StdUDF0;
 import com.linkedin.transport.api.udf.StdUDF1;
@@ -23,6 +24,9 @@ import com.linkedin.transport.hive.typesystem.HiveTypeInference;
 import com.linkedin.transport.utils.FileSystemUtils;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.util.Arrays;
 import java.util.List;
 import java.util.stream.IntStream;
@@ -33,8 +37,18 @@ import org.apache.hadoop.hive.ql.exec.UDFArgumentException;
 import org.apache.hadoop.hive.ql.metadata.HiveException;
 import org.apache.hadoop.hive.ql.session.SessionState;
 import org.apache.hadoop.hive.ql.udf.generic.GenericUDF;
+import org.apache.hadoop.hive.serde2.io.DoubleWritable;
 import org.apache.hadoop.hive.serde2.objectinspector.ConstantObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.PrimitiveObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.BooleanObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.DoubleObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.IntObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.LongObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.io.BooleanWritable;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.LongWritable;
 
 
 /**
@@ -50,6 +64,8 @@ public abstract class StdUdfWrapper extends GenericUDF {
   private boolean[] _nullableArguments;
   private String[] _distributedCacheFiles;
   private StdData[] _args;
+  private MethodHandle _primitiveEval;
+  private Object[] _primitiveArgs;
 
   /**
    * Given input object inspectors, this method matches them to the expected type signatures, and finds bindings to the
@@ -70,7 +86,14 @@ public abstract class StdUdfWrapper extends GenericUDF {
     _stdUdf.init(_stdFactory);
     _requiredFilesProcessed = false;
     createStdData();
-    return hiveTypeInference.getOutputDataType();
+    createPrimitiveEval();
+    ObjectInspector outputObjectInspector = hiveTypeInference.getOutputDataType();
+    if (_primitiveEval != null) {
+      // Results of primitive UDFs are returned in a reusable writable
+      outputObjectInspector = PrimitiveObjectInspectorFactory.getPrimitiveWritableObjectInspector(
+          ((PrimitiveObjectInspector) outputObjectInspector).getPrimitiveCategory());
+    }
+    return outputObjectInspector;
   }
 
   @Override
@@ -87,6 +110,7 @@ public abstract class StdUdfWrapper extends GenericUDF {
     newWrapper._stdUdf.init(_stdFactory);
     newWrapper._requiredFilesProcessed = false;
     newWrapper.createStdData();
+    newWrapper.createPrimitiveEval();
   }
 
   protected boolean containsNullValuedNonNullableArgument(DeferredObject[] arguments) throws HiveException {
@@ -133,6 +157,89 @@ public abstract class StdUdfWrapper extends GenericUDF {
     }
   }
 
+  /**
+   * Binds the primitive eval method of a {@link StdPrimitiveUDF} to the input object inspectors, which read the
+   * primitive values of the arguments, and to a reusable writable, which holds the result, so that the UDF is evaluated
+   * without wrapping its arguments into {@link StdData}s or boxing its result.
+   */
+  private void createPrimitiveEval() {
+    if (!(_stdUdf instanceof StdPrimitiveUDF)) {
+      _primitiveEval = null;
+      return;
+    }
+    try {
+      // (primitive...) -> primitive
+      MethodHandle eval = ((StdPrimitiveUDF) _stdUdf).getPrimitiveEval().bindTo(_stdUdf);
+      MethodType methodType = eval.type();
+      MethodHandle[] getters = new MethodHandle[methodType.parameterCount()];
+      for (int i = 0; i < getters.length; i++) {
+        getters[i] = getPrimitiveGetter(methodType.parameterType(i), _inputObjectInspectors[i]);
+      }
+      // (Object[]) -> Object
+      eval = MethodHandles.filterArguments(eval, 0, getters);
+      eval = MethodHandles.filterReturnValue(eval, getResultSetter(methodType.returnType()));
+      _primitiveEval = eval.asSpreader(Object[].class, getters.length);
+      _primitiveArgs = new Object[getters.length];
+    } catch (ReflectiveOperationException e) {
+      throw new RuntimeException("Cannot bind the primitive eval method of " + _stdUdf.getClass(), e);
+    }
+  }
+
+  /** Returns a MethodHandle of type {@code (Object) -> primitive} reading a Hive object through its object inspector */
+  private static MethodHandle getPrimitiveGetter(Class<?> type, ObjectInspector objectInspector)
+      throws ReflectiveOperationException {
+    Class<?> objectInspectorClass;
+    if (type == int.class) {
+      objectInspectorClass = IntObjectInspector.class;
+    } else if (type == long.class) {
+      objectInspectorClass = LongObjectInspector.class;
+    } else if (type == double.class) {
+      objectInspectorClass = DoubleObjectInspector.class;
+    } else {
+      objectInspectorClass = BooleanObjectInspector.class;
+    }
+    return MethodHandles.publicLookup()
+        .findVirtual(objectInspectorClass, "get", MethodType.methodType(type, Object.class))
+        .bindTo(objectInspector);
+  }
+
+  /** Returns a MethodHandle of type {@code (primitive) -> Object} setting a primitive value into a reusable writable */
+  private static MethodHandle getResultSetter(Class<?> type) throws ReflectiveOperationException {
+    Object result;
+    if (type == int.class) {
+      result = new IntWritable();
+    } else if (type == long.class) {
+      result = new LongWritable();
+    } else if (type == double.class) {
+      result = new DoubleWritable();
+    } else {
+      result = new BooleanWritable();
+    }
+    return MethodHandles.lookup()
+        .findStatic(StdUdfWrapper.class, "setResult", MethodType.methodType(Object.class, result.getClass(), type))
+        .bindTo(result);
+  }
+
+  private static Object setResult(IntWritable result, int value) {
+    result.set(value);
+    return result;
+  }
+
+  private static Object setResult(LongWritable result, long value) {
+    result.set(value);
+    return result;
+  }
+
+  private static Object setResult(DoubleWritable result, double value) {
+    result.set(value);
+    return result;
+  }
+
+  private static Object setResult(BooleanWritable result, boolean value) {
+    result.set(value);
+    return result;
+  }
+
   private StdData[] wrapArguments(DeferredObject[] deferredObjects) {
     return IntStream.range(0, _args.length).mapToObj(i -> wrap(deferredObjects[i], _args[i])).toArray(StdData[]::new);
   }
@@ -152,6 +259,18 @@ public abstract class StdUdfWrapper extends GenericUDF {
     if (!_requiredFilesProcessed) {
       processRequiredFiles();
     }
+    if (_primitiveEval != null) {
+      for (int i = 0; i < _primitiveArgs.length; i++) {
+        _primitiveArgs[i] = arguments[i].get();
+      }
+      try {
+        return (Object) _primitiveEval.invokeExact(_primitiveArgs);
+      } catch (RuntimeException | Error e) {
+        throw e;
+      } catch (Throwable t) {
+        throw new HiveException(t);
+      }
+    }
     StdData[] args = wrapArguments(arguments);
     StdData result;
     switch (args.length) {
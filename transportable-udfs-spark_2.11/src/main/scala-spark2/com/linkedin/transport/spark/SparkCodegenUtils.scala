@@ -0,0 +1,24 @@
+/**
+ * Copyright 2021 LinkedIn Corporation. All rights reserved.
+ * Licensed under the BSD-2 Clause license.
+ * See LICENSE in the project root for license information.
+ */
+package com.linkedin.transport.spark
+
+import org.apache.spark.sql.catalyst.expressions.codegen.{CodegenContext, ExprCode}
+import org.apache.spark.sql.types.DataType
+
+/**
+ * Spark 2 implementation of the code generation helpers whose signatures differ between Spark 2 and Spark 3.
+ * Spark 3 has its own implementation of this object in transportable-udfs-spark_2.12.
+ */
+private[spark] object SparkCodegenUtils {
+
+  def javaType(ctx: CodegenContext, dataType: DataType): String = ctx.javaType(dataType)
+
+  def boxedType(ctx: CodegenContext, dataType: DataType): String = ctx.boxedType(dataType)
+
+  def defaultValue(ctx: CodegenContext, dataType: DataType): String = ctx.defaultValue(dataType)
+
+  def withCode(ev: ExprCode, code: String): ExprCode = ev.copy(code = code)
+}
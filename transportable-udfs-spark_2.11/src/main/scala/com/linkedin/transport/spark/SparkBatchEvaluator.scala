@@ -0,0 +1,112 @@
+/**
+ * Copyright 2021 LinkedIn Corporation. All rights reserved.
+ * Licensed under the BSD-2 Clause license.
+ * See LICENSE in the project root for license information.
+ */
+package com.linkedin.transport.spark
+
+import com.linkedin.transport.api.data.StdColumn
+import com.linkedin.transport.api.udf.StdBatchUDF
+import org.apache.spark.sql.execution.vectorized.WritableColumnVector
+import org.apache.spark.sql.vectorized.ColumnVector
+
+/**
+ * Evaluates a [[StdBatchUDF]] over Spark [[ColumnVector]]s, a batch of rows at a time. It is created by
+ * [[StdUdfWrapper.createBatchEvaluator]].
+ *
+ * The required files are processed before the first batch is evaluated, and rows where a non-nullable argument is null
+ * are skipped, so the UDF only handles nulls of nullable arguments. The output of the skipped rows is null.
+ */
+class SparkBatchEvaluator private[spark](stdBatchUdf: StdBatchUDF, nullableArguments: Array[Boolean],
+    processRequiredFiles: () => Unit) {
+
+  /**
+   * Evaluates the UDF on the first numRows rows of the given argument vectors.
+   *
+   * @param numRows  the number of rows to evaluate
+   * @param arguments  the vectors holding the arguments of the UDF
+   * @param result  the vector receiving the output of the UDF for every row, which is reset before being written
+   */
+  def evaluate(numRows: Int, arguments: Array[ColumnVector], result: WritableColumnVector): Unit = {
+    if (arguments.length != nullableArguments.length) {
+      throw new IllegalArgumentException(
+        "Expected " + nullableArguments.length + " arguments, received " + arguments.length)
+    }
+    result.reset()
+    result.reserve(numRows)
+    val selectedRowIds = getRowIdsWithoutNullNonNullableArguments(numRows, arguments)
+    val selectedRowCount = if (selectedRowIds == null) numRows else selectedRowIds.length
+    if (selectedRowIds != null) {
+      putNullsAtSkippedRows(numRows, selectedRowIds, result)
+    }
+    if (selectedRowCount > 0) {
+      processRequiredFiles()
+      val columns = new Array[StdColumn](arguments.length)
+      var i = 0
+      while (i < arguments.length) {
+        columns(i) = new SparkColumn(arguments(i), selectedRowIds, selectedRowCount)
+        i += 1
+      }
+      val resultBuilder = new SparkColumnBuilder(result, selectedRowIds, selectedRowCount)
+      stdBatchUdf.evalBatch(columns, selectedRowCount, resultBuilder)
+      if (resultBuilder.size != selectedRowCount) {
+        throw new IllegalStateException("Expected " + selectedRowCount + " results from "
+          + stdBatchUdf.getClass.getName + ", received " + resultBuilder.size)
+      }
+    }
+  }
+
+  /**
+   * Returns the rows where no non-nullable argument is null, or null if that is the case for all rows.
+   */
+  private def getRowIdsWithoutNullNonNullableArguments(numRows: Int, arguments: Array[ColumnVector]): Array[Int] = {
+    var excluded: Array[Boolean] = null
+    var excludedCount = 0
+    var i = 0
+    while (i < arguments.length) {
+      if (!nullableArguments(i) && arguments(i).hasNull) {
+        var row = 0
+        while (row < numRows) {
+          if (arguments(i).isNullAt(row)) {
+            if (excluded == null) {
+              excluded = new Array[Boolean](numRows)
+            }
+            if (!excluded(row)) {
+              excluded(row) = true
+              excludedCount += 1
+            }
+          }
+          row += 1
+        }
+      }
+      i += 1
+    }
+    if (excluded == null) {
+      return null // scalastyle:ignore return
+    }
+    val selectedRowIds = new Array[Int](numRows - excludedCount)
+    var selectedRowCount = 0
+    var row = 0
+    while (row < numRows) {
+      if (!excluded(row)) {
+        selectedRowIds(selectedRowCount) = row
+        selectedRowCount += 1
+      }
+      row += 1
+    }
+    selectedRowIds
+  }
+
+  private def putNullsAtSkippedRows(numRows: Int, selectedRowIds: Array[Int], result: WritableColumnVector): Unit = {
+    var selectedRow = 0
+    var row = 0
+    while (row < numRows) {
+      if (selectedRow < selectedRowIds.length && selectedRowIds(selectedRow) == row) {
+        selectedRow += 1
+      } else {
+        result.putNull(row)
+      }
+      row += 1
+    }
+  }
+}
@@ -0,0 +1,64 @@
+/**
+ * Copyright 2021 LinkedIn Corporation. All rights reserved.
+ * Licensed under the BSD-2 Clause license.
+ * See LICENSE in the project root for license information.
+ */
+package com.linkedin.transport.spark
+
+import com.linkedin.transport.api.data.{PlatformData, StdColumn, StdData}
+import org.apache.spark.sql.types._
+import org.apache.spark.sql.vectorized.ColumnVector
+
+/**
+ * A [[StdColumn]] backed by a Spark [[ColumnVector]]. Values are wrapped into a single [[StdData]] that is rebound to
+ * every position read.
+ *
+ * @param vector  the vector holding the values
+ * @param rowIds  the rows of the vector exposed by this column, in order, or null to expose the first size rows
+ * @param size  the number of values in the column
+ */
+class SparkColumn(vector: ColumnVector, rowIds: Array[Int], override val size: Int) extends StdColumn {
+
+  private val _dataType = vector.dataType()
+  private val _value = SparkWrapper.createEmptyStdData(_dataType)
+
+  def this(vector: ColumnVector, size: Int) = this(vector, null, size)
+
+  override def mayHaveNull(): Boolean = vector.hasNull
+
+  override def isNull(position: Int): Boolean = vector.isNullAt(rowId(position))
+
+  override def get(position: Int): StdData = {
+    val row = rowId(position)
+    if (vector.isNullAt(row)) {
+      null
+    } else {
+      _value.asInstanceOf[PlatformData].setUnderlyingData(readValue(row))
+      _value
+    }
+  }
+
+  override def getInteger(position: Int): Int = vector.getInt(rowId(position))
+
+  override def getLong(position: Int): Long = vector.getLong(rowId(position))
+
+  override def getDouble(position: Int): Double = vector.getDouble(rowId(position))
+
+  override def getBoolean(position: Int): Boolean = vector.getBoolean(rowId(position))
+
+  private def rowId(position: Int): Int = if (rowIds == null) position else rowIds(position)
+
+  private def readValue(row: Int): Any = _dataType match { // scalastyle:ignore cyclomatic.complexity
+    case _: IntegerType => vector.getInt(row)
+    case _: LongType => vector.getLong(row)
+    case _: BooleanType => vector.getBoolean(row)
+    case _: StringType => vector.getUTF8String(row)
+    case _: FloatType => vector.getFloat(row)
+    case _: DoubleType => vector.getDouble(row)
+    case _: BinaryType => vector.getBinary(row)
+    case _: ArrayType => vector.getArray(row)
+    case _: MapType => vector.getMap(row)
+    case _: StructType => vector.getStruct(row)
+    case _ => throw new UnsupportedOperationException("Unrecognized Spark Type: " + _dataType.getClass)
+  }
+}
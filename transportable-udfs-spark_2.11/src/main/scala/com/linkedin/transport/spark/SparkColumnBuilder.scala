@@ -0,0 +1,86 @@
+/**
+ * Copyright 2021 LinkedIn Corporation. All rights reserved.
+ * Licensed under the BSD-2 Clause license.
+ * See LICENSE in the project root for license information.
+ */
+package com.linkedin.transport.spark
+
+import com.linkedin.transport.api.data.{PlatformData, StdColumnBuilder, StdData}
+import org.apache.spark.sql.execution.vectorized.WritableColumnVector
+import org.apache.spark.sql.types._
+import org.apache.spark.unsafe.types.UTF8String
+
+/**
+ * A [[StdColumnBuilder]] writing the values appended to it into a Spark [[WritableColumnVector]], which must already
+ * have the capacity for all rows. Only vectors of primitive types, strings and binaries are supported.
+ *
+ * @param vector  the vector receiving the values
+ * @param rowIds  the rows of the vector to which the values are written, in order, or null to write the first
+ *                capacity rows
+ * @param capacity  the number of values which can be appended
+ */
+class SparkColumnBuilder(vector: WritableColumnVector, rowIds: Array[Int], capacity: Int) extends StdColumnBuilder {
+
+  private val _dataType = vector.dataType()
+  private var _size = 0
+
+  if (!SparkColumnBuilder.supportsDataType(_dataType)) {
+    throw new UnsupportedOperationException("Columnar output not supported for Spark Type: " + _dataType)
+  }
+
+  def this(vector: WritableColumnVector, capacity: Int) = this(vector, null, capacity)
+
+  /**
+   * Returns the number of values appended so far
+   */
+  def size: Int = _size
+
+  override def appendNull(): Unit = vector.putNull(nextRowId())
+
+  override def append(value: StdData): Unit = {
+    if (value == null) {
+      appendNull()
+    } else {
+      val row = nextRowId()
+      val underlyingData = value.asInstanceOf[PlatformData].getUnderlyingData
+      _dataType match {
+        case _: IntegerType => vector.putInt(row, underlyingData.asInstanceOf[Int])
+        case _: LongType => vector.putLong(row, underlyingData.asInstanceOf[Long])
+        case _: BooleanType => vector.putBoolean(row, underlyingData.asInstanceOf[Boolean])
+        case _: StringType => vector.putByteArray(row, underlyingData.asInstanceOf[UTF8String].getBytes)
+        case _: FloatType => vector.putFloat(row, underlyingData.asInstanceOf[Float])
+        case _: DoubleType => vector.putDouble(row, underlyingData.asInstanceOf[Double])
+        case _: BinaryType => vector.putByteArray(row, underlyingData.asInstanceOf[Array[Byte]])
+      }
+    }
+  }
+
+  override def appendInteger(value: Int): Unit = vector.putInt(nextRowId(), value)
+
+  override def appendLong(value: Long): Unit = vector.putLong(nextRowId(), value)
+
+  override def appendDouble(value: Double): Unit = vector.putDouble(nextRowId(), value)
+
+  override def appendBoolean(value: Boolean): Unit = vector.putBoolean(nextRowId(), value)
+
+  private def nextRowId(): Int = {
+    if (_size == capacity) {
+      throw new IllegalStateException("Cannot append more than " + capacity + " values")
+    }
+    val row = if (rowIds == null) _size else rowIds(_size)
+    _size += 1
+    row
+  }
+}
+
+object SparkColumnBuilder {
+
+  /**
+   * Returns true if values of the given type can be appended to a [[SparkColumnBuilder]]
+   */
+  def supportsDataType(dataType: DataType): Boolean = dataType match {
+    case _: IntegerType | _: LongType | _: BooleanType | _: StringType | _: FloatType | _: DoubleType | _: BinaryType =>
+      true
+    case _ => false
+  }
+}
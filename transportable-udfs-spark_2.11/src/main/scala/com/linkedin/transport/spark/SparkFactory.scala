@@ -14,13 +14,15 @@ import com.linkedin.transport.api.data._
 import com.linkedin.transport.api.types.StdType
 import com.linkedin.transport.spark.data._
 import com.linkedin.transport.spark.typesystem.SparkTypeFactory
-import com.linkedin.transport.typesystem.{AbstractBoundVariables, TypeSignature}
+import com.linkedin.transport.typesystem.{AbstractBoundVariables, StdTypeCache, TypeSignature}
 import org.apache.spark.sql.types._
 import org.apache.spark.unsafe.types.UTF8String
 
 class SparkFactory(private val _boundVariables: AbstractBoundVariables[DataType]) extends StdFactory {
 
   private val _sparkTypeFactory: SparkTypeFactory = new SparkTypeFactory
+  private val _stdTypeCache: StdTypeCache = new StdTypeCache
+  private var _lastStructType: StructType = _
 
   override def createInteger(value: Int): StdInteger = SparkInteger(value)
 
@@ -60,6 +62,26 @@ class SparkFactory(private val _boundVariables: AbstractBoundVariables[DataType]
   }
 
   override def createStruct(fieldNames: JavaList[String], fieldTypes: JavaList[StdType]): StdStruct = {
+    // UDFs usually create structs with the same fields for every row. Reusing the StructType in that case also reuses the
+    // name to index table it builds for field lookups by name. Fields are compared by value, since a UDF may refill the
+    // same lists with different fields between calls
+    if (_lastStructType == null || !hasFields(_lastStructType, fieldNames, fieldTypes)) {
+      _lastStructType = createStructType(fieldNames, fieldTypes)
+    }
+    SparkStruct(null, _lastStructType)
+  }
+
+  private def hasFields(structType: StructType, fieldNames: JavaList[String], fieldTypes: JavaList[StdType]): Boolean = {
+    val fields = structType.fields
+    if (fields.length != fieldTypes.size() || (fieldNames != null && fieldNames.size() != fieldTypes.size())) {
+      return false
+    }
+    (0 until fields.length).forall(idx =>
+      fields(idx).name == (if (fieldNames == null) "field" + idx else fieldNames.get(idx))
+        && fields(idx).dataType == fieldTypes.get(idx).underlyingType())
+  }
+
+  private def createStructType(fieldNames: JavaList[String], fieldTypes: JavaList[StdType]): StructType = {
     val structFields = new Array[StructField](fieldTypes.size())
     (0 until fieldTypes.size()).foreach({
       idx => {
@@ -69,7 +91,7 @@ class SparkFactory(private val _boundVariables: AbstractBoundVariables[DataType]
         )
       }
     })
-    SparkStruct(null, StructType(structFields))
+    StructType(structFields)
   }
 
   override def createStruct(stdType: StdType): StdStruct = {
@@ -78,7 +100,11 @@ class SparkFactory(private val _boundVariables: AbstractBoundVariables[DataType]
     SparkStruct(null, structType)
   }
 
-  override def createStdType(typeSignature: String): StdType = SparkWrapper.createStdType(
-    _sparkTypeFactory.createType(TypeSignature.parse(typeSignature), _boundVariables))
+  override def createStdType(typeSignature: String): StdType = {
+    _stdTypeCache.get(typeSignature, new java.util.function.Function[String, StdType] {
+      override def apply(s: String): StdType =
+        SparkWrapper.createStdType(_sparkTypeFactory.createType(TypeSignature.parse(s), _boundVariables))
+    })
+  }
 
 }
@@ -39,6 +39,26 @@ object SparkWrapper {
     }
   }
 
+  /**
+   * Creates a [[StdData]] of the given type without any underlying data. The data is bound later through
+   * [[com.linkedin.transport.api.data.PlatformData.setUnderlyingData]], which allows the same instance to be reused
+   * for many values.
+   */
+  def createEmptyStdData(dataType: DataType): StdData = dataType match { // scalastyle:ignore cyclomatic.complexity
+    case _: IntegerType => SparkInteger(null)
+    case _: LongType => SparkLong(null)
+    case _: BooleanType => SparkBoolean(null)
+    case _: StringType => SparkString(null)
+    case _: FloatType => SparkFloat(null)
+    case _: DoubleType => SparkDouble(null)
+    case _: BinaryType => SparkBinary(null)
+    case _: ArrayType => SparkArray(null, dataType.asInstanceOf[ArrayType])
+    case _: MapType => SparkMap(null, dataType.asInstanceOf[MapType])
+    case _: StructType => SparkStruct(null, dataType.asInstanceOf[StructType])
+    case _: NullType => null
+    case _ => throw new UnsupportedOperationException("Unrecognized Spark Type: " + dataType.getClass)
+  }
+
   def createStdType(dataType: DataType): StdType = dataType match {
     case _: IntegerType => SparkIntegerType(dataType.asInstanceOf[IntegerType])
     case _: LongType => SparkLongType(dataType.asInstanceOf[LongType])
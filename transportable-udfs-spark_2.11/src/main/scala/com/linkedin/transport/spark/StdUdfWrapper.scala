@@ -6,6 +6,8 @@
 package com.linkedin.transport.spark
 
 import java.io.{IOException, ObjectStreamException}
+import java.lang.invoke.MethodHandles
+import java.lang.reflect.{Method, Modifier}
 import java.nio.file.Paths
 import java.util.List
 
@@ -18,16 +20,19 @@ import org.apache.spark.SparkFiles
 import org.apache.spark.sql.SparkSession
 import org.apache.spark.sql.catalyst.InternalRow
 import org.apache.spark.sql.catalyst.expressions.Expression
-import org.apache.spark.sql.catalyst.expressions.codegen.CodegenFallback
+import org.apache.spark.sql.catalyst.expressions.codegen.{CodegenContext, ExprCode}
 import org.apache.spark.sql.types.DataType
 
-abstract class StdUdfWrapper(_expressions: Seq[Expression]) extends Expression
-  with CodegenFallback with Serializable {
+abstract class StdUdfWrapper(_expressions: Seq[Expression]) extends Expression with Serializable {
 
   @transient private var _stdFactory: StdFactory = _
   @transient private var _stdUdf: StdUDF = _
   @transient private var _requiredFilesProcessed: Boolean = false
   @transient private var _outputDataType: DataType = _
+  // Reusable StdData for each argument, rebound to the argument value of every row
+  @transient private var _argumentStdData: Array[StdData] = _
+  // Reusable array of the arguments passed to the StdUDF, holding either the argument's StdData or null
+  @transient private var _wrappedArguments: Array[StdData] = _
   private var _nullableArguments: Array[Boolean] = _
   private var _distributedCacheFiles: Array[String] = _
 
@@ -121,9 +126,7 @@ abstract class StdUdfWrapper(_expressions: Seq[Expression]) extends Expression
     wrappedConstants
   }
 
-  // Suppressing magic number warming since the number match is required to cast it into the corresponding StdUDF
-  // scalastyle:off magic.number
-  override def eval(input: InternalRow): Any = { // scalastyle:ignore cyclomatic.complexity
+  override def eval(input: InternalRow): Any = {
     val wrappedArguments = checkNullsAndWrapArguments(input)
     // If wrappedArguments is null, it means there were non-nullable arguments whose value was evaluated to be null
     // So we do not call user's eval()
@@ -133,56 +136,168 @@ abstract class StdUdfWrapper(_expressions: Seq[Expression]) extends Expression
       if (!_requiredFilesProcessed) {
         processRequiredFiles()
       }
-      val stdResult = wrappedArguments.length match {
-        case 0 =>
-          _stdUdf.asInstanceOf[StdUDF0[StdData]].eval()
-        case 1 =>
-          _stdUdf.asInstanceOf[StdUDF1[StdData, StdData]].eval(wrappedArguments(0))
-        case 2 =>
-          _stdUdf.asInstanceOf[StdUDF2[StdData, StdData, StdData]].eval(wrappedArguments(0), wrappedArguments(1))
-        case 3 =>
-          _stdUdf.asInstanceOf[StdUDF3[StdData, StdData, StdData, StdData]].eval(wrappedArguments(0), wrappedArguments(1),
-            wrappedArguments(2))
-        case 4 =>
-          _stdUdf.asInstanceOf[StdUDF4[StdData, StdData, StdData, StdData, StdData]].eval(wrappedArguments(0),
-            wrappedArguments(1), wrappedArguments(2), wrappedArguments(3))
-        case 5 =>
-          _stdUdf.asInstanceOf[StdUDF5[StdData, StdData, StdData, StdData, StdData, StdData]].eval(wrappedArguments(0),
-            wrappedArguments(1), wrappedArguments(2), wrappedArguments(3), wrappedArguments(4))
-        case 6 =>
-          _stdUdf.asInstanceOf[StdUDF6[StdData, StdData, StdData, StdData, StdData, StdData, StdData]].eval(wrappedArguments(0),
-            wrappedArguments(1), wrappedArguments(2), wrappedArguments(3), wrappedArguments(4), wrappedArguments(5))
-        case 7 =>
-          _stdUdf.asInstanceOf[StdUDF7[StdData, StdData, StdData, StdData, StdData, StdData, StdData, StdData]].eval(wrappedArguments(0),
-            wrappedArguments(1), wrappedArguments(2), wrappedArguments(3), wrappedArguments(4), wrappedArguments(5),
-            wrappedArguments(6))
-        case 8 =>
-          _stdUdf.asInstanceOf[StdUDF8[StdData, StdData, StdData, StdData, StdData, StdData, StdData, StdData, StdData]].eval(wrappedArguments(0),
-            wrappedArguments(1), wrappedArguments(2), wrappedArguments(3), wrappedArguments(4), wrappedArguments(5),
-            wrappedArguments(6), wrappedArguments(7))
-        case _ =>
-          throw new UnsupportedOperationException("eval not yet supported for StdUDF" + _expressions.length)
-      }
+      evalStdUdf(wrappedArguments)
+    }
+  }
+
+  /**
+   * Evaluates the [[StdUDF]] on arguments evaluated by the code generated in [[doGenCode]]. Null checks of
+   * non-nullable arguments are already part of the generated code.
+   */
+  final def evalGenerated(arguments: Array[AnyRef]): Any = {
+    if (_wrappedArguments == null) {
+      createWrappedArguments()
+    }
+    var i = 0
+    while (i < arguments.length) {
+      wrapArgument(i, arguments(i))
+      i += 1
+    }
+    if (!_requiredFilesProcessed) {
+      processRequiredFiles()
+    }
+    evalStdUdf(_wrappedArguments)
+  }
 
-      if (stdResult == null) null else stdResult.asInstanceOf[PlatformData].getUnderlyingData
+  // Suppressing magic number warming since the number match is required to cast it into the corresponding StdUDF
+  // scalastyle:off magic.number
+  private final def evalStdUdf(wrappedArguments: Array[StdData]): Any = { // scalastyle:ignore cyclomatic.complexity
+    val stdResult = wrappedArguments.length match {
+      case 0 =>
+        _stdUdf.asInstanceOf[StdUDF0[StdData]].eval()
+      case 1 =>
+        _stdUdf.asInstanceOf[StdUDF1[StdData, StdData]].eval(wrappedArguments(0))
+      case 2 =>
+        _stdUdf.asInstanceOf[StdUDF2[StdData, StdData, StdData]].eval(wrappedArguments(0), wrappedArguments(1))
+      case 3 =>
+        _stdUdf.asInstanceOf[StdUDF3[StdData, StdData, StdData, StdData]].eval(wrappedArguments(0), wrappedArguments(1),
+          wrappedArguments(2))
+      case 4 =>
+        _stdUdf.asInstanceOf[StdUDF4[StdData, StdData, StdData, StdData, StdData]].eval(wrappedArguments(0),
+          wrappedArguments(1), wrappedArguments(2), wrappedArguments(3))
+      case 5 =>
+        _stdUdf.asInstanceOf[StdUDF5[StdData, StdData, StdData, StdData, StdData, StdData]].eval(wrappedArguments(0),
+          wrappedArguments(1), wrappedArguments(2), wrappedArguments(3), wrappedArguments(4))
+      case 6 =>
+        _stdUdf.asInstanceOf[StdUDF6[StdData, StdData, StdData, StdData, StdData, StdData, StdData]].eval(wrappedArguments(0),
+          wrappedArguments(1), wrappedArguments(2), wrappedArguments(3), wrappedArguments(4), wrappedArguments(5))
+      case 7 =>
+        _stdUdf.asInstanceOf[StdUDF7[StdData, StdData, StdData, StdData, StdData, StdData, StdData, StdData]].eval(wrappedArguments(0),
+          wrappedArguments(1), wrappedArguments(2), wrappedArguments(3), wrappedArguments(4), wrappedArguments(5),
+          wrappedArguments(6))
+      case 8 =>
+        _stdUdf.asInstanceOf[StdUDF8[StdData, StdData, StdData, StdData, StdData, StdData, StdData, StdData, StdData]].eval(wrappedArguments(0),
+          wrappedArguments(1), wrappedArguments(2), wrappedArguments(3), wrappedArguments(4), wrappedArguments(5),
+          wrappedArguments(6), wrappedArguments(7))
+      case _ =>
+        throw new UnsupportedOperationException("eval not yet supported for StdUDF" + _expressions.length)
     }
+
+    if (stdResult == null) null else stdResult.asInstanceOf[PlatformData].getUnderlyingData
   } // scalastyle:on magic.number
 
 
+  /**
+   * Generates Java code which evaluates the children inline and skips calling the [[StdUDF]] if any non-nullable
+   * argument is null. The primitive eval method of a [[StdPrimitiveUDF]] is called directly on the unboxed values of
+   * its arguments when the generated code can access it. All other UDFs are called through [[evalGenerated]] with the
+   * argument values collected into an array which is reused across rows.
+   */
+  override protected def doGenCode(ctx: CodegenContext, ev: ExprCode): ExprCode = {
+    // Make sure the StdUDF has been initialized before inspecting it
+    val outputDataType = dataType
+    val stdUdfWrapper = ctx.addReferenceObj("stdUdfWrapper", this, classOf[StdUdfWrapper].getName)
+    val childrenCode = _expressions.map(_.genCode(ctx))
+    val nonNullableArgumentIsNull = _expressions.indices.filter(i => !_nullableArguments(i))
+      .map(i => s"${childrenCode(i).isNull}") match {
+      case Seq() => "false"
+      case nullChecks => nullChecks.mkString(" || ")
+    }
+    val evalCode = _stdUdf match {
+      case udf: StdPrimitiveUDF if StdUdfWrapper.isAccessibleFromGeneratedCode(udf) =>
+        val udfClassName = udf.getClass.getCanonicalName
+        val stdUdf = ctx.addMutableState(udfClassName, "stdUdf",
+          v => s"$v = ($udfClassName) $stdUdfWrapper.getStdUdf();")
+        s"""
+           |$stdUdfWrapper.processRequiredFiles();
+           |${ev.value} = $stdUdf.eval(${childrenCode.map(c => s"${c.value}").mkString(", ")});
+         """.stripMargin
+      case _ =>
+        val arguments = ctx.addMutableState("Object[]", "stdUdfArguments",
+          v => s"$v = new Object[${_expressions.length}];")
+        val setArguments = childrenCode.zipWithIndex.map { case (c, i) =>
+          s"""
+             |if (${c.isNull}) {
+             |  $arguments[$i] = null;
+             |} else {
+             |  $arguments[$i] = ${c.value};
+             |}
+           """.stripMargin
+        }
+        val result = ctx.freshName("result")
+        s"""
+           |${setArguments.mkString("\n")}
+           |Object $result = $stdUdfWrapper.evalGenerated($arguments);
+           |if ($result == null) {
+           |  ${ev.isNull} = true;
+           |} else {
+           |  ${ev.value} = (${SparkCodegenUtils.boxedType(ctx, outputDataType)}) $result;
+           |}
+         """.stripMargin
+    }
+    SparkCodegenUtils.withCode(ev,
+      s"""
+         |${childrenCode.map(c => s"${c.code}").mkString("\n")}
+         |boolean ${ev.isNull} = $nonNullableArgumentIsNull;
+         |${SparkCodegenUtils.javaType(ctx, outputDataType)} ${ev.value} =
+         |  ${SparkCodegenUtils.defaultValue(ctx, outputDataType)};
+         |if (!${ev.isNull}) {
+         |  $evalCode
+         |}
+       """.stripMargin)
+  }
+
   private final def checkNullsAndWrapArguments(input: InternalRow): Array[StdData] = {
-    val wrappedArguments = new Array[StdData](_expressions.length)
-    for (i <- _expressions.indices) {
+    if (_wrappedArguments == null) {
+      createWrappedArguments()
+    }
+    var i = 0
+    while (i < _wrappedArguments.length) {
       val evaluatedExpression = _expressions(i).eval(input)
       if(!_nullableArguments(i) && evaluatedExpression == null) {
         // argument is defined as non nullable and value is null, so return early
         return null // scalastyle:ignore return
       }
-      wrappedArguments(i) = SparkWrapper.createStdData(evaluatedExpression, _expressions(i).dataType)
+      wrapArgument(i, evaluatedExpression)
+      i += 1
+    }
+    _wrappedArguments
+  }
+
+  // Created lazily rather than copied in makeCopy, so that copies of this expression never share them
+  private final def createWrappedArguments(): Unit = {
+    _argumentStdData = _expressions.map(expression => SparkWrapper.createEmptyStdData(expression.dataType)).toArray
+    _wrappedArguments = new Array[StdData](_expressions.length)
+  }
+
+  private final def wrapArgument(i: Int, value: Any): Unit = {
+    if (value == null) {
+      _wrappedArguments(i) = null
+    } else {
+      _argumentStdData(i).asInstanceOf[PlatformData].setUnderlyingData(value)
+      _wrappedArguments(i) = _argumentStdData(i)
     }
-    wrappedArguments
   }
 
-  private final def processRequiredFiles(): Unit = {
+  /**
+   * Called by the generated code, so it is public
+   */
+  final def getStdUdf: StdUDF = _stdUdf
+
+  /**
+   * Processes the required files if that has not been done yet. Called by the generated code, so it is public
+   */
+  final def processRequiredFiles(): Unit = {
     if (!_requiredFilesProcessed) {
       val localFiles = _distributedCacheFiles.map(file => {
         try {
@@ -197,6 +312,28 @@ abstract class StdUdfWrapper(_expressions: Seq[Expression]) extends Expression
     }
   }
 
+  /**
+   * Returns true if the [[StdUDF]] is a [[StdBatchUDF]] whose output type can be written to Spark column vectors, so
+   * that it can be evaluated through [[createBatchEvaluator]]
+   */
+  final def supportsBatchEvaluation: Boolean = {
+    // Make sure the StdUDF has been initialized before inspecting it
+    val outputDataType = dataType
+    _stdUdf.isInstanceOf[StdBatchUDF] && SparkColumnBuilder.supportsDataType(outputDataType)
+  }
+
+  /**
+   * Creates a [[SparkBatchEvaluator]] evaluating the [[StdBatchUDF]] over Spark column vectors holding the values of
+   * the children of this expression
+   */
+  final def createBatchEvaluator(): SparkBatchEvaluator = {
+    if (!supportsBatchEvaluation) {
+      throw new UnsupportedOperationException(
+        "Batch evaluation not supported for " + _stdUdf.getClass.getName + " with output type " + dataType)
+    }
+    new SparkBatchEvaluator(_stdUdf.asInstanceOf[StdBatchUDF], _nullableArguments, () => processRequiredFiles())
+  }
+
   protected def getStdUdfImplementations: List[_ <: StdUDF]
 
   protected def getTopLevelUdfClass: Class[_ <: TopLevelStdUDF]
@@ -214,9 +351,28 @@ abstract class StdUdfWrapper(_expressions: Seq[Expression]) extends Expression
     newInstance
   }
 
+  // Not private, so that Java serialization also calls it when deserializing instances of the concrete wrappers. This
+  // initializes the StdUDF before the generated code, which is initialized on the executors, looks it up
   @throws(classOf[ObjectStreamException])
-  private def readResolve(): Object = {
+  protected def readResolve(): Object = {
     initialize()
     this
   }
 }
+
+object StdUdfWrapper {
+
+  /**
+   * Returns true if the class of the [[StdPrimitiveUDF]] and its primitive eval method are public, so that the
+   * generated code, which lives in another package, can call that method directly
+   */
+  private def isAccessibleFromGeneratedCode(stdUdf: StdPrimitiveUDF): Boolean = {
+    val evalMethod = MethodHandles.reflectAs(classOf[Method], stdUdf.getPrimitiveEval)
+    isPublic(stdUdf.getClass) && isPublic(evalMethod.getDeclaringClass)
+  }
+
+  private def isPublic(cls: Class[_]): Boolean = {
+    cls == null || (Modifier.isPublic(cls.getModifiers) && !cls.isAnonymousClass && !cls.isLocalClass
+      && isPublic(cls.getEnclosingClass))
+  }
+}
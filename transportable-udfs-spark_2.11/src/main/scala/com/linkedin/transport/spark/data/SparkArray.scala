@@ -12,48 +12,42 @@ import com.linkedin.transport.spark.SparkWrapper
 import org.apache.spark.sql.catalyst.util.ArrayData
 import org.apache.spark.sql.types.{ArrayType, DataType}
 
-import scala.collection.mutable.ArrayBuffer
-
 case class SparkArray(private var _arrayData: ArrayData,
                       private val _arrayType: DataType) extends StdArray with PlatformData {
 
   private val _elementType = _arrayType.asInstanceOf[ArrayType].elementType
-  private var _mutableBuffer: ArrayBuffer[Any] = if (_arrayData == null) createMutableArray() else null
+  private var _arrayBuilder: SparkArrayBuilder = if (_arrayData == null) createArrayBuilder() else null
 
   override def add(e: StdData): Unit = {
     // Once add is called, we cannot use  Spark's readonly ArrayData API
-    // we have to add elements to a mutable buffer and start using that
+    // we have to add elements to a mutable builder and start using that
     // always instead of the readonly stdType
-    if (_mutableBuffer == null) {
+    if (_arrayBuilder == null) {
       // from now on mutable is in affect
-      _mutableBuffer = createMutableArray()
+      _arrayBuilder = createArrayBuilder()
     }
-    // TODO: Does not support inserting nulls. Should we?
-    _mutableBuffer.append(e.asInstanceOf[PlatformData].getUnderlyingData)
+    _arrayBuilder.add(e)
   }
 
-  private def createMutableArray(): ArrayBuffer[Any] = {
-    var arrayBuffer: ArrayBuffer[Any] = null
-    if (_arrayData == null) {
-      arrayBuffer = new ArrayBuffer[Any]()
-    } else {
-      arrayBuffer = new ArrayBuffer[Any](_arrayData.numElements())
-      _arrayData.foreach(_elementType, (i, e) => arrayBuffer.append(e))
+  private def createArrayBuilder(): SparkArrayBuilder = {
+    val arrayBuilder = SparkArrayBuilder.create(_elementType)
+    if (_arrayData != null) {
+      arrayBuilder.addAll(_arrayData)
     }
-    arrayBuffer
+    arrayBuilder
   }
 
   override def getUnderlyingData: AnyRef = {
-    if (_mutableBuffer == null) {
+    if (_arrayBuilder == null) {
       _arrayData
     } else {
-      ArrayData.toArrayData(_mutableBuffer)
+      _arrayBuilder.build()
     }
   }
 
   override def setUnderlyingData(value: scala.Any): Unit = {
     _arrayData = value.asInstanceOf[ArrayData]
-    _mutableBuffer = null
+    _arrayBuilder = null
   }
 
   override def iterator(): util.Iterator[StdData] = {
@@ -71,18 +65,18 @@ case class SparkArray(private var _arrayData: ArrayData,
   }
 
   override def size(): Int = {
-    if (_mutableBuffer != null) {
-      _mutableBuffer.size
+    if (_arrayBuilder != null) {
+      _arrayBuilder.size
     } else {
       _arrayData.numElements()
     }
   }
 
   override def get(idx: Int): StdData = {
-    if (_mutableBuffer == null) {
+    if (_arrayBuilder == null) {
       SparkWrapper.createStdData(_arrayData.get(idx, _elementType), _elementType)
     } else {
-      SparkWrapper.createStdData(_mutableBuffer(idx), _elementType)
+      SparkWrapper.createStdData(_arrayBuilder.get(idx), _elementType)
     }
   }
 }
@@ -0,0 +1,249 @@
+/**
+ * Copyright 2021 LinkedIn Corporation. All rights reserved.
+ * Licensed under the BSD-2 Clause license.
+ * See LICENSE in the project root for license information.
+ */
+package com.linkedin.transport.spark.data
+
+import java.util
+
+import com.linkedin.transport.api.data._
+import org.apache.spark.sql.catalyst.expressions.UnsafeArrayData
+import org.apache.spark.sql.catalyst.util.ArrayData
+import org.apache.spark.sql.types._
+
+import scala.collection.mutable.ArrayBuffer
+
+/**
+ * Holds the elements of a [[SparkArray]] once it has been mutated, and builds the resulting Spark [[ArrayData]]
+ */
+private[data] abstract class SparkArrayBuilder {
+
+  def size: Int
+
+  def add(element: StdData): Unit
+
+  /**
+   * Appends all elements of the given array data, which has the same element type as this builder
+   */
+  def addAll(arrayData: ArrayData): Unit
+
+  /**
+   * Returns the element at the given index in Spark's representation, or null
+   */
+  def get(idx: Int): Any
+
+  def build(): ArrayData
+}
+
+private[data] object SparkArrayBuilder {
+
+  private val InitialCapacity = 8
+
+  def create(elementType: DataType): SparkArrayBuilder = elementType match {
+    case _: IntegerType => new IntArrayBuilder
+    case _: LongType => new LongArrayBuilder
+    case _: DoubleType => new DoubleArrayBuilder
+    case _: FloatType => new FloatArrayBuilder
+    case _: BooleanType => new BooleanArrayBuilder
+    case _ => new GenericArrayBuilder(elementType)
+  }
+
+  /**
+   * Stores the elements in an array of the primitive element type, so that they are never boxed, and builds an
+   * [[UnsafeArrayData]] from it
+   */
+  private abstract class PrimitiveArrayBuilder extends SparkArrayBuilder {
+
+    private var _size = 0
+    // Allocated on the first null element
+    private var _nulls: util.BitSet = _
+
+    protected def capacity: Int
+
+    protected def grow(newCapacity: Int): Unit
+
+    protected def set(idx: Int, element: StdData): Unit
+
+    protected def set(idx: Int, arrayData: ArrayData, ordinal: Int): Unit
+
+    protected def getValue(idx: Int): Any
+
+    /**
+     * Creates an [[UnsafeArrayData]] holding the first size values
+     */
+    protected def createUnsafeArrayData(size: Int): UnsafeArrayData
+
+    override def size: Int = _size
+
+    override def add(element: StdData): Unit = {
+      ensureCapacity(_size + 1)
+      if (element == null) {
+        setNull(_size)
+      } else {
+        set(_size, element)
+      }
+      _size += 1
+    }
+
+    override def addAll(arrayData: ArrayData): Unit = {
+      ensureCapacity(_size + arrayData.numElements())
+      var i = 0
+      while (i < arrayData.numElements()) {
+        if (arrayData.isNullAt(i)) {
+          setNull(_size)
+        } else {
+          set(_size, arrayData, i)
+        }
+        _size += 1
+        i += 1
+      }
+    }
+
+    override def get(idx: Int): Any = {
+      if (idx >= _size) {
+        throw new IndexOutOfBoundsException("Index: " + idx + ", Size: " + _size)
+      }
+      if (_nulls != null && _nulls.get(idx)) null else getValue(idx)
+    }
+
+    override def build(): ArrayData = {
+      val unsafeArrayData = createUnsafeArrayData(_size)
+      if (_nulls != null) {
+        var i = _nulls.nextSetBit(0)
+        while (i >= 0) {
+          unsafeArrayData.setNullAt(i)
+          i = _nulls.nextSetBit(i + 1)
+        }
+      }
+      unsafeArrayData
+    }
+
+    private def setNull(idx: Int): Unit = {
+      if (_nulls == null) {
+        _nulls = new util.BitSet()
+      }
+      _nulls.set(idx)
+    }
+
+    private def ensureCapacity(minCapacity: Int): Unit = {
+      if (minCapacity > capacity) {
+        grow(math.max(minCapacity, capacity * 2))
+      }
+    }
+  }
+
+  private class IntArrayBuilder extends PrimitiveArrayBuilder {
+
+    private var _values = new Array[Int](InitialCapacity)
+
+    override protected def capacity: Int = _values.length
+
+    override protected def grow(newCapacity: Int): Unit = _values = util.Arrays.copyOf(_values, newCapacity)
+
+    override protected def set(idx: Int, element: StdData): Unit = _values(idx) = element.asInstanceOf[StdInteger].get()
+
+    override protected def set(idx: Int, arrayData: ArrayData, ordinal: Int): Unit = _values(idx) = arrayData.getInt(ordinal)
+
+    override protected def getValue(idx: Int): Any = _values(idx)
+
+    override protected def createUnsafeArrayData(size: Int): UnsafeArrayData =
+      UnsafeArrayData.fromPrimitiveArray(if (size == _values.length) _values else util.Arrays.copyOf(_values, size))
+  }
+
+  private class LongArrayBuilder extends PrimitiveArrayBuilder {
+
+    private var _values = new Array[Long](InitialCapacity)
+
+    override protected def capacity: Int = _values.length
+
+    override protected def grow(newCapacity: Int): Unit = _values = util.Arrays.copyOf(_values, newCapacity)
+
+    override protected def set(idx: Int, element: StdData): Unit = _values(idx) = element.asInstanceOf[StdLong].get()
+
+    override protected def set(idx: Int, arrayData: ArrayData, ordinal: Int): Unit = _values(idx) = arrayData.getLong(ordinal)
+
+    override protected def getValue(idx: Int): Any = _values(idx)
+
+    override protected def createUnsafeArrayData(size: Int): UnsafeArrayData =
+      UnsafeArrayData.fromPrimitiveArray(if (size == _values.length) _values else util.Arrays.copyOf(_values, size))
+  }
+
+  private class DoubleArrayBuilder extends PrimitiveArrayBuilder {
+
+    private var _values = new Array[Double](InitialCapacity)
+
+    override protected def capacity: Int = _values.length
+
+    override protected def grow(newCapacity: Int): Unit = _values = util.Arrays.copyOf(_values, newCapacity)
+
+    override protected def set(idx: Int, element: StdData): Unit = _values(idx) = element.asInstanceOf[StdDouble].get()
+
+    override protected def set(idx: Int, arrayData: ArrayData, ordinal: Int): Unit =
+      _values(idx) = arrayData.getDouble(ordinal)
+
+    override protected def getValue(idx: Int): Any = _values(idx)
+
+    override protected def createUnsafeArrayData(size: Int): UnsafeArrayData =
+      UnsafeArrayData.fromPrimitiveArray(if (size == _values.length) _values else util.Arrays.copyOf(_values, size))
+  }
+
+  private class FloatArrayBuilder extends PrimitiveArrayBuilder {
+
+    private var _values = new Array[Float](InitialCapacity)
+
+    override protected def capacity: Int = _values.length
+
+    override protected def grow(newCapacity: Int): Unit = _values = util.Arrays.copyOf(_values, newCapacity)
+
+    override protected def set(idx: Int, element: StdData): Unit = _values(idx) = element.asInstanceOf[StdFloat].get()
+
+    override protected def set(idx: Int, arrayData: ArrayData, ordinal: Int): Unit = _values(idx) = arrayData.getFloat(ordinal)
+
+    override protected def getValue(idx: Int): Any = _values(idx)
+
+    override protected def createUnsafeArrayData(size: Int): UnsafeArrayData =
+      UnsafeArrayData.fromPrimitiveArray(if (size == _values.length) _values else util.Arrays.copyOf(_values, size))
+  }
+
+  private class BooleanArrayBuilder extends PrimitiveArrayBuilder {
+
+    private var _values = new Array[Boolean](InitialCapacity)
+
+    override protected def capacity: Int = _values.length
+
+    override protected def grow(newCapacity: Int): Unit = _values = util.Arrays.copyOf(_values, newCapacity)
+
+    override protected def set(idx: Int, element: StdData): Unit = _values(idx) = element.asInstanceOf[StdBoolean].get()
+
+    override protected def set(idx: Int, arrayData: ArrayData, ordinal: Int): Unit =
+      _values(idx) = arrayData.getBoolean(ordinal)
+
+    override protected def getValue(idx: Int): Any = _values(idx)
+
+    override protected def createUnsafeArrayData(size: Int): UnsafeArrayData =
+      UnsafeArrayData.fromPrimitiveArray(if (size == _values.length) _values else util.Arrays.copyOf(_values, size))
+  }
+
+  /**
+   * Stores the elements of non-primitive types, e.g. strings and nested types, in an [[ArrayBuffer]]
+   */
+  private class GenericArrayBuilder(elementType: DataType) extends SparkArrayBuilder {
+
+    private val _buffer = new ArrayBuffer[Any]()
+
+    override def size: Int = _buffer.size
+
+    override def add(element: StdData): Unit =
+      _buffer.append(if (element == null) null else element.asInstanceOf[PlatformData].getUnderlyingData)
+
+    override def addAll(arrayData: ArrayData): Unit = {
+      _buffer.sizeHint(_buffer.size + arrayData.numElements())
+      arrayData.foreach(elementType, (_, e) => _buffer.append(e))
+    }
+
+    override def get(idx: Int): Any = _buffer(idx)
+
+    override def build(): ArrayData = ArrayData.toArrayData(_buffer)
+  }
+}
@@ -15,5 +15,5 @@ case class SparkBinary(private var _bytes: Array[Byte]) extends StdBinary with P
 
   override def getUnderlyingData: AnyRef = _bytes
 
-  override def setUnderlyingData(value: scala.Any): Unit = _bytes = value.asInstanceOf[ByteBuffer].array()
+  override def setUnderlyingData(value: scala.Any): Unit = _bytes = value.asInstanceOf[Array[Byte]]
 }
@@ -9,8 +9,12 @@ import java.util
 
 import com.linkedin.transport.api.data.{PlatformData, StdData, StdMap}
 import com.linkedin.transport.spark.SparkWrapper
-import org.apache.spark.sql.catalyst.util.{ArrayBasedMapData, MapData}
-import org.apache.spark.sql.types.MapType
+import org.apache.spark.sql.catalyst.InternalRow
+import org.apache.spark.sql.catalyst.expressions.{Murmur3HashFunction, RowOrdering}
+import org.apache.spark.sql.catalyst.util.{ArrayBasedMapData, ArrayData, MapData, TypeUtils}
+import org.apache.spark.sql.types._
+import org.apache.spark.unsafe.hash.Murmur3_x86_32
+import org.apache.spark.unsafe.types.UTF8String
 
 import scala.collection.mutable.Map
 
@@ -21,6 +25,12 @@ case class SparkMap(private var _mapData: MapData,
   private val _keyType = _mapType.keyType
   private val _valueType = _mapType.valueType
   private var _mutableMap: Map[Any, Any] = if (_mapData == null) createMutableMap() else null
+  private val _keyOperations = SparkMap.createKeyOperations(_keyType)
+  // Open addressing index from the hashes of the keys of _mapData to their position plus one, zero marking empty slots.
+  // Only built once the same map data is looked up repeatedly, and reused for the next map data
+  private var _keyIndex: Array[Int] = _
+  private var _keyIndexBuilt = false
+  private var _lookupCount = 0
 
   override def put(key: StdData, value: StdData): Unit = {
     // TODO: Does not support inserting nulls. Should we?
@@ -100,15 +110,91 @@ case class SparkMap(private var _mapData: MapData,
     }
   }
 
-  override def containsKey(key: StdData): Boolean = get(key) != null
+  override def containsKey(key: StdData): Boolean = {
+    if (_mutableMap == null) {
+      findKey(key) >= 0
+    } else {
+      key != null && _mutableMap.contains(key.asInstanceOf[PlatformData].getUnderlyingData)
+    }
+  }
 
   override def get(key: StdData): StdData = {
-    // Spark's complex data types (MapData, ArrayData, InternalRow) do not implement equals/hashcode
-    // If the key is of the above complex data types, get() will return null
     if (_mutableMap == null) {
-      _mutableMap = createMutableMap()
+      val position = findKey(key)
+      if (position < 0) null else SparkWrapper.createStdData(_mapData.valueArray().get(position, _valueType), _valueType)
+    } else {
+      // Spark's complex data types (MapData, ArrayData, InternalRow) do not implement equals/hashcode
+      // If the key is of the above complex data types, get() will return null
+      SparkWrapper.createStdData(_mutableMap.get(key.asInstanceOf[PlatformData].getUnderlyingData).orNull, _valueType)
     }
-    SparkWrapper.createStdData(_mutableMap.get(key.asInstanceOf[PlatformData].getUnderlyingData).orNull, _valueType)
+  }
+
+  /**
+   * Returns the position of the given key in the key array of the read-only map data, or -1 if it is absent. Small
+   * maps and maps looked up only once are scanned, otherwise the keys are indexed on the first repeated lookup.
+   */
+  private def findKey(key: StdData): Int = {
+    if (key == null) {
+      -1
+    } else {
+      val keyData = key.asInstanceOf[PlatformData].getUnderlyingData
+      val keys = _mapData.keyArray()
+      if (!_keyOperations.accepts(keyData)) {
+        // Keys of another type are never found, like in a map of boxed keys
+        return -1 // scalastyle:ignore return
+      }
+      if (!_keyIndexBuilt) {
+        _lookupCount += 1
+      }
+      if (!_keyIndexBuilt
+        && (keys.numElements() <= SparkMap.MaxScannedMapSize || _lookupCount < SparkMap.IndexingLookupCount)) {
+        scanKeys(keys, keyData)
+      } else {
+        if (!_keyIndexBuilt) {
+          buildKeyIndex(keys)
+        }
+        probeKeyIndex(keys, keyData)
+      }
+    }
+  }
+
+  private def scanKeys(keys: ArrayData, key: Any): Int = {
+    var i = 0
+    while (i < keys.numElements() && !_keyOperations.equals(keys, i, key)) {
+      i += 1
+    }
+    if (i < keys.numElements()) i else -1
+  }
+
+  private def buildKeyIndex(keys: ArrayData): Unit = {
+    // At least twice as many slots as keys, rounded up to a power of two
+    val capacity = Integer.highestOneBit(keys.numElements() * 4 - 1)
+    if (_keyIndex == null || _keyIndex.length != capacity) {
+      _keyIndex = new Array[Int](capacity)
+    } else {
+      util.Arrays.fill(_keyIndex, 0)
+    }
+    val mask = capacity - 1
+    for (position <- 0 until keys.numElements()) {
+      var slot = _keyOperations.hash(keys, position) & mask
+      // If a key is duplicated, the first position is kept, like Spark's own map lookup does
+      while (_keyIndex(slot) != 0 && !_keyOperations.equals(keys, position, keys, _keyIndex(slot) - 1)) {
+        slot = (slot + 1) & mask
+      }
+      if (_keyIndex(slot) == 0) {
+        _keyIndex(slot) = position + 1
+      }
+    }
+    _keyIndexBuilt = true
+  }
+
+  private def probeKeyIndex(keys: ArrayData, key: Any): Int = {
+    val mask = _keyIndex.length - 1
+    var slot = _keyOperations.hash(key) & mask
+    while (_keyIndex(slot) != 0 && !_keyOperations.equals(keys, _keyIndex(slot) - 1, key)) {
+      slot = (slot + 1) & mask
+    }
+    _keyIndex(slot) - 1
   }
 
   private def createMutableMap(): Map[Any, Any] = {
@@ -130,5 +216,104 @@ case class SparkMap(private var _mapData: MapData,
   override def setUnderlyingData(value: scala.Any): Unit = {
     _mapData = value.asInstanceOf[MapData]
     _mutableMap = null
+    _keyIndexBuilt = false
+    _lookupCount = 0
+  }
+}
+
+object SparkMap {
+
+  // Maps of up to this size are always looked up by scanning their keys
+  private val MaxScannedMapSize = 8
+  // The keys of larger maps are indexed when they are looked up this many times
+  private val IndexingLookupCount = 2
+  private val HashSeed = 42
+
+  /**
+   * Hashing and comparison of map keys, read from Spark's key [[ArrayData]] without boxing them where the key type
+   * allows it. Complex keys are compared structurally, since Spark's complex data types do not implement equals.
+   * Probe keys are only hashed and compared once [[accepts]] returned true for them.
+   */
+  private abstract class KeyOperations(keyClass: Class[_]) {
+    final def accepts(key: Any): Boolean = keyClass.isInstance(key)
+
+    def hash(keys: ArrayData, position: Int): Int
+
+    def hash(key: Any): Int
+
+    def equals(keys: ArrayData, position: Int, key: Any): Boolean
+
+    def equals(keys: ArrayData, position: Int, otherKeys: ArrayData, otherPosition: Int): Boolean
+  }
+
+  private def createKeyOperations(keyType: DataType): KeyOperations = keyType match {
+    case _: IntegerType => new KeyOperations(classOf[java.lang.Integer]) {
+      override def hash(keys: ArrayData, position: Int): Int = hashInt(keys.getInt(position))
+      override def hash(key: Any): Int = hashInt(key.asInstanceOf[Int])
+      override def equals(keys: ArrayData, position: Int, key: Any): Boolean =
+        keys.getInt(position) == key.asInstanceOf[Int]
+      override def equals(keys: ArrayData, position: Int, otherKeys: ArrayData, otherPosition: Int): Boolean =
+        keys.getInt(position) == otherKeys.getInt(otherPosition)
+    }
+    case _: LongType => new KeyOperations(classOf[java.lang.Long]) {
+      override def hash(keys: ArrayData, position: Int): Int = hashLong(keys.getLong(position))
+      override def hash(key: Any): Int = hashLong(key.asInstanceOf[Long])
+      override def equals(keys: ArrayData, position: Int, key: Any): Boolean =
+        keys.getLong(position) == key.asInstanceOf[Long]
+      override def equals(keys: ArrayData, position: Int, otherKeys: ArrayData, otherPosition: Int): Boolean =
+        keys.getLong(position) == otherKeys.getLong(otherPosition)
+    }
+    case _: StringType => new KeyOperations(classOf[UTF8String]) {
+      override def hash(keys: ArrayData, position: Int): Int = keys.getUTF8String(position).hashCode()
+      override def hash(key: Any): Int = key.hashCode()
+      override def equals(keys: ArrayData, position: Int, key: Any): Boolean =
+        keys.getUTF8String(position).equals(key.asInstanceOf[UTF8String])
+      override def equals(keys: ArrayData, position: Int, otherKeys: ArrayData, otherPosition: Int): Boolean =
+        keys.getUTF8String(position).equals(otherKeys.getUTF8String(otherPosition))
+    }
+    case _: BinaryType => new KeyOperations(classOf[Array[Byte]]) {
+      override def hash(keys: ArrayData, position: Int): Int = util.Arrays.hashCode(keys.getBinary(position))
+      override def hash(key: Any): Int = util.Arrays.hashCode(key.asInstanceOf[Array[Byte]])
+      override def equals(keys: ArrayData, position: Int, key: Any): Boolean =
+        util.Arrays.equals(keys.getBinary(position), key.asInstanceOf[Array[Byte]])
+      override def equals(keys: ArrayData, position: Int, otherKeys: ArrayData, otherPosition: Int): Boolean =
+        util.Arrays.equals(keys.getBinary(position), otherKeys.getBinary(otherPosition))
+    }
+    case _ => new KeyOperations(keyClass(keyType)) {
+      // Booleans, floats and doubles compare like their boxed values do. Complex keys are compared by Spark's ordering
+      private val _ordering: Ordering[Any] = keyType match {
+        case _: BooleanType | _: FloatType | _: DoubleType => null
+        case _ if RowOrdering.isOrderable(keyType) => TypeUtils.getInterpretedOrdering(keyType)
+        case _ => null
+      }
+      override def hash(keys: ArrayData, position: Int): Int = hash(keys.get(position, keyType))
+      override def hash(key: Any): Int = Murmur3HashFunction.hash(key, keyType, HashSeed).toInt
+      override def equals(keys: ArrayData, position: Int, key: Any): Boolean = {
+        val positionKey = keys.get(position, keyType)
+        if (_ordering == null) positionKey.equals(key) else _ordering.equiv(positionKey, key)
+      }
+      override def equals(keys: ArrayData, position: Int, otherKeys: ArrayData, otherPosition: Int): Boolean =
+        equals(keys, position, otherKeys.get(otherPosition, keyType))
+    }
+  }
+
+  /** Returns the class of Spark's values of the given key type, as they are passed to [[KeyOperations]] */
+  private def keyClass(keyType: DataType): Class[_] = keyType match {
+    case _: BooleanType => classOf[java.lang.Boolean]
+    case _: ByteType => classOf[java.lang.Byte]
+    case _: ShortType => classOf[java.lang.Short]
+    case _: IntegerType | _: DateType => classOf[java.lang.Integer]
+    case _: LongType | _: TimestampType => classOf[java.lang.Long]
+    case _: FloatType => classOf[java.lang.Float]
+    case _: DoubleType => classOf[java.lang.Double]
+    case _: DecimalType => classOf[Decimal]
+    case _: StructType => classOf[InternalRow]
+    case _: ArrayType => classOf[ArrayData]
+    case _: MapType => classOf[MapData]
+    case _ => classOf[AnyRef]
   }
+
+  private def hashInt(value: Int): Int = Murmur3_x86_32.hashInt(value, HashSeed)
+
+  private def hashLong(value: Long): Int = Murmur3_x86_32.hashLong(value, HashSeed)
 }
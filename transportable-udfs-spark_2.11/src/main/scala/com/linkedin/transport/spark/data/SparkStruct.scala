@@ -10,26 +10,28 @@ import java.util.{List => JavaList}
 import com.linkedin.transport.api.data.{PlatformData, StdData, StdStruct}
 import com.linkedin.transport.spark.SparkWrapper
 import org.apache.spark.sql.catalyst.InternalRow
-import org.apache.spark.sql.types.StructType
+import org.apache.spark.sql.catalyst.expressions.SpecificInternalRow
+import org.apache.spark.sql.types._
 
 import scala.collection.JavaConverters._
-import scala.collection.mutable.ArrayBuffer
 
 
 case class SparkStruct(private var _row: InternalRow,
                        private val _structType: StructType) extends StdStruct with PlatformData {
 
-  private var _mutableBuffer: ArrayBuffer[Any] = if (_row == null) createMutableStruct() else null
+  // Holds the fields once the struct is mutated. Unlike a generic row, it stores primitive fields without boxing them
+  private var _mutableRow: SpecificInternalRow = if (_row == null) createMutableRow(null) else null
+  // Set once _mutableRow has been returned by getUnderlyingData, so that it is copied rather than changed by the next
+  // setField
+  private var _mutableRowShared = false
 
+  // StructType caches its name to index table, and SparkFactory reuses the same StructType for the structs it creates
   override def getField(name: String): StdData = getField(_structType.fieldIndex(name))
 
   override def getField(index: Int): StdData = {
     val fieldDataType = _structType(index).dataType
-    if (_mutableBuffer == null) {
-      SparkWrapper.createStdData(_row.get(index, fieldDataType), fieldDataType)
-    } else {
-      SparkWrapper.createStdData(_mutableBuffer(index), fieldDataType)
-    }
+    val row = if (_mutableRow == null) _row else _mutableRow
+    SparkWrapper.createStdData(row.get(index, fieldDataType), fieldDataType)
   }
 
   override def setField(name: String, value: StdData): Unit = {
@@ -37,18 +39,37 @@ case class SparkStruct(private var _row: InternalRow,
   }
 
   override def setField(index: Int, value: StdData): Unit = {
-    if (_mutableBuffer == null) {
-      _mutableBuffer = createMutableStruct()
+    if (_mutableRow == null) {
+      _mutableRow = createMutableRow(_row)
+    } else if (_mutableRowShared) {
+      _mutableRow = createMutableRow(_mutableRow)
+      _mutableRowShared = false
+    }
+    if (value == null) {
+      _mutableRow.setNullAt(index)
+    } else {
+      _mutableRow.update(index, value.asInstanceOf[PlatformData].getUnderlyingData)
     }
-    _mutableBuffer(index) = value.asInstanceOf[PlatformData].getUnderlyingData
   }
 
-  private def createMutableStruct() = {
-    if (_row != null) {
-      ArrayBuffer[Any](_row.toSeq(_structType): _*)
-    } else {
-      ArrayBuffer.fill[Any](_structType.length) {null}
+  private def createMutableRow(row: InternalRow): SpecificInternalRow = {
+    val mutableRow = new SpecificInternalRow(_structType.map(_.dataType))
+    if (row != null) {
+      for (i <- _structType.indices) {
+        if (!row.isNullAt(i)) {
+          // Primitive fields are copied without boxing them
+          _structType(i).dataType match {
+            case _: IntegerType => mutableRow.setInt(i, row.getInt(i))
+            case _: LongType => mutableRow.setLong(i, row.getLong(i))
+            case _: DoubleType => mutableRow.setDouble(i, row.getDouble(i))
+            case _: FloatType => mutableRow.setFloat(i, row.getFloat(i))
+            case _: BooleanType => mutableRow.setBoolean(i, row.getBoolean(i))
+            case fieldDataType => mutableRow.update(i, row.get(i, fieldDataType))
+          }
+        }
+      }
     }
+    mutableRow
   }
 
   override def fields(): JavaList[StdData] = {
@@ -56,15 +77,17 @@ case class SparkStruct(private var _row: InternalRow,
   }
 
   override def getUnderlyingData: AnyRef = {
-    if (_mutableBuffer == null) {
+    if (_mutableRow == null) {
       _row
     } else {
-      InternalRow.fromSeq(_mutableBuffer)
+      _mutableRowShared = true
+      _mutableRow
     }
   }
 
   override def setUnderlyingData(value: scala.Any): Unit = {
     _row = value.asInstanceOf[InternalRow]
-    _mutableBuffer = null
+    _mutableRow = null
+    _mutableRowShared = false
   }
 }
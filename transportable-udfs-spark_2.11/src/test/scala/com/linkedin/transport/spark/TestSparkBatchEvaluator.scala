@@ -0,0 +1,127 @@
+/**
+ * Copyright 2021 LinkedIn Corporation. All rights reserved.
+ * Licensed under the BSD-2 Clause license.
+ * See LICENSE in the project root for license information.
+ */
+package com.linkedin.transport.spark
+
+import java.util
+
+import com.linkedin.transport.api.data.{StdColumn, StdColumnBuilder, StdLong, StdString}
+import com.linkedin.transport.api.udf.{StdBatchUDF, StdUDF2, TopLevelStdUDF}
+import org.apache.spark.sql.catalyst.expressions.BoundReference
+import org.apache.spark.sql.execution.vectorized.OnHeapColumnVector
+import org.apache.spark.sql.types.{LongType, StringType}
+import org.apache.spark.sql.vectorized.ColumnVector
+import org.apache.spark.unsafe.types.UTF8String
+import org.testng.Assert._
+import org.testng.annotations.Test
+
+class TestSparkBatchEvaluator {
+
+  @Test
+  def testEvaluateLongs(): Unit = {
+    val evaluator = TestWrapper(classOf[AddLongsBatchStdUDF],
+      Seq(BoundReference(0, LongType, nullable = true), BoundReference(1, LongType, nullable = true)))
+      .createBatchEvaluator()
+    val result = new OnHeapColumnVector(2, LongType)
+
+    // The second argument is non-nullable, so the second row is skipped and its output is null
+    evaluator.evaluate(3, Array(longVector(1L, 2L, 3L), longVector(10L, null, 30L)), result)
+    assertFalse(result.isNullAt(0))
+    assertEquals(result.getLong(0), 11L)
+    assertTrue(result.isNullAt(1))
+    assertEquals(result.getLong(2), 33L)
+
+    // The result vector is reset before being written again
+    evaluator.evaluate(2, Array(longVector(4L, 5L), longVector(40L, 50L)), result)
+    assertFalse(result.isNullAt(0))
+    assertFalse(result.isNullAt(1))
+    assertEquals(result.getLong(1), 55L)
+
+    // No row is evaluated
+    evaluator.evaluate(1, Array(longVector(null), longVector(1L)), result)
+    assertTrue(result.isNullAt(0))
+  }
+
+  @Test
+  def testEvaluateStrings(): Unit = {
+    val evaluator = TestWrapper(classOf[ConcatBatchStdUDF],
+      Seq(BoundReference(0, StringType, nullable = true), BoundReference(1, StringType, nullable = true)))
+      .createBatchEvaluator()
+    val result = new OnHeapColumnVector(3, StringType)
+
+    evaluator.evaluate(3, Array(stringVector("foo", null, "baz"), stringVector("bar", "bar", null)), result)
+    assertEquals(result.getUTF8String(0), UTF8String.fromString("foobar"))
+    // The first argument is nullable, so the UDF receives its null values
+    assertEquals(result.getUTF8String(1), UTF8String.fromString("nullbar"))
+    assertTrue(result.isNullAt(2))
+  }
+
+  @Test(expectedExceptions = Array(classOf[UnsupportedOperationException]))
+  def testCreateBatchEvaluatorForRowStdUdf(): Unit = {
+    TestWrapper(classOf[ConcatStdUDF],
+      Seq(BoundReference(0, StringType, nullable = true), BoundReference(1, StringType, nullable = true)))
+      .createBatchEvaluator()
+  }
+
+  @Test(expectedExceptions = Array(classOf[IllegalStateException]))
+  def testEvaluateWithMissingResults(): Unit = {
+    val evaluator = TestWrapper(classOf[NoResultsBatchStdUDF],
+      Seq(BoundReference(0, LongType, nullable = true), BoundReference(1, LongType, nullable = true)))
+      .createBatchEvaluator()
+    evaluator.evaluate(2, Array(longVector(1L, 2L), longVector(1L, 2L)), new OnHeapColumnVector(2, LongType))
+  }
+
+  private def longVector(values: java.lang.Long*): ColumnVector = {
+    val vector = new OnHeapColumnVector(values.length, LongType)
+    values.zipWithIndex.foreach { case (value, i) => if (value == null) vector.putNull(i) else vector.putLong(i, value) }
+    vector
+  }
+
+  private def stringVector(values: String*): ColumnVector = {
+    val vector = new OnHeapColumnVector(values.length, StringType)
+    values.zipWithIndex.foreach { case (value, i) =>
+      if (value == null) vector.putNull(i) else vector.putByteArray(i, value.getBytes("UTF-8"))
+    }
+    vector
+  }
+}
+
+class AddLongsBatchStdUDF extends StdUDF2[StdLong, StdLong, StdLong] with StdBatchUDF with TopLevelStdUDF {
+
+  override def eval(first: StdLong, second: StdLong): StdLong = getStdFactory.createLong(first.get + second.get)
+
+  override def evalBatch(arguments: Array[StdColumn], positionCount: Int, result: StdColumnBuilder): Unit = {
+    var position = 0
+    while (position < positionCount) {
+      result.appendLong(arguments(0).getLong(position) + arguments(1).getLong(position))
+      position += 1
+    }
+  }
+
+  override def getInputParameterSignatures: util.List[String] = util.Arrays.asList("bigint", "bigint")
+
+  override def getOutputParameterSignature: String = "bigint"
+
+  override def getFunctionName: String = "add_longs"
+
+  override def getFunctionDescription: String = "Adds two longs"
+}
+
+class NoResultsBatchStdUDF extends AddLongsBatchStdUDF {
+
+  override def evalBatch(arguments: Array[StdColumn], positionCount: Int, result: StdColumnBuilder): Unit = {}
+}
+
+class ConcatBatchStdUDF extends ConcatStdUDF with StdBatchUDF {
+
+  override def evalBatch(arguments: Array[StdColumn], positionCount: Int, result: StdColumnBuilder): Unit = {
+    var position = 0
+    while (position < positionCount) {
+      result.append(eval(arguments(0).get(position).asInstanceOf[StdString],
+        arguments(1).get(position).asInstanceOf[StdString]))
+      position += 1
+    }
+  }
+}
@@ -11,7 +11,8 @@ import java.nio.charset.Charset
 import com.linkedin.transport.api.data.PlatformData
 import com.linkedin.transport.spark.typesystem.{SparkBoundVariables, SparkTypeFactory}
 import org.apache.spark.sql.catalyst.InternalRow
-import org.apache.spark.sql.catalyst.util.{ArrayBasedMapData, GenericArrayData}
+import org.apache.spark.sql.catalyst.expressions.UnsafeArrayData
+import org.apache.spark.sql.catalyst.util.ArrayBasedMapData
 import org.apache.spark.sql.types._
 import org.testng.Assert._
 import org.testng.annotations.Test
@@ -39,14 +40,14 @@ class TestSparkFactory {
   def testCreateArray(): Unit = {
     var stdArray = stdFactory.createArray(stdFactory.createStdType("array(integer)"))
     assertEquals(stdArray.size(), 0)
-    assertEquals(stdArray.asInstanceOf[PlatformData].getUnderlyingData.asInstanceOf[GenericArrayData].array,
-      Array.empty)
+    // Arrays of primitive elements are built as UnsafeArrayData
+    assertEquals(stdArray.asInstanceOf[PlatformData].getUnderlyingData.asInstanceOf[UnsafeArrayData].numElements(), 0)
     val testArraySize = 10
     stdArray = stdFactory.createArray(stdFactory.createStdType("array(integer)"), testArraySize)
     // size should still be 0, since size passed in createArray is just expected number of entries in the future
     assertEquals(stdArray.size(), 0)
-    assertEquals(stdArray.asInstanceOf[PlatformData].getUnderlyingData.asInstanceOf[GenericArrayData].array,
-      Array.empty)
+    // Arrays of primitive elements are built as UnsafeArrayData
+    assertEquals(stdArray.asInstanceOf[PlatformData].getUnderlyingData.asInstanceOf[UnsafeArrayData].numElements(), 0)
   }
 
   @Test
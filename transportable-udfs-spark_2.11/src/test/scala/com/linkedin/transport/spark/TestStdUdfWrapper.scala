@@ -0,0 +1,149 @@
+/**
+ * Copyright 2021 LinkedIn Corporation. All rights reserved.
+ * Licensed under the BSD-2 Clause license.
+ * See LICENSE in the project root for license information.
+ */
+package com.linkedin.transport.spark
+
+import java.lang.management.ManagementFactory
+import java.util
+
+import com.linkedin.transport.api.data.StdString
+import com.linkedin.transport.api.udf.{StdPrimitiveUDF2, StdUDF, StdUDF2, TopLevelStdUDF}
+import org.apache.spark.sql.catalyst.InternalRow
+import org.apache.spark.sql.catalyst.expressions.{BoundReference, Expression}
+import org.apache.spark.sql.catalyst.expressions.codegen.GenerateUnsafeProjection
+import org.apache.spark.sql.types.{IntegerType, LongType, StringType}
+import org.apache.spark.unsafe.types.UTF8String
+import org.testng.Assert._
+import org.testng.annotations.Test
+
+class TestStdUdfWrapper {
+
+  @Test
+  def testGeneratedCodeEvaluatesStdUdf(): Unit = {
+    val wrapper = TestWrapper(classOf[ConcatStdUDF],
+      Seq(BoundReference(0, StringType, nullable = true), BoundReference(1, StringType, nullable = true)))
+    val projection = GenerateUnsafeProjection.generate(Seq(wrapper))
+
+    val row = InternalRow(UTF8String.fromString("foo"), UTF8String.fromString("bar"))
+    assertEquals(projection(row).getUTF8String(0), UTF8String.fromString("foobar"))
+    assertEquals(wrapper.eval(row), UTF8String.fromString("foobar"))
+    // The second argument is non-nullable, so the StdUDF is not called
+    assertTrue(projection(InternalRow(UTF8String.fromString("foo"), null)).isNullAt(0))
+    // The first argument is nullable, so the StdUDF is called with a null argument
+    assertEquals(projection(InternalRow(null, UTF8String.fromString("bar"))).getUTF8String(0),
+      UTF8String.fromString("nullbar"))
+  }
+
+  @Test
+  def testGeneratedCodeEvaluatesPrimitiveStdUdf(): Unit = {
+    val wrapper = TestWrapper(classOf[SubtractLongsStdUDF],
+      Seq(BoundReference(0, LongType, nullable = true), BoundReference(1, LongType, nullable = true)))
+    val projection = GenerateUnsafeProjection.generate(Seq(wrapper))
+
+    assertEquals(projection(InternalRow(5L, 3L)).getLong(0), 2L)
+    assertEquals(wrapper.eval(InternalRow(5L, 3L)), 2L)
+    assertTrue(projection(InternalRow(null, 3L)).isNullAt(0))
+    assertTrue(projection(InternalRow(5L, null)).isNullAt(0))
+  }
+
+  @Test
+  def testPrimitiveStdUdfWithDifferentArgumentTypes(): Unit = {
+    val wrapper = TestWrapper(classOf[ShiftLeftStdUDF],
+      Seq(BoundReference(0, LongType, nullable = true), BoundReference(1, IntegerType, nullable = true)))
+    val projection = GenerateUnsafeProjection.generate(Seq(wrapper))
+
+    assertEquals(wrapper.dataType, LongType)
+    assertEquals(projection(InternalRow(3L, 4)).getLong(0), 48L)
+    assertEquals(wrapper.eval(InternalRow(3L, 4)), 48L)
+    assertNull(wrapper.eval(InternalRow(3L, null)))
+  }
+
+  @Test
+  def testEvalDoesNotAllocatePerRow(): Unit = {
+    val wrapper = TestWrapper(classOf[CoalesceStdUDF],
+      Seq(BoundReference(0, StringType, nullable = true), BoundReference(1, StringType, nullable = true)))
+    val projection = GenerateUnsafeProjection.generate(Seq(wrapper))
+    val rows = Array(InternalRow(UTF8String.fromString("foo"), UTF8String.fromString("bar")),
+      InternalRow(null, UTF8String.fromString("bar")))
+    val rowCount = 100000
+
+    // Evaluate before measuring, so that the reusable arguments get created and the required files processed
+    wrapper.eval(rows(0))
+    projection(rows(0))
+    assertEquals(allocatedBytes(rows, rowCount, row => wrapper.eval(row)) / rowCount, 0)
+    assertEquals(allocatedBytes(rows, rowCount, row => projection(row)) / rowCount, 0)
+  }
+
+  private def allocatedBytes(rows: Array[InternalRow], count: Int, f: InternalRow => Any): Long = {
+    val threadMXBean = ManagementFactory.getThreadMXBean.asInstanceOf[com.sun.management.ThreadMXBean]
+    val threadId = Thread.currentThread().getId
+    val allocatedBytesBefore = threadMXBean.getThreadAllocatedBytes(threadId)
+    var i = 0
+    while (i < count) {
+      f(rows(i % rows.length))
+      i += 1
+    }
+    threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBytesBefore
+  }
+}
+
+case class TestWrapper[T <: StdUDF with TopLevelStdUDF](stdUdfClass: Class[T], expressions: Seq[Expression])
+  extends StdUdfWrapper(expressions) {
+
+  override protected def getStdUdfImplementations: util.List[_ <: StdUDF] =
+    util.Arrays.asList(stdUdfClass.getConstructor().newInstance())
+
+  override protected def getTopLevelUdfClass: Class[_ <: TopLevelStdUDF] = stdUdfClass
+}
+
+class ConcatStdUDF extends StdUDF2[StdString, StdString, StdString] with TopLevelStdUDF {
+
+  override def eval(first: StdString, second: StdString): StdString = {
+    getStdFactory.createString((if (first == null) "null" else first.get) + second.get)
+  }
+
+  override def getNullableArguments: Array[Boolean] = Array(true, false)
+
+  override def getInputParameterSignatures: util.List[String] = util.Arrays.asList("varchar", "varchar")
+
+  override def getOutputParameterSignature: String = "varchar"
+
+  override def getFunctionName: String = "concat_strings"
+
+  override def getFunctionDescription: String = "Concatenates two strings"
+}
+
+class SubtractLongsStdUDF extends StdPrimitiveUDF2 with TopLevelStdUDF {
+
+  def eval(first: Long, second: Long): Long = first - second
+
+  override def getFunctionName: String = "subtract_longs"
+
+  override def getFunctionDescription: String = "Subtracts two longs"
+}
+
+class ShiftLeftStdUDF extends StdPrimitiveUDF2 with TopLevelStdUDF {
+
+  def eval(value: Long, shift: Int): Long = value << shift
+
+  override def getFunctionName: String = "shift_left"
+
+  override def getFunctionDescription: String = "Shifts a long to the left"
+}
+
+class CoalesceStdUDF extends StdUDF2[StdString, StdString, StdString] with TopLevelStdUDF {
+
+  override def eval(first: StdString, second: StdString): StdString = if (first != null) first else second
+
+  override def getNullableArguments: Array[Boolean] = Array(true, true)
+
+  override def getInputParameterSignatures: util.List[String] = util.Arrays.asList("varchar", "varchar")
+
+  override def getOutputParameterSignature: String = "varchar"
+
+  override def getFunctionName: String = "coalesce_strings"
+
+  override def getFunctionDescription: String = "Returns the first non-null string"
+}
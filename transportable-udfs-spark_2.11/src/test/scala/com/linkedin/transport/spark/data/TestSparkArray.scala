@@ -7,9 +7,10 @@ package com.linkedin.transport.spark.data
 
 import com.linkedin.transport.api.data.{PlatformData, StdArray}
 import com.linkedin.transport.spark.{SparkFactory, SparkWrapper}
-import org.apache.spark.sql.catalyst.util.ArrayData
+import org.apache.spark.sql.catalyst.expressions.UnsafeArrayData
+import org.apache.spark.sql.catalyst.util.{ArrayData, GenericArrayData}
 import org.apache.spark.sql.types.{ArrayType, DataTypes}
-import org.testng.Assert.{assertEquals, assertNotSame, assertSame}
+import org.testng.Assert.{assertEquals, assertNotSame, assertNull, assertSame, assertTrue}
 import org.testng.annotations.Test
 
 class TestSparkArray {
@@ -44,6 +45,41 @@ class TestSparkArray {
     assertEquals(stdArray.get(stdArray.size() - 1), insert)
   }
 
+  @Test
+  def testSparkArrayAddPrimitives(): Unit = {
+    val stdArray = stdFactory.createArray(stdFactory.createStdType("array(bigint)"))
+    (0 until 100).foreach(i => stdArray.add(stdFactory.createLong(i))) // scalastyle:ignore magic.number
+    stdArray.add(null)
+    val underlyingData = stdArray.asInstanceOf[PlatformData].getUnderlyingData
+    // Primitive elements are written to an UnsafeArrayData instead of being boxed into a GenericArrayData
+    assertTrue(underlyingData.isInstanceOf[UnsafeArrayData])
+    assertEquals(underlyingData.asInstanceOf[ArrayData].toLongArray().take(100), Array.range(0, 100).map(_.toLong))
+    assertTrue(underlyingData.asInstanceOf[ArrayData].isNullAt(100)) // scalastyle:ignore magic.number
+    assertEquals(stdArray.get(99).asInstanceOf[SparkLong].get(), 99L) // scalastyle:ignore magic.number
+    assertNull(stdArray.get(100)) // scalastyle:ignore magic.number
+  }
+
+  @Test
+  def testSparkArrayAddToArrayWithNulls(): Unit = {
+    val arrayDataWithNulls = new GenericArrayData(Array[Any](1.0, null))
+    val stdArray = SparkWrapper.createStdData(arrayDataWithNulls, ArrayType(DataTypes.DoubleType)).asInstanceOf[StdArray]
+    stdArray.add(stdFactory.createDouble(3.0))
+    val underlyingData = stdArray.asInstanceOf[PlatformData].getUnderlyingData.asInstanceOf[ArrayData]
+    assertEquals(underlyingData.numElements(), 3)
+    assertEquals(underlyingData.getDouble(0), 1.0)
+    assertTrue(underlyingData.isNullAt(1))
+    assertEquals(underlyingData.getDouble(2), 3.0)
+  }
+
+  @Test
+  def testSparkArrayAddStrings(): Unit = {
+    val stdArray = stdFactory.createArray(stdFactory.createStdType("array(varchar)"))
+    stdArray.add(stdFactory.createString("foo"))
+    val underlyingData = stdArray.asInstanceOf[PlatformData].getUnderlyingData.asInstanceOf[ArrayData]
+    assertEquals(underlyingData.numElements(), 1)
+    assertEquals(underlyingData.getUTF8String(0).toString, "foo")
+  }
+
   @Test
   def testSparkArrayMutabilityReset(): Unit = {
     val stdArray = SparkWrapper.createStdData(arrayData, arrayType).asInstanceOf[StdArray]
@@ -7,10 +7,10 @@ package com.linkedin.transport.spark.data
 
 import com.linkedin.transport.api.data.{PlatformData, StdMap, StdString}
 import com.linkedin.transport.spark.{SparkFactory, SparkWrapper}
-import org.apache.spark.sql.catalyst.util.ArrayBasedMapData
-import org.apache.spark.sql.types.{DataTypes, MapType}
+import org.apache.spark.sql.catalyst.util.{ArrayBasedMapData, GenericArrayData}
+import org.apache.spark.sql.types.{ArrayType, DataTypes, MapType}
 import org.apache.spark.unsafe.types.UTF8String
-import org.testng.Assert.{assertEquals, assertEqualsNoOrder, assertNotSame, assertSame}
+import org.testng.Assert.{assertEquals, assertEqualsNoOrder, assertNull, assertSame}
 import org.testng.annotations.Test
 
 class TestSparkMap {
@@ -48,8 +48,57 @@ class TestSparkMap {
         mapData.valueArray.array(idx).toString)
     })
     assertEquals(stdMap.containsKey(stdFactory.createString("nonExistentKey")), false)
-    // Even for a get in SparkMap we create mutable Map since Spark's Impl is based of arrays. So underlying object should change
-    assertNotSame(stdMap.asInstanceOf[PlatformData].getUnderlyingData, mapData)
+    // Lookups read Spark's map data directly, so the underlying object should not change
+    assertSame(stdMap.asInstanceOf[PlatformData].getUnderlyingData, mapData)
+  }
+
+  @Test
+  def testSparkMapGetFromIndexedKeys(): Unit = {
+    val size = 100
+    val largeMapData = ArrayBasedMapData((0 until size).toArray, (0 until size).map(i => UTF8String.fromString("v" + i)).toArray)
+    val stdMap = SparkWrapper.createStdData(largeMapData, MapType(DataTypes.IntegerType, DataTypes.StringType))
+      .asInstanceOf[StdMap]
+    // The first lookups scan the keys, the following ones go through the index built on the repeated lookup
+    for (_ <- 0 until 2; i <- 0 until size) {
+      assertEquals(stdMap.get(stdFactory.createInteger(i)).asInstanceOf[StdString].get, "v" + i)
+    }
+    assertEquals(stdMap.containsKey(stdFactory.createInteger(size)), false)
+    assertSame(stdMap.asInstanceOf[PlatformData].getUnderlyingData, largeMapData)
+
+    // The index is rebuilt for new underlying data
+    val otherMapData = ArrayBasedMapData((0 until size).map(_ + size).toArray, (0 until size).map(i => UTF8String.fromString("w" + i)).toArray)
+    stdMap.asInstanceOf[PlatformData].setUnderlyingData(otherMapData)
+    for (_ <- 0 until 2; i <- 0 until size) {
+      assertEquals(stdMap.get(stdFactory.createInteger(i + size)).asInstanceOf[StdString].get, "w" + i)
+      assertEquals(stdMap.containsKey(stdFactory.createInteger(i)), false)
+    }
+  }
+
+  @Test
+  def testSparkMapGetKeyOfAnotherType(): Unit = {
+    val size = 100
+    val largeMapData = ArrayBasedMapData((0 until size).toArray, (0 until size).map(i => UTF8String.fromString("v" + i)).toArray)
+    val stdMap = SparkWrapper.createStdData(largeMapData, MapType(DataTypes.IntegerType, DataTypes.StringType))
+      .asInstanceOf[StdMap]
+    // Both scanned and indexed lookups return null for keys of another type
+    for (_ <- 0 until 3) {
+      assertNull(stdMap.get(stdFactory.createLong(1L)))
+      assertNull(stdMap.get(stdFactory.createString("1")))
+      assertEquals(stdMap.containsKey(stdFactory.createLong(1L)), false)
+      assertEquals(stdMap.get(stdFactory.createInteger(1)).asInstanceOf[StdString].get, "v1")
+    }
+    assertNull(SparkWrapper.createStdData(mapData, mapType).asInstanceOf[StdMap].get(stdFactory.createInteger(1)))
+  }
+
+  @Test
+  def testSparkMapGetComplexKey(): Unit = {
+    val keyType = ArrayType(DataTypes.StringType)
+    val complexKeyMapData = ArrayBasedMapData(
+      Array(new GenericArrayData(Array(UTF8String.fromString("a"))), new GenericArrayData(Array(UTF8String.fromString("b")))),
+      Array(UTF8String.fromString("v1"), UTF8String.fromString("v2")))
+    val stdMap = SparkWrapper.createStdData(complexKeyMapData, MapType(keyType, DataTypes.StringType)).asInstanceOf[StdMap]
+    val key = SparkWrapper.createStdData(new GenericArrayData(Array(UTF8String.fromString("b"))), keyType)
+    assertEquals(stdMap.get(key).asInstanceOf[StdString].get, "v2")
   }
 
   @Test
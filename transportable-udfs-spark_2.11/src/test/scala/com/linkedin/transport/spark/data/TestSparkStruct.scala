@@ -5,13 +5,16 @@
  */
 package com.linkedin.transport.spark.data
 
+import java.util
+
 import com.linkedin.transport.api.data.{PlatformData, StdStruct}
 import com.linkedin.transport.spark.{SparkFactory, SparkWrapper}
 import org.apache.spark.sql.catalyst.InternalRow
+import org.apache.spark.sql.catalyst.expressions.SpecificInternalRow
 import org.apache.spark.sql.catalyst.util.ArrayData
 import org.apache.spark.sql.types.{ArrayType, DataTypes, StructField, StructType}
 import org.apache.spark.unsafe.types.UTF8String
-import org.testng.Assert.{assertEquals, assertNotSame, assertSame}
+import org.testng.Assert.{assertEquals, assertNotSame, assertSame, assertTrue}
 import org.testng.annotations.Test
 
 class TestSparkStruct {
@@ -56,6 +59,43 @@ class TestSparkStruct {
     assertNotSame(stdStruct.asInstanceOf[PlatformData].getUnderlyingData, structData)
   }
 
+  @Test
+  def testSparkStructCreatedByFactory(): Unit = {
+    val stdStruct = stdFactory.createStruct(util.Arrays.asList("intField", "strField"),
+      util.Arrays.asList(SparkWrapper.createStdType(DataTypes.IntegerType), SparkWrapper.createStdType(DataTypes.StringType)))
+    stdStruct.setField("intField", stdFactory.createInteger(1))
+    stdStruct.setField("strField", stdFactory.createString("foo"))
+    val row = stdStruct.asInstanceOf[PlatformData].getUnderlyingData.asInstanceOf[InternalRow]
+    // Primitive fields are stored without boxing them in a generic row
+    assertTrue(row.isInstanceOf[SpecificInternalRow])
+    assertEquals(row.getInt(0), 1)
+    assertEquals(row.getUTF8String(1).toString, "foo")
+
+    // Setting a field after the row has been returned does not change the returned row
+    stdStruct.setField(0, stdFactory.createInteger(2))
+    assertEquals(row.getInt(0), 1)
+    assertEquals(stdStruct.getField("intField").asInstanceOf[PlatformData].getUnderlyingData, 2)
+    assertEquals(stdStruct.getField(1).asInstanceOf[PlatformData].getUnderlyingData.toString, "foo")
+  }
+
+  @Test
+  def testSparkStructTypeIsReusedForTheSameFields(): Unit = {
+    val fieldNames = new util.ArrayList[String](util.Arrays.asList("intField"))
+    val fieldTypes = new util.ArrayList(util.Arrays.asList(SparkWrapper.createStdType(DataTypes.IntegerType)))
+    val first = stdFactory.createStruct(fieldNames, fieldTypes).asInstanceOf[SparkStruct]
+    // The StructType is the second element of the SparkStruct
+    assertSame(stdFactory.createStruct(fieldNames, fieldTypes).asInstanceOf[SparkStruct].productElement(1),
+      first.productElement(1))
+
+    // Lists refilled with other fields get their own StructType
+    fieldNames.set(0, "strField")
+    fieldTypes.set(0, SparkWrapper.createStdType(DataTypes.StringType))
+    val second = stdFactory.createStruct(fieldNames, fieldTypes).asInstanceOf[SparkStruct]
+    assertEquals(second.productElement(1), StructType(Array(StructField("strField", DataTypes.StringType))))
+    second.setField("strField", stdFactory.createString("foo"))
+    assertEquals(second.getField(0).asInstanceOf[PlatformData].getUnderlyingData.toString, "foo")
+  }
+
   @Test
   def testSparkStructMutabilityReset(): Unit = {
     val stdStruct = SparkWrapper.createStdData(structData, structType).asInstanceOf[StdStruct]
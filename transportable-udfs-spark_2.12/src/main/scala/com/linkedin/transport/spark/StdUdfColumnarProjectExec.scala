@@ -0,0 +1,113 @@
+/**
+ * Copyright 2021 LinkedIn Corporation. All rights reserved.
+ * Licensed under the BSD-2 Clause license.
+ * See LICENSE in the project root for license information.
+ */
+package com.linkedin.transport.spark
+
+import org.apache.spark.TaskContext
+import org.apache.spark.rdd.RDD
+import org.apache.spark.sql.catalyst.InternalRow
+import org.apache.spark.sql.catalyst.expressions.{Alias, Attribute, AttributeReference, Expression, NamedExpression}
+import org.apache.spark.sql.execution.{SparkPlan, UnaryExecNode}
+import org.apache.spark.sql.execution.metric.{SQLMetric, SQLMetrics}
+import org.apache.spark.sql.execution.vectorized.{OnHeapColumnVector, WritableColumnVector}
+import org.apache.spark.sql.vectorized.{ColumnVector, ColumnarBatch}
+
+/**
+ * Evaluates a projection of attributes and [[StdUdfWrapper]]s of [[com.linkedin.transport.api.udf.StdBatchUDF]]s
+ * over the [[ColumnarBatch]]es of a columnar child, e.g. a Parquet or ORC scan with the vectorized reader enabled.
+ * Attributes are passed through as the child's vectors, and every UDF is evaluated a batch at a time by a
+ * [[SparkBatchEvaluator]] into an output vector reused across the batches of a partition.
+ *
+ * It replaces eligible [[org.apache.spark.sql.execution.ProjectExec]]s when [[TransportSparkSessionExtensions]] is
+ * enabled, see [[StdUdfColumnarProjectExec.canReplace]].
+ */
+case class StdUdfColumnarProjectExec(projectList: Seq[NamedExpression], child: SparkPlan) extends UnaryExecNode {
+
+  override def output: Seq[Attribute] = projectList.map(_.toAttribute)
+
+  override def supportsColumnar: Boolean = true
+
+  override lazy val metrics: Map[String, SQLMetric] = Map(
+    "numOutputRows" -> SQLMetrics.createMetric(sparkContext, "number of output rows"),
+    "numOutputBatches" -> SQLMetrics.createMetric(sparkContext, "number of output batches"))
+
+  override protected def doExecute(): RDD[InternalRow] = {
+    throw new IllegalStateException(getClass.getSimpleName + " only supports columnar execution")
+  }
+
+  override protected def doExecuteColumnar(): RDD[ColumnarBatch] = {
+    val numOutputRows = longMetric("numOutputRows")
+    val numOutputBatches = longMetric("numOutputBatches")
+    val childOutput = child.output
+    val columnProjections = projectList.map {
+      case Alias(stdUdfWrapper: StdUdfWrapper, _) =>
+        StdUdfColumnarProjectExec.ColumnProjection(-1, stdUdfWrapper,
+          stdUdfWrapper.children.map(argument => ordinalOf(childOutput, argument)).toArray)
+      case attribute => StdUdfColumnarProjectExec.ColumnProjection(ordinalOf(childOutput, attribute), null, null)
+    }.toArray
+
+    child.executeColumnar().mapPartitions { batches =>
+      // The wrappers are deserialized for every task, so each evaluator and output vector belongs to a single task
+      val evaluators = columnProjections.map(p =>
+        if (p.stdUdfWrapper == null) null else p.stdUdfWrapper.createBatchEvaluator())
+      val resultVectors: Array[WritableColumnVector] = columnProjections.map(p =>
+        if (p.stdUdfWrapper == null) null
+        else new OnHeapColumnVector(StdUdfColumnarProjectExec.InitialCapacity, p.stdUdfWrapper.dataType))
+      TaskContext.get().addTaskCompletionListener[Unit](_ => resultVectors.filter(_ != null).foreach(_.close()))
+
+      batches.map { batch =>
+        val numRows = batch.numRows()
+        val outputVectors = new Array[ColumnVector](columnProjections.length)
+        var i = 0
+        while (i < columnProjections.length) {
+          val projection = columnProjections(i)
+          if (projection.stdUdfWrapper == null) {
+            outputVectors(i) = batch.column(projection.inputOrdinal)
+          } else {
+            evaluators(i).evaluate(numRows, projection.argumentOrdinals.map(batch.column), resultVectors(i))
+            outputVectors(i) = resultVectors(i)
+          }
+          i += 1
+        }
+        numOutputRows += numRows
+        numOutputBatches += 1
+        new ColumnarBatch(outputVectors, numRows)
+      }
+    }
+  }
+
+  private def ordinalOf(attributes: Seq[Attribute], expression: Expression): Int = expression match {
+    case a: AttributeReference => attributes.indexWhere(_.exprId == a.exprId)
+    case _ => throw new IllegalStateException("Expected an attribute of the child, found " + expression)
+  }
+}
+
+object StdUdfColumnarProjectExec {
+
+  private val InitialCapacity = 4096
+
+  private case class ColumnProjection(inputOrdinal: Int, stdUdfWrapper: StdUdfWrapper, argumentOrdinals: Array[Int])
+
+  /**
+   * Returns true if a projection over the given child can be evaluated by a [[StdUdfColumnarProjectExec]]. This is the
+   * case if the child produces columnar batches, and the projection consists of attributes of the child and at least
+   * one [[StdUdfWrapper]] supporting batch evaluation, whose arguments are all attributes of the child.
+   */
+  def canReplace(projectList: Seq[NamedExpression], child: SparkPlan): Boolean = {
+    def isChildAttribute(expression: Expression): Boolean = expression match {
+      case a: AttributeReference => child.output.exists(_.exprId == a.exprId)
+      case _ => false
+    }
+    child.supportsColumnar && projectList.exists(isBatchStdUdf(_, isChildAttribute)) &&
+      projectList.forall(e => isChildAttribute(e) || isBatchStdUdf(e, isChildAttribute))
+  }
+
+  private def isBatchStdUdf(expression: Expression, isChildAttribute: Expression => Boolean): Boolean =
+    expression match {
+      case Alias(stdUdfWrapper: StdUdfWrapper, _) =>
+        stdUdfWrapper.children.forall(isChildAttribute) && stdUdfWrapper.supportsBatchEvaluation
+      case _ => false
+    }
+}
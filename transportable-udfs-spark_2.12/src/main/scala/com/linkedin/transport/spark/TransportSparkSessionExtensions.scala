@@ -0,0 +1,44 @@
+/**
+ * Copyright 2021 LinkedIn Corporation. All rights reserved.
+ * Licensed under the BSD-2 Clause license.
+ * See LICENSE in the project root for license information.
+ */
+package com.linkedin.transport.spark
+
+import org.apache.spark.sql.SparkSessionExtensions
+import org.apache.spark.sql.catalyst.rules.Rule
+import org.apache.spark.sql.execution.{ColumnarRule, ProjectExec, SparkPlan}
+
+/**
+ * Enables the columnar evaluation of Transport UDFs implementing [[com.linkedin.transport.api.udf.StdBatchUDF]],
+ * see [[StdUdfColumnarProjectExec]]. It is opt-in, and enabled by setting
+ * `spark.sql.extensions=com.linkedin.transport.spark.TransportSparkSessionExtensions`, or by passing it to
+ * `SparkSession.Builder.withExtensions()`.
+ *
+ * Only UDFs whose output type is `integer`, `bigint`, `boolean`, `real`, `double`, `varchar` or `varbinary` are
+ * evaluated a batch at a time, since those are the only types written to Spark column vectors. Projections including
+ * UDFs with other output types, e.g. arrays, maps or structs, are left as they are and keep being evaluated a row at a
+ * time, without any warning.
+ */
+class TransportSparkSessionExtensions extends (SparkSessionExtensions => Unit) {
+
+  override def apply(extensions: SparkSessionExtensions): Unit = {
+    extensions.injectColumnar(_ => TransportColumnarRule)
+  }
+}
+
+object TransportColumnarRule extends ColumnarRule {
+
+  override def preColumnarTransitions: Rule[SparkPlan] = ReplaceStdUdfProjects
+
+  /**
+   * Replaces the [[ProjectExec]]s which can be evaluated a batch at a time by [[StdUdfColumnarProjectExec]]s
+   */
+  object ReplaceStdUdfProjects extends Rule[SparkPlan] {
+
+    override def apply(plan: SparkPlan): SparkPlan = plan.transformUp {
+      case ProjectExec(projectList, child) if StdUdfColumnarProjectExec.canReplace(projectList, child) =>
+        StdUdfColumnarProjectExec(projectList, child)
+    }
+  }
+}
@@ -0,0 +1,75 @@
+/**
+ * Copyright 2021 LinkedIn Corporation. All rights reserved.
+ * Licensed under the BSD-2 Clause license.
+ * See LICENSE in the project root for license information.
+ */
+package com.linkedin.transport.spark
+
+import java.nio.file.Files
+
+import org.apache.spark.sql.{Column, SparkSession}
+import org.apache.spark.sql.functions._
+import org.testng.Assert._
+import org.testng.annotations.Test
+
+class TestStdUdfColumnarProjectExec {
+
+  @Test
+  def testColumnarEvaluationOverParquet(): Unit = {
+    withTransportExtensions { spark =>
+      val path = Files.createTempDirectory("transport-columnar").resolve("data").toString
+      spark.range(0, 10000)
+        .select(col("id").as("a"), when(col("id") % 7 === 0, lit(null)).otherwise(col("id") * 2).as("b"),
+          when(col("id") % 5 === 0, lit(null)).otherwise(col("id").cast("string")).as("s"))
+        .write.parquet(path)
+
+      val df = spark.read.parquet(path)
+      val result = df.select(df("a"),
+        new Column(TestWrapper(classOf[AddLongsBatchStdUDF], Seq(df("a").expr, df("b").expr))).as("sum"),
+        new Column(TestWrapper(classOf[ConcatBatchStdUDF], Seq(df("s").expr, df("s").expr))).as("concat"))
+
+      assertFalse(result.queryExecution.executedPlan.collect { case e: StdUdfColumnarProjectExec => e }.isEmpty)
+      val rows = result.collect()
+      assertEquals(rows.length, 10000)
+      rows.foreach { row =>
+        val a = row.getLong(0)
+        if (a % 7 == 0) assertTrue(row.isNullAt(1)) else assertEquals(row.getLong(1), a * 3)
+        // The second argument of the concatenation is non-nullable
+        if (a % 5 == 0) assertTrue(row.isNullAt(2)) else assertEquals(row.getString(2), a.toString + a)
+      }
+    }
+  }
+
+  @Test
+  def testRowStdUdfIsNotReplaced(): Unit = {
+    withTransportExtensions { spark =>
+      val path = Files.createTempDirectory("transport-columnar").resolve("data").toString
+      spark.range(0, 10).select(col("id").cast("string").as("s")).write.parquet(path)
+
+      val df = spark.read.parquet(path)
+      val result = df.select(new Column(TestWrapper(classOf[ConcatStdUDF], Seq(df("s").expr, df("s").expr))))
+
+      assertTrue(result.queryExecution.executedPlan.collect { case e: StdUdfColumnarProjectExec => e }.isEmpty)
+      assertEquals(result.collect().map(_.getString(0)).sorted.head, "00")
+    }
+  }
+
+  /**
+   * Runs the test on a new session of the shared Spark context with [[TransportSparkSessionExtensions]] enabled, and
+   * restores the previous sessions afterwards
+   */
+  private def withTransportExtensions(test: SparkSession => Unit): Unit = {
+    val activeSession = SparkSession.getActiveSession
+    val defaultSession = SparkSession.getDefaultSession
+    SparkSession.clearActiveSession()
+    SparkSession.clearDefaultSession()
+    try {
+      test(SparkSession.builder().master("local[1]").withExtensions(new TransportSparkSessionExtensions).getOrCreate())
+    } finally {
+      SparkSession.clearActiveSession()
+      SparkSession.clearDefaultSession()
+      defaultSession.foreach(SparkSession.setDefaultSession)
+      activeSession.foreach(SparkSession.setActiveSession)
+    }
+  }
+}
@@ -5,13 +5,20 @@
  */
 package com.linkedin.transport.trino;
 
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
 import com.linkedin.transport.utils.FileSystemUtils;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.nio.file.Paths;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.security.UserGroupInformation;
@@ -20,20 +27,43 @@ import org.apache.hadoop.security.UserGroupInformation;
 public class FileSystemClient {
 
   final static String PROPERTIES_FILE_PATH = "etc/udf-config.properties";
+  static final long DEFAULT_CACHE_MAX_SIZE_BYTES = 10L * 1024 * 1024 * 1024;
+  // Cached files used within this period are not evicted, as they may still be being processed
+  static final long CACHE_MIN_RETENTION_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+  // The properties and the configuration are loaded once per process, and shared by all the clients
+  private static final Supplier<Properties> DEFAULT_PROPERTIES = Suppliers.memoize(FileSystemClient::loadProperties);
+  private static final Supplier<Configuration> DEFAULT_CONFIGURATION =
+      Suppliers.memoize(() -> createConfiguration(DEFAULT_PROPERTIES.get()));
+  // The local file caches by directory, as each directory has to be managed by a single cache
+  private static final ConcurrentMap<java.nio.file.Path, LocalFileCache> LOCAL_FILE_CACHES = new ConcurrentHashMap<>();
+  // Whether the keytab login succeeded, which is shared by all the clients of the process
+  private static final AtomicBoolean LOGGED_IN = new AtomicBoolean();
+
   /***
    * Properties to customize the behaviour of this client. These properties are read from "etc/udf-config.properties"
    * The following keys are used:
    * udf.hdfs-cache-dir: indicates where the file required by this UDF is downloaded locally
+   * udf.hdfs-cache-max-size-bytes: the size above which the least recently used files of "udf.hdfs-cache-dir" are
+   *                                evicted, 10GB by default
    * udf.authentication: indicates the method used to authenticate access to HDFS. Possible values are "password",
    *                     which simply relies on running kinit from the shell before calling the UDF, and "keytab",
    *                     which authenticates using a given principal and keytab file path.
    * udf.kerberos.principal: the prinicipal to use with keberos (keytab) authentication
    * udf.kerberos.keytab.file: the path of the keytab file of the princinpal in "udf.kerberos.principal"
+   * udf.resolve-latest.cache-ttl-millis: the time for which the latest candidate of a directory resolving "#LATEST" in
+   *                                      the path of a required file is cached, not cached by default
    */
   final Properties _properties;
+  private final Configuration _conf;
 
   public FileSystemClient() {
-    _properties = new Properties();
+    this(DEFAULT_PROPERTIES.get(), DEFAULT_CONFIGURATION.get());
+  }
+
+  FileSystemClient(Properties properties, Configuration conf) {
+    _properties = properties;
+    _conf = conf;
   }
 
   private static void loginHeadlessAccount(String principal, String keytabFile) {
@@ -44,27 +74,34 @@ public class FileSystemClient {
     }
   }
 
+  /**
+   * Copies a remote file to the local file cache, unless the cache already holds the same version of the file, and
+   * returns the path of its local copy. Versions are identified by the resolved remote path of the file, its
+   * modification time and its length, so files with the same name in different directories do not collide, and all
+   * the functions requiring the same file share its local copy.
+   */
   public String copyToLocalFile(String remoteFilename) {
     try {
-      loadProperties();
-      Configuration conf = getConfiguration();
-      login(conf);
+      login(_properties, _conf);
 
       Path remotePath = new Path(remoteFilename);
-      Path localPath = new Path(Paths.get(getAndCreateLocalDir(), new File(remoteFilename).getName()).toString());
-      FileSystem fs = remotePath.getFileSystem(conf);
+      FileSystem fs = remotePath.getFileSystem(_conf);
       // It is important to pass the custom configuration object to FileSystemUtils since we load some extra
-      // properties from etc/**.xml in getConfiguration() for Trino
-      String resolvedRemoteFilename = FileSystemUtils.resolveLatest(remoteFilename, conf);
-      Path resolvedRemotePath = new Path(resolvedRemoteFilename);
-      fs.copyToLocalFile(resolvedRemotePath, localPath);
-      return localPath.toString();
+      // properties from etc/**.xml in createConfiguration() for Trino
+      String resolvedRemoteFilename = FileSystemUtils.resolveLatest(remoteFilename, _conf);
+      Path resolvedRemotePath = fs.makeQualified(new Path(resolvedRemoteFilename));
+      FileStatus status = fs.getFileStatus(resolvedRemotePath);
+      String key = resolvedRemotePath + "@" + status.getModificationTime() + ":" + status.getLen();
+      // The raw local file system does not write checksum files next to the local copy
+      return getLocalFileCache().get(key, resolvedRemotePath.getName(),
+          localPath -> fs.copyToLocalFile(false, resolvedRemotePath, new Path(localPath.toString()), true))
+          .toString();
     } catch (Exception e) {
       throw new RuntimeException("Error downloading HDFS file: " + remoteFilename, e);
     }
   }
 
-  private Configuration getConfiguration() {
+  private static Configuration createConfiguration(Properties properties) {
     Configuration conf = new Configuration();
     File hdfsSite = new File("etc/hdfs-site.xml");
     if (hdfsSite.exists()) {
@@ -74,42 +111,60 @@ public class FileSystemClient {
     if (coreSite.exists()) {
       conf.addResource(new Path(coreSite.toString()));
     }
+    String resolveLatestCacheTtlMillis = properties.getProperty(FileSystemUtils.RESOLVE_LATEST_CACHE_TTL_KEY);
+    if (resolveLatestCacheTtlMillis != null) {
+      conf.setLong(FileSystemUtils.RESOLVE_LATEST_CACHE_TTL_KEY, Long.parseLong(resolveLatestCacheTtlMillis));
+    }
+    if (properties.getProperty("udf.authentication", "password").equalsIgnoreCase("keytab")) {
+      conf.setStrings("hadoop.security.authentication", "KERBEROS");
+    }
     return conf;
   }
 
-  private void login(Configuration conf) {
-    String authenticationMethod = _properties.getProperty("udf.authentication", "password");
+  /**
+   * Logs in from the keytab the first time, and then only relogs in once the ticket is about to expire.
+   */
+  private static synchronized void login(Properties properties, Configuration conf) throws IOException {
+    String authenticationMethod = properties.getProperty("udf.authentication", "password");
     if (authenticationMethod.equalsIgnoreCase("password")) {
       return;
     } else if (authenticationMethod.equalsIgnoreCase("keytab")) {
-      String principal = _properties.getProperty("udf.kerberos.principal");
-      String keytab = _properties.getProperty("udf.kerberos.keytab.file");
+      if (LOGGED_IN.get()) {
+        UserGroupInformation.getLoginUser().checkTGTAndReloginFromKeytab();
+        return;
+      }
+      String principal = properties.getProperty("udf.kerberos.principal");
+      String keytab = properties.getProperty("udf.kerberos.keytab.file");
       if (principal == null || keytab == null) {
         throw new RuntimeException("Keytab authentication specified, but principal or keytab information missing");
       }
-      conf.setStrings("hadoop.security.authentication", "KERBEROS");
       UserGroupInformation.setConfiguration(conf);
       loginHeadlessAccount(principal, keytab);
+      LOGGED_IN.set(true);
     } else {
       throw new RuntimeException("Unrecognized authentication method: " + authenticationMethod);
     }
   }
 
-  private void loadProperties() {
+  private static Properties loadProperties() {
+    Properties properties = new Properties();
     File propertiesFile = new File(PROPERTIES_FILE_PATH);
     if (propertiesFile.exists()) {
       try (FileInputStream in = new FileInputStream(PROPERTIES_FILE_PATH)) {
-        _properties.load(in);
+        properties.load(in);
       } catch (IOException e) {
         throw new RuntimeException(
             "Unable to load properties from properties file: " + propertiesFile.getAbsolutePath());
       }
     }
+    return properties;
   }
 
-  private String getAndCreateLocalDir() {
+  private LocalFileCache getLocalFileCache() {
     String localDir = _properties.getProperty("udf.hdfs-cache-dir", "hdfs_cache");
-    new File(localDir).mkdirs();
-    return localDir;
+    long maxSizeBytes = Long.parseLong(
+        _properties.getProperty("udf.hdfs-cache-max-size-bytes", String.valueOf(DEFAULT_CACHE_MAX_SIZE_BYTES)));
+    return LOCAL_FILE_CACHES.computeIfAbsent(Paths.get(localDir).toAbsolutePath(),
+        directory -> new LocalFileCache(directory, maxSizeBytes, CACHE_MIN_RETENTION_MILLIS));
   }
 }
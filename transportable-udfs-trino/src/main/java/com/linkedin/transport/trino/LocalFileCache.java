@@ -0,0 +1,217 @@
+/**
+ * Copyright 2021 LinkedIn Corporation. All rights reserved.
+ * Licensed under the BSD-2 Clause license.
+ * See LICENSE in the project root for license information.
+ */
+package com.linkedin.transport.trino;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.hash.Hashing;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Stream;
+
+
+/**
+ * A local directory caching downloaded files, shared by all the functions of the process.
+ *
+ * Files are addressed by a key identifying their remote content, e.g. their resolved path and modification time, so a
+ * file is only downloaded once as long as its remote content is unchanged, and all the functions requiring it share
+ * the same local copy. Downloads are written to a temporary file and atomically moved into place, so a cached file is
+ * never observed partially written. The least recently used files are evicted once the size of the cache exceeds its
+ * maximum size, except for files used within the minimum retention period, which may still be being processed.
+ *
+ * Uses of the cached files are tracked in memory, starting from the modification times of the files found in the
+ * directory when the cache is first used, so using a cached file neither modifies it nor lists the directory. A
+ * single instance should therefore manage a given directory in the process.
+ */
+class LocalFileCache {
+
+  private static final String TEMPORARY_FILE_PREFIX = ".download-";
+  // Locks of the cached files being downloaded, by path, shared by all the caches of the process
+  private static final ConcurrentMap<Path, Object> DOWNLOAD_LOCKS = new ConcurrentHashMap<>();
+
+  private final Path _directory;
+  private final long _maxSizeBytes;
+  private final long _minRetentionMillis;
+  // The cached files, from the least to the most recently used, guarded by itself
+  private final LinkedHashMap<Path, CachedFile> _cachedFiles = new LinkedHashMap<>(16, 0.75f, true);
+  private long _sizeBytes;
+  private boolean _loaded;
+
+  /**
+   * Downloads a file to a local path
+   */
+  interface Downloader {
+    void download(Path localPath) throws IOException;
+  }
+
+  /**
+   * The size and last use time of a cached file
+   */
+  private static final class CachedFile {
+    private final long _sizeBytes;
+    private long _lastUseTimeMillis;
+
+    CachedFile(long sizeBytes, long lastUseTimeMillis) {
+      _sizeBytes = sizeBytes;
+      _lastUseTimeMillis = lastUseTimeMillis;
+    }
+  }
+
+  LocalFileCache(Path directory, long maxSizeBytes, long minRetentionMillis) {
+    _directory = directory.toAbsolutePath();
+    _maxSizeBytes = maxSizeBytes;
+    _minRetentionMillis = minRetentionMillis;
+  }
+
+  /**
+   * Returns the local copy of a file, downloading it if it is not cached yet.
+   *
+   * @param key  a key identifying the content of the file
+   * @param fileName  the name of the file, which is kept as the suffix of the name of its local copy
+   * @param downloader  downloads the file if it is not cached
+   */
+  Path get(String key, String fileName, Downloader downloader) throws IOException {
+    loadCachedFiles();
+    Path path = _directory.resolve(
+        Hashing.sha256().hashString(key, StandardCharsets.UTF_8).toString().substring(0, 32) + "-" + fileName);
+    while (true) {
+      Object lock = DOWNLOAD_LOCKS.computeIfAbsent(path, p -> new Object());
+      synchronized (lock) {
+        // Locks are removed once released, so a thread which waited for a removed lock retries with the current one
+        if (DOWNLOAD_LOCKS.get(path) != lock) {
+          continue;
+        }
+        try {
+          if (!useCachedFile(path)) {
+            download(path, downloader);
+          }
+        } finally {
+          DOWNLOAD_LOCKS.remove(path, lock);
+        }
+        break;
+      }
+    }
+    return path;
+  }
+
+  @VisibleForTesting
+  static int getDownloadLockCount() {
+    return DOWNLOAD_LOCKS.size();
+  }
+
+  /**
+   * Tracks the files already in the directory, e.g. downloaded before the process restarted, ordered by their
+   * modification time.
+   */
+  private void loadCachedFiles() throws IOException {
+    synchronized (_cachedFiles) {
+      if (_loaded) {
+        return;
+      }
+      if (Files.isDirectory(_directory)) {
+        List<Path> paths = new ArrayList<>();
+        Map<Path, BasicFileAttributes> attributes = new HashMap<>();
+        try (Stream<Path> files = Files.list(_directory)) {
+          for (Path path : (Iterable<Path>) files::iterator) {
+            if (path.getFileName().toString().startsWith(TEMPORARY_FILE_PREFIX)) {
+              continue;
+            }
+            try {
+              BasicFileAttributes fileAttributes = Files.readAttributes(path, BasicFileAttributes.class);
+              if (fileAttributes.isRegularFile()) {
+                paths.add(path);
+                attributes.put(path, fileAttributes);
+              }
+            } catch (NoSuchFileException e) {
+              // Deleted concurrently, e.g. by another process sharing the directory
+            }
+          }
+        }
+        paths.sort(Comparator.comparing(path -> attributes.get(path).lastModifiedTime()));
+        for (Path path : paths) {
+          BasicFileAttributes fileAttributes = attributes.get(path);
+          _cachedFiles.put(path, new CachedFile(fileAttributes.size(), fileAttributes.lastModifiedTime().toMillis()));
+          _sizeBytes += fileAttributes.size();
+        }
+      }
+      _loaded = true;
+      evict();
+    }
+  }
+
+  /**
+   * Marks a cached file as used.
+   *
+   * @return whether the file is cached
+   */
+  private boolean useCachedFile(Path path) {
+    synchronized (_cachedFiles) {
+      CachedFile cachedFile = _cachedFiles.get(path);
+      if (cachedFile == null) {
+        return false;
+      }
+      if (!Files.exists(path)) {
+        // Deleted externally, so it is downloaded again
+        _cachedFiles.remove(path);
+        _sizeBytes -= cachedFile._sizeBytes;
+        return false;
+      }
+      cachedFile._lastUseTimeMillis = System.currentTimeMillis();
+      return true;
+    }
+  }
+
+  private void download(Path path, Downloader downloader) throws IOException {
+    Files.createDirectories(_directory);
+    Path temporaryPath = Files.createTempFile(_directory, TEMPORARY_FILE_PREFIX, ".tmp");
+    try {
+      downloader.download(temporaryPath);
+      Files.move(temporaryPath, path, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temporaryPath);
+    }
+    long sizeBytes = Files.size(path);
+    synchronized (_cachedFiles) {
+      CachedFile previous = _cachedFiles.put(path, new CachedFile(sizeBytes, System.currentTimeMillis()));
+      _sizeBytes += sizeBytes - (previous == null ? 0 : previous._sizeBytes);
+      if (_sizeBytes > _maxSizeBytes) {
+        evict();
+      }
+    }
+  }
+
+  /**
+   * Deletes the least recently used files until the size of the cache is within its maximum size. Must be called while
+   * holding the lock of the cached files.
+   */
+  private void evict() throws IOException {
+    long minLastUseTime = System.currentTimeMillis() - _minRetentionMillis;
+    Iterator<Map.Entry<Path, CachedFile>> iterator = _cachedFiles.entrySet().iterator();
+    while (_sizeBytes > _maxSizeBytes && iterator.hasNext()) {
+      Map.Entry<Path, CachedFile> entry = iterator.next();
+      if (entry.getValue()._lastUseTimeMillis > minLastUseTime) {
+        // Files are ordered by last use, so all the remaining files are within the retention period too
+        break;
+      }
+      Files.deleteIfExists(entry.getKey());
+      iterator.remove();
+      _sizeBytes -= entry.getValue()._sizeBytes;
+    }
+  }
+}
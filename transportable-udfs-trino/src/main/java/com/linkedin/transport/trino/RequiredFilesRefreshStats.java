@@ -0,0 +1,90 @@
+/**
+ * Copyright 2021 LinkedIn Corporation. All rights reserved.
+ * Licensed under the BSD-2 Clause license.
+ * See LICENSE in the project root for license information.
+ */
+package com.linkedin.transport.trino;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.weakref.jmx.Managed;
+
+
+/**
+ * Metrics of the loads of the required files of a function, across all its specializations. It is returned by
+ * {@link StdUdfWrapper#getRequiredFilesRefreshStats()}, and exported to the platform MBean server by the wrapper.
+ */
+public class RequiredFilesRefreshStats {
+
+  private final AtomicLong _refreshCount = new AtomicLong();
+  private final AtomicLong _failedRefreshCount = new AtomicLong();
+  private final AtomicLong _maxRefreshDurationMillis = new AtomicLong();
+  private volatile long _lastRefreshDurationMillis;
+  // The refreshers of the specializations of the function, released along with their specialization
+  private final Set<RequiredFilesRefresher> _refreshers = Collections.newSetFromMap(new WeakHashMap<>());
+
+  synchronized void addRefresher(RequiredFilesRefresher refresher) {
+    _refreshers.add(refresher);
+  }
+
+  void recordRefresh(long startTimeMillis, long endTimeMillis) {
+    long durationMillis = endTimeMillis - startTimeMillis;
+    _refreshCount.incrementAndGet();
+    _lastRefreshDurationMillis = durationMillis;
+    _maxRefreshDurationMillis.accumulateAndGet(durationMillis, Math::max);
+  }
+
+  void recordFailedRefresh() {
+    _failedRefreshCount.incrementAndGet();
+  }
+
+  /**
+   * Returns the number of successful loads of required files, including the initial ones.
+   */
+  @Managed
+  public long getRefreshCount() {
+    return _refreshCount.get();
+  }
+
+  /**
+   * Returns the number of background refreshes which failed, and after which the previous state kept being served.
+   */
+  @Managed
+  public long getFailedRefreshCount() {
+    return _failedRefreshCount.get();
+  }
+
+  @Managed
+  public long getLastRefreshDurationMillis() {
+    return _lastRefreshDurationMillis;
+  }
+
+  @Managed
+  public long getMaxRefreshDurationMillis() {
+    return _maxRefreshDurationMillis.get();
+  }
+
+  /**
+   * Returns the time elapsed since the required files of the stalest specialization were last loaded, or -1 if no
+   * specialization loaded them yet.
+   */
+  @Managed
+  public long getStalenessMillis() {
+    List<RequiredFilesRefresher> refreshers;
+    synchronized (this) {
+      refreshers = new ArrayList<>(_refreshers);
+    }
+    long oldestRefreshTimeMillis = Long.MAX_VALUE;
+    for (RequiredFilesRefresher refresher : refreshers) {
+      long lastRefreshTimeMillis = refresher.getLastRefreshTimeMillis();
+      if (lastRefreshTimeMillis != 0) {
+        oldestRefreshTimeMillis = Math.min(oldestRefreshTimeMillis, lastRefreshTimeMillis);
+      }
+    }
+    return oldestRefreshTimeMillis == Long.MAX_VALUE ? -1 : System.currentTimeMillis() - oldestRefreshTimeMillis;
+  }
+}
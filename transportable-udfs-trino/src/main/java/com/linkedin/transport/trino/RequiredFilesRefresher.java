@@ -0,0 +1,165 @@
+/**
+ * Copyright 2021 LinkedIn Corporation. All rights reserved.
+ * Licensed under the BSD-2 Clause license.
+ * See LICENSE in the project root for license information.
+ */
+package com.linkedin.transport.trino;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.linkedin.transport.api.udf.StdUDF;
+import io.airlift.log.Logger;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+
+/**
+ * Holds the {@link StdUDF} instance a specialization evaluates rows with, and keeps its required files up to date.
+ *
+ * The required files are first loaded by the first row, which has to wait for them as there is no state to evaluate it
+ * with yet. Afterwards, a refresh loads the required files into a new instance of the UDF on a background thread, and
+ * publishes it once it is ready. Rows keep being evaluated by the previous instance in the meantime, so they never
+ * wait for the refresh. If a refresh fails, the previous instance is kept and the refresh is retried later.
+ */
+class RequiredFilesRefresher {
+
+  private static final Logger LOG = Logger.get(RequiredFilesRefresher.class);
+
+  private static final Executor REFRESH_EXECUTOR = Executors.newCachedThreadPool(
+      new ThreadFactoryBuilder().setNameFormat("transport-required-files-refresh-%d").setDaemon(true).build());
+
+  private final String _functionName;
+  private final AtomicReference<StdUDF> _stdUdf;
+  // Creates new initialized instances of the UDF to load refreshed required files into
+  private final Supplier<StdUDF> _stdUdfSupplier;
+  // Loads the required files into an instance of the UDF
+  private final BiConsumer<StdUDF, String[]> _requiredFilesLoader;
+  private final long _refreshIntervalMillis;
+  private final long _retryDelayMillis;
+  private final AtomicLong _nextRefreshTime;
+  private final AtomicBoolean _refreshing = new AtomicBoolean();
+  private final RequiredFilesRefreshStats _stats;
+  private final Executor _executor;
+  private volatile boolean _loaded;
+  // The time at which the required files were last loaded, or 0 if they were never loaded
+  private volatile long _lastRefreshTimeMillis;
+
+  RequiredFilesRefresher(String functionName, StdUDF stdUdf, Supplier<StdUDF> stdUdfSupplier,
+      BiConsumer<StdUDF, String[]> requiredFilesLoader, long refreshIntervalMillis, long retryDelayMillis,
+      long firstRefreshTime, RequiredFilesRefreshStats stats) {
+    this(functionName, stdUdf, stdUdfSupplier, requiredFilesLoader, refreshIntervalMillis, retryDelayMillis,
+        firstRefreshTime, stats, REFRESH_EXECUTOR);
+  }
+
+  RequiredFilesRefresher(String functionName, StdUDF stdUdf, Supplier<StdUDF> stdUdfSupplier,
+      BiConsumer<StdUDF, String[]> requiredFilesLoader, long refreshIntervalMillis, long retryDelayMillis,
+      long firstRefreshTime, RequiredFilesRefreshStats stats, Executor executor) {
+    _functionName = functionName;
+    _stdUdf = new AtomicReference<>(stdUdf);
+    _stdUdfSupplier = stdUdfSupplier;
+    _requiredFilesLoader = requiredFilesLoader;
+    _refreshIntervalMillis = refreshIntervalMillis;
+    _retryDelayMillis = retryDelayMillis;
+    _nextRefreshTime = new AtomicLong(firstRefreshTime);
+    _stats = stats;
+    _executor = executor;
+  }
+
+  /**
+   * Returns the instance of the UDF whose required files are the most recently loaded.
+   */
+  StdUDF getStdUdf() {
+    return _stdUdf.get();
+  }
+
+  long getLastRefreshTimeMillis() {
+    return _lastRefreshTimeMillis;
+  }
+
+  boolean isRefreshDue() {
+    return _nextRefreshTime.get() <= System.currentTimeMillis();
+  }
+
+  /**
+   * Loads the given required files if a refresh is due. The first load happens on the calling thread, and later ones
+   * in the background.
+   */
+  void refresh(String[] requiredFiles) {
+    if (!_loaded) {
+      loadFirst(requiredFiles);
+      return;
+    }
+    if (!_refreshing.compareAndSet(false, true)) {
+      return;
+    }
+    long refreshTime = _nextRefreshTime.get();
+    if (refreshTime > System.currentTimeMillis()) {
+      _refreshing.set(false);
+      return;
+    }
+    // Rows stop checking for a refresh while this one is in flight
+    _nextRefreshTime.set(Long.MAX_VALUE);
+    // The required files array may be reused by the UDF
+    String[] copiedRequiredFiles = requiredFiles.clone();
+    try {
+      _executor.execute(() -> refreshInBackground(copiedRequiredFiles, refreshTime));
+    } catch (RuntimeException e) {
+      _nextRefreshTime.set(System.currentTimeMillis() + _retryDelayMillis);
+      _refreshing.set(false);
+      throw e;
+    }
+  }
+
+  private synchronized void loadFirst(String[] requiredFiles) {
+    long refreshTime = _nextRefreshTime.get();
+    if (_loaded || refreshTime > System.currentTimeMillis()) {
+      return;
+    }
+    long startTime = System.currentTimeMillis();
+    _requiredFilesLoader.accept(_stdUdf.get(), requiredFiles);
+    recordRefresh(startTime);
+    scheduleNextRefresh(refreshTime);
+    _loaded = true;
+  }
+
+  private void refreshInBackground(String[] requiredFiles, long refreshTime) {
+    boolean refreshed = false;
+    try {
+      long startTime = System.currentTimeMillis();
+      StdUDF stdUdf = _stdUdfSupplier.get();
+      _requiredFilesLoader.accept(stdUdf, requiredFiles);
+      _stdUdf.set(stdUdf);
+      recordRefresh(startTime);
+      scheduleNextRefresh(refreshTime);
+      refreshed = true;
+    } catch (Exception e) {
+      LOG.error(e, "Failed to refresh the required files %s of function %s", Arrays.toString(requiredFiles),
+          _functionName);
+    } finally {
+      // Errors are not caught, but the refresh is still retried if the process survives them
+      if (!refreshed) {
+        _stats.recordFailedRefresh();
+        _nextRefreshTime.set(System.currentTimeMillis() + _retryDelayMillis);
+      }
+      _refreshing.set(false);
+    }
+  }
+
+  private void recordRefresh(long startTime) {
+    long endTime = System.currentTimeMillis();
+    _lastRefreshTimeMillis = endTime;
+    _stats.recordRefresh(startTime, endTime);
+  }
+
+  private void scheduleNextRefresh(long refreshTime) {
+    // Determine how many times the refresh interval needs to be added to go above the current time
+    int refreshIntervalFactor = (int) Math.ceil(
+        (System.currentTimeMillis() - refreshTime) / (double) _refreshIntervalMillis);
+    _nextRefreshTime.set(refreshTime + _refreshIntervalMillis * Math.max(1, refreshIntervalFactor));
+  }
+}
@@ -12,6 +12,7 @@ import com.google.common.primitives.Booleans;
 import com.linkedin.transport.api.StdFactory;
 import com.linkedin.transport.api.data.PlatformData;
 import com.linkedin.transport.api.data.StdData;
+import com.linkedin.transport.api.udf.StdPrimitiveUDF;
 import com.linkedin.transport.api.udf.StdUDF;
 import com.linkedin.transport.api.udf.StdUDF0;
 import com.linkedin.transport.api.udf.StdUDF1;
@@ -23,7 +24,13 @@ import com.linkedin.transport.api.udf.StdUDF6;
 import com.linkedin.transport.api.udf.StdUDF7;
 import com.linkedin.transport.api.udf.StdUDF8;
 import com.linkedin.transport.api.udf.TopLevelStdUDF;
+import com.linkedin.transport.trino.data.TrinoBoolean;
+import com.linkedin.transport.trino.data.TrinoDouble;
+import com.linkedin.transport.trino.data.TrinoFloat;
+import com.linkedin.transport.trino.data.TrinoInteger;
+import com.linkedin.transport.trino.data.TrinoLong;
 import com.linkedin.transport.typesystem.GenericTypeSignatureElement;
+import io.airlift.log.Logger;
 import io.trino.metadata.FunctionArgumentDefinition;
 import io.trino.metadata.FunctionBinding;
 import io.trino.metadata.FunctionDependencies;
@@ -38,36 +45,92 @@ import io.trino.operator.scalar.ScalarFunctionImplementation;
 import io.trino.spi.classloader.ThreadContextClassLoader;
 import io.trino.spi.function.InvocationConvention;
 import io.trino.spi.type.ArrayType;
+import io.trino.spi.type.BigintType;
+import io.trino.spi.type.DoubleType;
 import io.trino.spi.type.IntegerType;
 import io.trino.spi.type.MapType;
+import io.trino.spi.type.RealType;
 import io.trino.spi.type.RowType;
 import io.trino.spi.type.Type;
 import java.lang.invoke.MethodHandle;
+import java.lang.management.ManagementFactory;
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.MethodType;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Random;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
+import javax.management.JMException;
+import javax.management.ObjectName;
 import org.apache.commons.lang3.ClassUtils;
+import org.weakref.jmx.JmxException;
+import org.weakref.jmx.MBeanExporter;
+import org.weakref.jmx.ObjectNames;
 
 import static io.trino.metadata.Signature.*;
 import static io.trino.spi.function.InvocationConvention.InvocationArgumentConvention.*;
+import static io.trino.spi.function.InvocationConvention.InvocationReturnConvention.FAIL_ON_NULL;
 import static io.trino.spi.function.InvocationConvention.InvocationReturnConvention.NULLABLE_RETURN;
 import static io.trino.spi.function.OperatorType.*;
 import static io.trino.sql.analyzer.TypeSignatureTranslator.parseTypeSignature;
 import static io.trino.util.Reflection.*;
+import static java.lang.Float.*;
 
-// Suppressing argument naming convention for the evalInternal methods
-@SuppressWarnings({"checkstyle:regexpsinglelinejava"})
 public abstract class StdUdfWrapper extends SqlScalarFunction {
 
+  private static final Logger LOG = Logger.get(StdUdfWrapper.class);
   private static final int DEFAULT_REFRESH_INTERVAL_DAYS = 1;
   private static final int JITTER_FACTOR = 50;  // to calculate jitter from delay
+  // Numbers the exported stats, as several wrappers of the same class may be registered in the process
+  private static final AtomicLong REQUIRED_FILES_REFRESH_STATS_INSTANCES = new AtomicLong();
+
+  // Indexed by the number of arguments of the UDF
+  private static final Class<?>[] STD_UDF_CLASSES = {StdUDF0.class, StdUDF1.class, StdUDF2.class, StdUDF3.class,
+      StdUDF4.class, StdUDF5.class, StdUDF6.class, StdUDF7.class, StdUDF8.class};
+
+  private static final MethodHandle WRAP =
+      findMethodHandle(true, "wrap", StdData.class, ThreadLocal.class, Object.class);
+  private static final MethodHandle WRAP_INTEGER =
+      findMethodHandle(true, "wrapInteger", StdData.class, ThreadLocal.class, long.class);
+  private static final MethodHandle WRAP_BIGINT =
+      findMethodHandle(true, "wrapBigint", StdData.class, ThreadLocal.class, long.class);
+  private static final MethodHandle WRAP_REAL =
+      findMethodHandle(true, "wrapReal", StdData.class, ThreadLocal.class, long.class);
+  private static final MethodHandle WRAP_DOUBLE =
+      findMethodHandle(true, "wrapDouble", StdData.class, ThreadLocal.class, double.class);
+  private static final MethodHandle WRAP_BOOLEAN =
+      findMethodHandle(true, "wrapBoolean", StdData.class, ThreadLocal.class, boolean.class);
+  private static final MethodHandle UNWRAP_RESULT =
+      findMethodHandle(true, "unwrapResult", Object.class, StdData.class);
+  private static final MethodHandle UNWRAP_INTEGER_RESULT =
+      findMethodHandle(true, "unwrapIntegerResult", Object.class, StdData.class);
+  private static final MethodHandle IS_REFRESH_DUE;
+  private static final MethodHandle REFRESH;
+  private static final MethodHandle GET_STD_UDF;
+
+  static {
+    try {
+      MethodHandles.Lookup lookup = MethodHandles.lookup();
+      IS_REFRESH_DUE = lookup.findVirtual(RequiredFilesRefresher.class, "isRefreshDue",
+          MethodType.methodType(boolean.class));
+      REFRESH = lookup.findVirtual(RequiredFilesRefresher.class, "refresh",
+          MethodType.methodType(void.class, String[].class));
+      GET_STD_UDF = lookup.findVirtual(RequiredFilesRefresher.class, "getStdUdf",
+          MethodType.methodType(StdUDF.class));
+    } catch (ReflectiveOperationException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private final RequiredFilesRefreshStats _requiredFilesRefreshStats = new RequiredFilesRefreshStats();
+  private final AtomicBoolean _requiredFilesRefreshStatsExported = new AtomicBoolean();
+  private volatile ObjectName _requiredFilesRefreshStatsName;
 
   protected StdUdfWrapper(StdUDF stdUDF) {
     super(new FunctionMetadata(
@@ -105,6 +168,39 @@ public abstract class StdUdfWrapper extends SqlScalarFunction {
     return TimeUnit.DAYS.toMillis(DEFAULT_REFRESH_INTERVAL_DAYS);
   }
 
+  /**
+   * Returns the metrics of the loads of the required files of this function, across all its specializations. They are
+   * also exported to the platform MBean server once the function is first specialized, named after the class of the
+   * wrapper and numbered, so that several wrappers of the same class, e.g. of a reloaded plugin, do not collide.
+   */
+  public RequiredFilesRefreshStats getRequiredFilesRefreshStats() {
+    return _requiredFilesRefreshStats;
+  }
+
+  /**
+   * Returns the name the metrics of the loads of the required files are exported under, or null if they are not
+   * exported.
+   */
+  @VisibleForTesting
+  ObjectName getRequiredFilesRefreshStatsName() {
+    return _requiredFilesRefreshStatsName;
+  }
+
+  private void exportRequiredFilesRefreshStats() {
+    String name = ObjectNames.builder(RequiredFilesRefreshStats.class, getClass().getName())
+        .withProperty("instance", String.valueOf(REQUIRED_FILES_REFRESH_STATS_INSTANCES.incrementAndGet()))
+        .build();
+    try {
+      ObjectName objectName = new ObjectName(name);
+      new MBeanExporter(ManagementFactory.getPlatformMBeanServer()).export(objectName, _requiredFilesRefreshStats);
+      _requiredFilesRefreshStatsName = objectName;
+    } catch (JMException | JmxException e) {
+      // The stats remain available through getRequiredFilesRefreshStats(), and never fail the specialization
+      LOG.warn(e, "Failed to export the required files refresh stats of function %s as %s",
+          getFunctionMetadata().getSignature().getName(), name);
+    }
+  }
+
   private void registerNestedDependencies(Type nestedType, FunctionDependencyDeclaration.FunctionDependencyDeclarationBuilder builder) {
     builder.addType(nestedType.getTypeSignature());
 
@@ -137,240 +233,268 @@ public abstract class StdUdfWrapper extends SqlScalarFunction {
     StdFactory stdFactory = new TrinoFactory(functionBinding, functionDependencies);
     StdUDF stdUDF = getStdUDF();
     stdUDF.init(stdFactory);
-    // Subtract a small jitter value so that refresh is triggered on first call
-    // while ensuring subsequent calls do not happen at the same time across workers
-    long initialJitter = getRefreshIntervalMillis() / JITTER_FACTOR;
-    int initialJitterInt = initialJitter > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) initialJitter;
-    AtomicLong requiredFilesNextRefreshTime = new AtomicLong(System.currentTimeMillis()
-        - (new Random()).nextInt(initialJitterInt));
+    RequiredFilesRefresher requiredFilesRefresher = createRequiredFilesRefresher(stdUDF, stdFactory);
     boolean[] nullableArguments = stdUDF.getAndCheckNullableArguments();
 
+    if (stdUDF instanceof StdPrimitiveUDF) {
+      return new ChoicesScalarFunctionImplementation(
+          functionBinding,
+          FAIL_ON_NULL,
+          getNullConventionForArguments(nullableArguments),
+          getPrimitiveMethodHandle(stdUDF, stdFactory, functionBinding, requiredFilesRefresher));
+    }
     return new ChoicesScalarFunctionImplementation(
         functionBinding,
         NULLABLE_RETURN,
         getNullConventionForArguments(nullableArguments),
-        getMethodHandle(stdUDF, functionBinding, nullableArguments, requiredFilesNextRefreshTime));
+        getMethodHandle(stdFactory, functionBinding, nullableArguments, requiredFilesRefresher));
+  }
+
+  private RequiredFilesRefresher createRequiredFilesRefresher(StdUDF stdUDF, StdFactory stdFactory) {
+    // Subtract a small jitter value so that refresh is triggered on first call
+    // while ensuring subsequent calls do not happen at the same time across workers
+    long jitter = getRefreshIntervalMillis() / JITTER_FACTOR;
+    int jitterInt = jitter > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) Math.max(1, jitter);
+    if (_requiredFilesRefreshStatsExported.compareAndSet(false, true)) {
+      exportRequiredFilesRefreshStats();
+    }
+    RequiredFilesRefresher requiredFilesRefresher = new RequiredFilesRefresher(
+        getFunctionMetadata().getSignature().getName(),
+        stdUDF,
+        () -> {
+          StdUDF refreshedStdUDF = getStdUDF();
+          refreshedStdUDF.init(stdFactory);
+          return refreshedStdUDF;
+        },
+        this::processRequiredFiles,
+        getRefreshIntervalMillis(),
+        // Failed refreshes are retried after the jitter delay
+        jitterInt,
+        System.currentTimeMillis() - (new Random()).nextInt(jitterInt),
+        _requiredFilesRefreshStats);
+    _requiredFilesRefreshStats.addRefresher(requiredFilesRefresher);
+    return requiredFilesRefresher;
   }
 
-  private MethodHandle getMethodHandle(StdUDF stdUDF, FunctionBinding functionBinding, boolean[] nullableArguments,
-      AtomicLong requiredFilesNextRefreshTime) {
+  /**
+   * Builds the MethodHandle Trino invokes for every row. The whole invocation chain is bound here, once per
+   * specialization: each argument is unwrapped into its reusable {@link StdData}, the required files are refreshed when
+   * due, and the eval method of the {@link StdUDF} arity is called directly on the current instance of the UDF before
+   * its result is unwrapped. No argument arrays are created and no dispatching on the arity or argument types happens
+   * per row.
+   */
+  private MethodHandle getMethodHandle(StdFactory stdFactory, FunctionBinding functionBinding,
+      boolean[] nullableArguments, RequiredFilesRefresher requiredFilesRefresher) {
     Type[] inputTypes = functionBinding.getBoundSignature().getArgumentTypes().toArray(new Type[0]);
     Type outputType = functionBinding.getBoundSignature().getReturnType();
-
-    // Generic MethodHandle for eval where all arguments are of type Object
-    Class<?>[] genericMethodHandleArgumentTypes = getMethodHandleArgumentTypes(inputTypes, nullableArguments, true);
-    MethodHandle genericMethodHandle =
-        methodHandle(StdUdfWrapper.class, "evalInternal", genericMethodHandleArgumentTypes).bindTo(this);
-
-    Class<?>[] specificMethodHandleArgumentTypes = getMethodHandleArgumentTypes(inputTypes, nullableArguments, false);
-    Class<?> specificMethodHandleReturnType = getJavaTypeForNullability(outputType, true);
-    MethodType specificMethodType =
-        MethodType.methodType(specificMethodHandleReturnType, specificMethodHandleArgumentTypes);
-
-    // Specific MethodHandle required by trino where argument types map to the type signature
-    MethodHandle specificMethodHandle = MethodHandles.explicitCastArguments(genericMethodHandle, specificMethodType);
-    return MethodHandles.insertArguments(specificMethodHandle, 0, stdUDF, inputTypes,
-        outputType instanceof IntegerType, requiredFilesNextRefreshTime);
+    if (inputTypes.length >= STD_UDF_CLASSES.length) {
+      throw new RuntimeException("eval not supported yet for StdUDF" + inputTypes.length);
+    }
+    Class<?> stdUdfClass = STD_UDF_CLASSES[inputTypes.length];
+    Class<?>[] stdDataTypes = new Class<?>[inputTypes.length];
+    Arrays.fill(stdDataTypes, StdData.class);
+
+    // (StdData...) -> StdData
+    MethodHandle eval = bindToCurrentStdUdf(methodHandle(stdUdfClass, "eval", stdDataTypes), stdUdfClass,
+        requiredFilesRefresher);
+    // (StdData...) -> void
+    MethodHandle refreshRequiredFilesIfDue = ifRefreshDue(
+        getRefreshRequiredFiles(stdUdfClass, stdDataTypes, requiredFilesRefresher), requiredFilesRefresher);
+    MethodHandle methodHandle = MethodHandles.foldArguments(eval, refreshRequiredFilesIfDue);
+
+    // (Trino argument types...) -> Trino return type
+    MethodHandle[] argumentWrappers = new MethodHandle[inputTypes.length];
+    Class<?>[] argumentTypes = new Class<?>[inputTypes.length];
+    for (int i = 0; i < inputTypes.length; i++) {
+      argumentWrappers[i] = getArgumentWrapper(inputTypes[i], nullableArguments[i], stdFactory);
+      argumentTypes[i] = getJavaTypeForNullability(inputTypes[i], nullableArguments[i]);
+    }
+    methodHandle = MethodHandles.filterArguments(methodHandle, 0, argumentWrappers);
+    methodHandle = MethodHandles.filterReturnValue(methodHandle,
+        outputType instanceof IntegerType ? UNWRAP_INTEGER_RESULT : UNWRAP_RESULT);
+    return methodHandle.asType(MethodType.methodType(getJavaTypeForNullability(outputType, true), argumentTypes));
   }
 
-  private List<InvocationConvention.InvocationArgumentConvention> getNullConventionForArguments(
-      boolean[] nullableArguments) {
-    return IntStream.range(0, nullableArguments.length)
-        .mapToObj(idx -> nullableArguments[idx] ? BOXED_NULLABLE : NEVER_NULL)
-        .collect(Collectors.toList());
+  /**
+   * Builds the MethodHandle for a {@link StdPrimitiveUDF}. The primitive eval method of the UDF is called directly with
+   * the native Trino values of the arguments, and its primitive result is returned as is. Arguments are only wrapped
+   * into {@link StdData}s to compute the required files when a refresh is due.
+   */
+  private MethodHandle getPrimitiveMethodHandle(StdUDF stdUDF, StdFactory stdFactory, FunctionBinding functionBinding,
+      RequiredFilesRefresher requiredFilesRefresher) {
+    Type[] inputTypes = functionBinding.getBoundSignature().getArgumentTypes().toArray(new Type[0]);
+    Type outputType = functionBinding.getBoundSignature().getReturnType();
+    Class<?> stdUdfClass = STD_UDF_CLASSES[inputTypes.length];
+    Class<?>[] stdDataTypes = new Class<?>[inputTypes.length];
+    Arrays.fill(stdDataTypes, StdData.class);
+
+    // (primitive...) -> primitive
+    MethodHandle primitiveEval = ((StdPrimitiveUDF) stdUDF).getPrimitiveEval();
+    MethodHandle eval = bindToCurrentStdUdf(primitiveEval, primitiveEval.type().parameterType(0),
+        requiredFilesRefresher);
+    MethodHandle[] argumentWrappers = new MethodHandle[inputTypes.length];
+    Class<?>[] argumentTypes = new Class<?>[inputTypes.length];
+    for (int i = 0; i < inputTypes.length; i++) {
+      argumentWrappers[i] = getArgumentWrapper(inputTypes[i], false, stdFactory);
+      argumentTypes[i] = inputTypes[i].getJavaType();
+    }
+    // (Trino argument types...) -> Trino return type, narrowing integers from long to int and widening them back
+    MethodType methodType = MethodType.methodType(outputType.getJavaType(), argumentTypes);
+    MethodHandle methodHandle = MethodHandles.explicitCastArguments(eval, methodType);
+    // (Trino argument types...) -> void
+    MethodHandle refreshRequiredFilesIfDue = ifRefreshDue(
+        MethodHandles.filterArguments(
+            getRefreshRequiredFiles(stdUdfClass, stdDataTypes, requiredFilesRefresher),
+            0, argumentWrappers),
+        requiredFilesRefresher);
+    return MethodHandles.foldArguments(methodHandle, refreshRequiredFilesIfDue);
   }
 
-  private StdData[] wrapArguments(StdUDF stdUDF, Type[] types, Object[] arguments) {
-    StdFactory stdFactory = stdUDF.getStdFactory();
-    StdData[] stdData = new StdData[arguments.length];
-    // TODO: Reuse wrapper objects by creating them once upon initialization and reuse them here
-    // along the same lines of what we do in Hive implementation.
-    // JIRA: https://jira01.corp.linkedin.com:8443/browse/LIHADOOP-34894
-    for (int i = 0; i < stdData.length; i++) {
-      stdData[i] = TrinoWrapper.createStdData(arguments[i], types[i], stdFactory);
-    }
-    return stdData;
+  /**
+   * Binds the receiver of a method of the {@link StdUDF} to the instance whose required files are the most recently
+   * loaded, which is looked up on every invocation.
+   */
+  private static MethodHandle bindToCurrentStdUdf(MethodHandle stdUdfMethod, Class<?> stdUdfClass,
+      RequiredFilesRefresher requiredFilesRefresher) {
+    return MethodHandles.foldArguments(stdUdfMethod,
+        GET_STD_UDF.bindTo(requiredFilesRefresher).asType(MethodType.methodType(stdUdfClass)));
   }
 
-  protected Object eval(StdUDF stdUDF, Type[] types, boolean isIntegerReturnType,
-      AtomicLong requiredFilesNextRefreshTime, Object... arguments) {
-    StdData[] args = wrapArguments(stdUDF, types, arguments);
-    if (requiredFilesNextRefreshTime.get() <= System.currentTimeMillis()) {
-      String[] requiredFiles = getRequiredFiles(stdUDF, args);
-      processRequiredFiles(stdUDF, requiredFiles, requiredFilesNextRefreshTime);
-    }
-    StdData result;
-    switch (args.length) {
-      case 0:
-        result = ((StdUDF0) stdUDF).eval();
-        break;
-      case 1:
-        result = ((StdUDF1) stdUDF).eval(args[0]);
-        break;
-      case 2:
-        result = ((StdUDF2) stdUDF).eval(args[0], args[1]);
-        break;
-      case 3:
-        result = ((StdUDF3) stdUDF).eval(args[0], args[1], args[2]);
-        break;
-      case 4:
-        result = ((StdUDF4) stdUDF).eval(args[0], args[1], args[2], args[3]);
-        break;
-      case 5:
-        result = ((StdUDF5) stdUDF).eval(args[0], args[1], args[2], args[3], args[4]);
-        break;
-      case 6:
-        result = ((StdUDF6) stdUDF).eval(args[0], args[1], args[2], args[3], args[4], args[5]);
-        break;
-      case 7:
-        result = ((StdUDF7) stdUDF).eval(args[0], args[1], args[2], args[3], args[4], args[5], args[6]);
-        break;
-      case 8:
-        result = ((StdUDF8) stdUDF).eval(args[0], args[1], args[2], args[3], args[4], args[5], args[6], args[7]);
-        break;
-      default:
-        throw new RuntimeException("eval not supported yet for StdUDF" + args.length);
-    }
-    if (result == null) {
-      return null;
-    } else if (isIntegerReturnType) {
-      return ((Number) ((PlatformData) result).getUnderlyingData()).longValue();
-    } else {
-      return ((PlatformData) result).getUnderlyingData();
-    }
+  /**
+   * Returns a MethodHandle that computes the required files of the {@link StdUDF} from its wrapped arguments and
+   * refreshes them.
+   */
+  private static MethodHandle getRefreshRequiredFiles(Class<?> stdUdfClass, Class<?>[] stdDataTypes,
+      RequiredFilesRefresher requiredFilesRefresher) {
+    return MethodHandles.filterReturnValue(
+        bindToCurrentStdUdf(methodHandle(stdUdfClass, "getRequiredFiles", stdDataTypes), stdUdfClass,
+            requiredFilesRefresher),
+        REFRESH.bindTo(requiredFilesRefresher));
   }
 
-  private String[] getRequiredFiles(StdUDF stdUDF, StdData[] args) {
-    String[] requiredFiles;
-    switch (args.length) {
-      case 0:
-        requiredFiles = ((StdUDF0) stdUDF).getRequiredFiles();
-        break;
-      case 1:
-        requiredFiles = ((StdUDF1) stdUDF).getRequiredFiles(args[0]);
-        break;
-      case 2:
-        requiredFiles = ((StdUDF2) stdUDF).getRequiredFiles(args[0], args[1]);
-        break;
-      case 3:
-        requiredFiles = ((StdUDF3) stdUDF).getRequiredFiles(args[0], args[1], args[2]);
-        break;
-      case 4:
-        requiredFiles = ((StdUDF4) stdUDF).getRequiredFiles(args[0], args[1], args[2], args[3]);
-        break;
-      case 5:
-        requiredFiles = ((StdUDF5) stdUDF).getRequiredFiles(args[0], args[1], args[2], args[3], args[4]);
-        break;
-      case 6:
-        requiredFiles = ((StdUDF6) stdUDF).getRequiredFiles(args[0], args[1], args[2], args[3], args[4], args[5]);
-        break;
-      case 7:
-        requiredFiles = ((StdUDF7) stdUDF).getRequiredFiles(args[0], args[1], args[2], args[3], args[4], args[5],
-            args[6]);
-        break;
-      case 8:
-        requiredFiles = ((StdUDF8) stdUDF).getRequiredFiles(args[0], args[1], args[2], args[3], args[4], args[5],
-            args[6], args[7]);
-        break;
-      default:
-        throw new RuntimeException("getRequiredFiles not supported yet for StdUDF" + args.length);
-    }
-    return requiredFiles;
+  private static MethodHandle ifRefreshDue(MethodHandle refreshRequiredFiles,
+      RequiredFilesRefresher requiredFilesRefresher) {
+    return MethodHandles.guardWithTest(
+        IS_REFRESH_DUE.bindTo(requiredFilesRefresher),
+        refreshRequiredFiles,
+        MethodHandles.empty(refreshRequiredFiles.type()));
   }
 
-  private synchronized void processRequiredFiles(StdUDF stdUDF, String[] requiredFiles,
-      AtomicLong requiredFilesNextRefreshTime) {
-    if (requiredFilesNextRefreshTime.get() <= System.currentTimeMillis()) {
-      try (ThreadContextClassLoader ignored = new ThreadContextClassLoader(getClass().getClassLoader())) {
-        String[] copiedFiles = new String[requiredFiles.length];
-        FileSystemClient client = new FileSystemClient();
-        for (int i = 0; i < requiredFiles.length; i++) {
-          String localFilename = client.copyToLocalFile(requiredFiles[i]);
-          copiedFiles[i] = localFilename;
-        }
-        stdUDF.processRequiredFiles(copiedFiles);
-        // Determine how many times _refreshIntervalMillis needs to be added to go above currentTimeMillis
-        int refreshIntervalFactor = (int) Math.ceil(
-            (System.currentTimeMillis() - requiredFilesNextRefreshTime.get()) / (double) getRefreshIntervalMillis());
-        requiredFilesNextRefreshTime.getAndAdd(getRefreshIntervalMillis() * Math.max(1, refreshIntervalFactor));
+  /**
+   * Returns a MethodHandle that rebinds a reusable {@link StdData} to the Trino value of an argument. Trino evaluates
+   * the same specialization from multiple driver threads, so every thread gets its own wrapper. Non-nullable
+   * primitive arguments are passed to the wrapper without boxing.
+   */
+  private static MethodHandle getArgumentWrapper(Type type, boolean nullable, StdFactory stdFactory) {
+    ThreadLocal<StdData> wrapper = ThreadLocal.withInitial(() -> TrinoWrapper.createEmptyStdData(type, stdFactory));
+    MethodHandle wrap = WRAP;
+    if (!nullable) {
+      if (type instanceof IntegerType) {
+        wrap = WRAP_INTEGER;
+      } else if (type instanceof BigintType) {
+        wrap = WRAP_BIGINT;
+      } else if (type instanceof RealType) {
+        wrap = WRAP_REAL;
+      } else if (type instanceof DoubleType) {
+        wrap = WRAP_DOUBLE;
+      } else if (type.getJavaType() == boolean.class) {
+        wrap = WRAP_BOOLEAN;
       }
     }
+    return wrap.bindTo(wrapper);
   }
 
-  private Class getJavaTypeForNullability(Type trinoType, boolean nullableArgument) {
-    if (nullableArgument) {
-      return ClassUtils.primitiveToWrapper(trinoType.getJavaType());
-    } else {
-      return trinoType.getJavaType();
-    }
+  private List<InvocationConvention.InvocationArgumentConvention> getNullConventionForArguments(
+      boolean[] nullableArguments) {
+    return IntStream.range(0, nullableArguments.length)
+        .mapToObj(idx -> nullableArguments[idx] ? BOXED_NULLABLE : NEVER_NULL)
+        .collect(Collectors.toList());
   }
 
-  private Class<?>[] getMethodHandleArgumentTypes(Type[] argTypes, boolean[] nullableArguments,
-      boolean useObjectForArgumentType) {
-    Class<?>[] methodHandleArgumentTypes = new Class<?>[argTypes.length + 4];
-    methodHandleArgumentTypes[0] = StdUDF.class;
-    methodHandleArgumentTypes[1] = Type[].class;
-    methodHandleArgumentTypes[2] = boolean.class;
-    methodHandleArgumentTypes[3] = AtomicLong.class;
-    for (int i = 0; i < argTypes.length; i++) {
-      if (useObjectForArgumentType) {
-        methodHandleArgumentTypes[i + 4] = Object.class;
-      } else {
-        methodHandleArgumentTypes[i + 4] = getJavaTypeForNullability(argTypes[i], nullableArguments[i]);
-      }
+  private static StdData wrap(ThreadLocal<StdData> wrapper, Object value) {
+    if (value == null) {
+      return null;
     }
-    return methodHandleArgumentTypes;
+    StdData stdData = wrapper.get();
+    ((PlatformData) stdData).setUnderlyingData(value);
+    return stdData;
   }
 
-  protected abstract StdUDF getStdUDF();
+  private static StdData wrapInteger(ThreadLocal<StdData> wrapper, long value) {
+    TrinoInteger stdData = (TrinoInteger) wrapper.get();
+    stdData.set((int) value);
+    return stdData;
+  }
 
-  public Object evalInternal(StdUDF stdUDF, Type[] types, boolean isIntegerReturnType,
-      AtomicLong requiredFilesNextRefreshTime) {
-    return eval(stdUDF, types, isIntegerReturnType, requiredFilesNextRefreshTime);
+  private static StdData wrapBigint(ThreadLocal<StdData> wrapper, long value) {
+    TrinoLong stdData = (TrinoLong) wrapper.get();
+    stdData.set(value);
+    return stdData;
   }
 
-  public Object evalInternal(StdUDF stdUDF, Type[] types, boolean isIntegerReturnType,
-      AtomicLong requiredFilesNextRefreshTime, Object arg1) {
-    return eval(stdUDF, types, isIntegerReturnType, requiredFilesNextRefreshTime, arg1);
+  private static StdData wrapReal(ThreadLocal<StdData> wrapper, long value) {
+    // Trino represents SQL Reals as the int bits of the float stored in a long
+    TrinoFloat stdData = (TrinoFloat) wrapper.get();
+    stdData.set(intBitsToFloat((int) value));
+    return stdData;
   }
 
-  public Object evalInternal(StdUDF stdUDF, Type[] types, boolean isIntegerReturnType,
-      AtomicLong requiredFilesNextRefreshTime, Object arg1, Object arg2) {
-    return eval(stdUDF, types, isIntegerReturnType, requiredFilesNextRefreshTime, arg1, arg2);
+  private static StdData wrapDouble(ThreadLocal<StdData> wrapper, double value) {
+    TrinoDouble stdData = (TrinoDouble) wrapper.get();
+    stdData.set(value);
+    return stdData;
   }
 
-  public Object evalInternal(StdUDF stdUDF, Type[] types, boolean isIntegerReturnType,
-      AtomicLong requiredFilesNextRefreshTime, Object arg1, Object arg2, Object arg3) {
-    return eval(stdUDF, types, isIntegerReturnType, requiredFilesNextRefreshTime, arg1, arg2, arg3);
+  private static StdData wrapBoolean(ThreadLocal<StdData> wrapper, boolean value) {
+    TrinoBoolean stdData = (TrinoBoolean) wrapper.get();
+    stdData.set(value);
+    return stdData;
   }
 
-  public Object evalInternal(StdUDF stdUDF, Type[] types, boolean isIntegerReturnType,
-      AtomicLong requiredFilesNextRefreshTime, Object arg1, Object arg2, Object arg3, Object arg4) {
-    return eval(stdUDF, types, isIntegerReturnType, requiredFilesNextRefreshTime, arg1, arg2, arg3, arg4);
+  private static Object unwrapResult(StdData result) {
+    return result == null ? null : ((PlatformData) result).getUnderlyingData();
   }
 
-  public Object evalInternal(StdUDF stdUDF, Type[] types, boolean isIntegerReturnType,
-      AtomicLong requiredFilesNextRefreshTime, Object arg1, Object arg2, Object arg3, Object arg4, Object arg5) {
-    return eval(stdUDF, types, isIntegerReturnType, requiredFilesNextRefreshTime, arg1, arg2, arg3, arg4, arg5);
+  private static Object unwrapIntegerResult(StdData result) {
+    return result == null ? null : ((Number) ((PlatformData) result).getUnderlyingData()).longValue();
   }
 
-  public Object evalInternal(StdUDF stdUDF, Type[] types, boolean isIntegerReturnType,
-      AtomicLong requiredFilesNextRefreshTime, Object arg1, Object arg2, Object arg3, Object arg4, Object arg5,
-      Object arg6) {
-    return eval(stdUDF, types, isIntegerReturnType, requiredFilesNextRefreshTime, arg1, arg2, arg3, arg4, arg5, arg6);
+  /**
+   * Copies the required files to the local file system and processes them with the given instance of the UDF. It is
+   * called by a {@link RequiredFilesRefresher}, either on a query thread for the first load or on a background thread.
+   * Specializations load their required files independently, and the local file cache downloads a file shared by
+   * several of them only once.
+   */
+  private void processRequiredFiles(StdUDF stdUDF, String[] requiredFiles) {
+    try (ThreadContextClassLoader ignored = new ThreadContextClassLoader(getClass().getClassLoader())) {
+      String[] copiedFiles = new String[requiredFiles.length];
+      FileSystemClient client = new FileSystemClient();
+      for (int i = 0; i < requiredFiles.length; i++) {
+        String localFilename = client.copyToLocalFile(requiredFiles[i]);
+        copiedFiles[i] = localFilename;
+      }
+      stdUDF.processRequiredFiles(copiedFiles);
+    }
   }
 
-  public Object evalInternal(StdUDF stdUDF, Type[] types, boolean isIntegerReturnType,
-      AtomicLong requiredFilesNextRefreshTime, Object arg1, Object arg2, Object arg3, Object arg4, Object arg5,
-      Object arg6, Object arg7) {
-    return eval(stdUDF, types, isIntegerReturnType, requiredFilesNextRefreshTime, arg1, arg2, arg3, arg4, arg5, arg6,
-        arg7);
+  private Class getJavaTypeForNullability(Type trinoType, boolean nullableArgument) {
+    if (nullableArgument) {
+      return ClassUtils.primitiveToWrapper(trinoType.getJavaType());
+    } else {
+      return trinoType.getJavaType();
+    }
   }
 
-  public Object evalInternal(StdUDF stdUDF, Type[] types, boolean isIntegerReturnType,
-      AtomicLong requiredFilesNextRefreshTime, Object arg1, Object arg2, Object arg3, Object arg4, Object arg5,
-      Object arg6, Object arg7, Object arg8) {
-    return eval(stdUDF, types, isIntegerReturnType, requiredFilesNextRefreshTime, arg1, arg2, arg3, arg4, arg5, arg6,
-        arg7, arg8);
+  protected abstract StdUDF getStdUDF();
+
+  private static MethodHandle findMethodHandle(boolean isStatic, String name, Class<?> returnType,
+      Class<?>... parameterTypes) {
+    MethodType methodType = MethodType.methodType(returnType, parameterTypes);
+    try {
+      return isStatic ? MethodHandles.lookup().findStatic(StdUdfWrapper.class, name, methodType)
+          : MethodHandles.lookup().findVirtual(StdUdfWrapper.class, name, methodType);
+    } catch (ReflectiveOperationException e) {
+      throw new RuntimeException(e);
+    }
   }
 }
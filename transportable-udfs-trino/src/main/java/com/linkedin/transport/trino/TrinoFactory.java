@@ -29,6 +29,7 @@ import com.linkedin.transport.trino.data.TrinoLong;
 import com.linkedin.transport.trino.data.TrinoMap;
 import com.linkedin.transport.trino.data.TrinoString;
 import com.linkedin.transport.trino.data.TrinoStruct;
+import com.linkedin.transport.typesystem.StdTypeCache;
 import io.airlift.slice.Slices;
 import io.trino.metadata.FunctionBinding;
 import io.trino.metadata.FunctionDependencies;
@@ -40,6 +41,7 @@ import io.trino.spi.type.ArrayType;
 import io.trino.spi.type.MapType;
 import io.trino.spi.type.RowType;
 import io.trino.spi.type.Type;
+import io.trino.spi.type.TypeSignature;
 import java.lang.invoke.MethodHandle;
 import java.nio.ByteBuffer;
 import java.util.List;
@@ -54,6 +56,7 @@ public class TrinoFactory implements StdFactory {
   final FunctionBinding functionBinding;
   final FunctionDependencies functionDependencies;
   final Metadata metadata;
+  final StdTypeCache stdTypeCache = new StdTypeCache();
 
   public TrinoFactory(FunctionBinding functionBinding, FunctionDependencies functionDependencies) {
     this.functionBinding = functionBinding;
@@ -137,12 +140,11 @@ public class TrinoFactory implements StdFactory {
 
   @Override
   public StdType createStdType(String typeSignature) {
-    if (metadata != null) {
+    return stdTypeCache.get(typeSignature, s -> {
+      TypeSignature boundSignature = applyBoundVariables(parseTypeSignature(s, ImmutableSet.of()), functionBinding);
       return TrinoWrapper.createStdType(
-          metadata.getType(applyBoundVariables(parseTypeSignature(typeSignature, ImmutableSet.of()), functionBinding)));
-    }
-    return TrinoWrapper.createStdType(
-          functionDependencies.getType(applyBoundVariables(parseTypeSignature(typeSignature, ImmutableSet.of()), functionBinding)));
+          metadata != null ? metadata.getType(boundSignature) : functionDependencies.getType(boundSignature));
+    });
   }
 
   public MethodHandle getOperatorHandle(
@@ -6,6 +6,7 @@
 package com.linkedin.transport.trino;
 
 import com.linkedin.transport.api.StdFactory;
+import com.linkedin.transport.api.data.PlatformData;
 import com.linkedin.transport.api.data.StdData;
 import com.linkedin.transport.api.types.StdType;
 import com.linkedin.transport.trino.data.TrinoArray;
@@ -62,9 +63,9 @@ public final class TrinoWrapper {
     }
     if (trinoType instanceof IntegerType) {
       // Trino represents SQL Integers (i.e., corresponding to IntegerType above) as long or Long
-      // Therefore, to pass it to the TrinoInteger class, we first cast it to Long, then extract
-      // the int value.
-      return new TrinoInteger(((Long) trinoData).intValue());
+      // Therefore, to pass it to the TrinoInteger class, we first cast it to Number (it is an Integer
+      // when it comes from TrinoInteger.getUnderlyingData()), then extract the int value.
+      return new TrinoInteger(((Number) trinoData).intValue());
     } else if (trinoType instanceof BigintType) {
       return new TrinoLong((long) trinoData);
     } else if (trinoType.getJavaType() == boolean.class) {
@@ -99,6 +100,36 @@ public final class TrinoWrapper {
     return null;
   }
 
+  /**
+   * Creates a {@link StdData} wrapper for the given Trino type that is not yet bound to any value. The wrapper is meant
+   * to be created once and then rebound to every new value using {@link PlatformData#setUnderlyingData(Object)}.
+   */
+  public static StdData createEmptyStdData(Type trinoType, StdFactory stdFactory) {
+    if (trinoType instanceof IntegerType) {
+      return new TrinoInteger(0);
+    } else if (trinoType instanceof BigintType) {
+      return new TrinoLong(0);
+    } else if (trinoType.getJavaType() == boolean.class) {
+      return new TrinoBoolean(false);
+    } else if (trinoType instanceof VarcharType) {
+      return new TrinoString(null);
+    } else if (trinoType instanceof RealType) {
+      return new TrinoFloat(0);
+    } else if (trinoType instanceof DoubleType) {
+      return new TrinoDouble(0);
+    } else if (trinoType instanceof VarbinaryType) {
+      return new TrinoBinary(null);
+    } else if (trinoType instanceof ArrayType) {
+      return new TrinoArray(null, (ArrayType) trinoType, stdFactory);
+    } else if (trinoType instanceof MapType) {
+      return new TrinoMap(null, trinoType, stdFactory);
+    } else if (trinoType instanceof RowType) {
+      return new TrinoStruct(null, trinoType, stdFactory);
+    }
+    assert false : "Unrecognized Trino Type: " + trinoType.getClass();
+    return null;
+  }
+
   public static StdType createStdType(Object trinoType) {
     if (trinoType instanceof IntegerType) {
       return new TrinoIntegerType((IntegerType) trinoType);
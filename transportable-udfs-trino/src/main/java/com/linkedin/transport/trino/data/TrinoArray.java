@@ -72,6 +72,7 @@ public class TrinoArray extends TrinoData implements StdArray {
   @Override
   public void setUnderlyingData(Object value) {
     _block = (Block) value;
+    _mutable = null;
   }
 
   @Override
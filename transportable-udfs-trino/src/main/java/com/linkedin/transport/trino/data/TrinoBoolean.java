@@ -24,6 +24,10 @@ public class TrinoBoolean extends TrinoData implements StdBoolean {
     return _value;
   }
 
+  public void set(boolean value) {
+    _value = value;
+  }
+
   @Override
   public Object getUnderlyingData() {
     return _value;
@@ -24,6 +24,10 @@ public class TrinoDouble extends TrinoData implements StdDouble {
     return _double;
   }
 
+  public void set(double value) {
+    _double = value;
+  }
+
   @Override
   public Object getUnderlyingData() {
     return _double;
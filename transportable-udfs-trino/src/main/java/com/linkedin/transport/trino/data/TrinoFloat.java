@@ -24,6 +24,10 @@ public class TrinoFloat extends TrinoData implements StdFloat {
     return _float;
   }
 
+  public void set(float value) {
+    _float = value;
+  }
+
   @Override
   public Object getUnderlyingData() {
     return (long) floatToIntBits(_float);
@@ -31,7 +35,8 @@ public class TrinoFloat extends TrinoData implements StdFloat {
 
   @Override
   public void setUnderlyingData(Object value) {
-    _float = (float) value;
+    // Trino represents SQL Reals as the int bits of the float stored in a long
+    _float = intBitsToFloat(((Long) value).intValue());
   }
 
   @Override
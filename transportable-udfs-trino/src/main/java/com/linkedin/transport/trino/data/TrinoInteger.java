@@ -24,6 +24,10 @@ public class TrinoInteger extends TrinoData implements StdInteger {
     return _integer;
   }
 
+  public void set(int value) {
+    _integer = value;
+  }
+
   @Override
   public Object getUnderlyingData() {
     return _integer;
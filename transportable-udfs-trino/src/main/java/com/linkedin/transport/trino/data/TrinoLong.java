@@ -24,6 +24,10 @@ public class TrinoLong extends TrinoData implements StdLong {
     return _value;
   }
 
+  public void set(long value) {
+    _value = value;
+  }
+
   @Override
   public Object getUnderlyingData() {
     return _value;
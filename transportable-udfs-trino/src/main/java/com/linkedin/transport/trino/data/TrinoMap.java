@@ -17,12 +17,14 @@ import io.trino.spi.TrinoException;
 import io.trino.spi.block.Block;
 import io.trino.spi.block.BlockBuilder;
 import io.trino.spi.block.PageBuilderStatus;
+import io.trino.spi.block.SingleMapBlock;
 import io.trino.spi.function.OperatorType;
 import io.trino.spi.type.MapType;
 import io.trino.spi.type.Type;
 import java.lang.invoke.MethodHandle;
 import java.util.AbstractCollection;
 import java.util.AbstractSet;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.Set;
@@ -36,6 +38,8 @@ import static io.trino.spi.type.TypeUtils.*;
 
 public class TrinoMap extends TrinoData implements StdMap {
 
+  static final int INITIAL_ENTRIES = 16;
+
   final Type _keyType;
   final Type _valueType;
   final Type _mapType;
@@ -43,11 +47,25 @@ public class TrinoMap extends TrinoData implements StdMap {
   final StdFactory _stdFactory;
   Block _block;
 
+  // While the map is being built through put(), entries are buffered in the builders below and the map Block is only
+  // materialized once it is read through getUnderlyingData() or writeToBlock(). Keys are unique in _keyBuilder; the
+  // value of the i-th key is at position _valuePositions[i] of _valueBuilder since updates append the new value. Values
+  // replaced by updates are dropped by compacting _valueBuilder once they outnumber the entries.
+  BlockBuilder _keyBuilder;
+  BlockBuilder _valueBuilder;
+  int[] _valuePositions;
+  long[] _keyHashes;
+  int[] _hashTable;
+  int _entryCount;
+  int _replacedValueCount;
+
   public TrinoMap(Type mapType, StdFactory stdFactory) {
-    BlockBuilder mutable = mapType.createBlockBuilder(new PageBuilderStatus().createBlockBuilderStatus(), 1);
-    mutable.beginBlockEntry();
-    mutable.closeEntry();
-    _block = ((MapType) mapType).getObject(mutable.build(), 0);
+    this(null, mapType, stdFactory);
+    startBuilding(INITIAL_ENTRIES);
+  }
+
+  public TrinoMap(Block block, Type mapType, StdFactory stdFactory) {
+    _block = block;
 
     _keyType = ((MapType) mapType).getKeyType();
     _valueType = ((MapType) mapType).getValueType();
@@ -58,56 +76,55 @@ public class TrinoMap extends TrinoData implements StdMap {
         OperatorType.EQUAL, ImmutableList.of(_keyType, _keyType), simpleConvention(NULLABLE_RETURN, NEVER_NULL, NEVER_NULL));
   }
 
-  public TrinoMap(Block block, Type mapType, StdFactory stdFactory) {
-    this(mapType, stdFactory);
-    _block = block;
-  }
-
   @Override
   public int size() {
-    return _block.getPositionCount() / 2;
+    return isBuilding() ? _entryCount : _block.getPositionCount() / 2;
   }
 
   @Override
   public StdData get(StdData key) {
     Object trinoKey = ((PlatformData) key).getUnderlyingData();
-    int i = seekKey(trinoKey);
-    if (i != -1) {
-      Object value = readNativeValue(_valueType, _block, i);
-      StdData stdValue = TrinoWrapper.createStdData(value, _valueType, _stdFactory);
-      return stdValue;
+    Object value;
+    if (isBuilding()) {
+      int entry = findEntry(trinoKey, hashKey(trinoKey));
+      if (entry == -1) {
+        return null;
+      }
+      value = readNativeValue(_valueType, _valueBuilder, _valuePositions[entry]);
     } else {
-      return null;
+      int i = seekKey(trinoKey);
+      if (i == -1) {
+        return null;
+      }
+      value = readNativeValue(_valueType, _block, i);
     }
+    return TrinoWrapper.createStdData(value, _valueType, _stdFactory);
   }
 
-  // TODO: Do not copy the _mutable BlockBuilder on every update. As long as updates are append-only or for fixed-size
-  // types, we can skip copying.
   @Override
   public void put(StdData key, StdData value) {
-    BlockBuilder mutable = _mapType.createBlockBuilder(new PageBuilderStatus().createBlockBuilderStatus(), 1);
-    BlockBuilder entryBuilder = mutable.beginBlockEntry();
+    if (!isBuilding()) {
+      startBuilding(size() + 1);
+    }
     Object trinoKey = ((PlatformData) key).getUnderlyingData();
-    int valuePosition = seekKey(trinoKey);
-    for (int i = 0; i < _block.getPositionCount(); i += 2) {
-      // Write the current key to the map
-      _keyType.appendTo(_block, i, entryBuilder);
-      // Find out if we need to change the corresponding value
-      if (i == valuePosition - 1) {
-        // Use the user-supplied value
-        ((TrinoData) value).writeToBlock(entryBuilder);
-      } else {
-        // Use the existing value in original _block
-        _valueType.appendTo(_block, i + 1, entryBuilder);
-      }
+    long hash = hashKey(trinoKey);
+    int entry = findEntry(trinoKey, hash);
+    if (entry == -1) {
+      ensureCapacity(_entryCount + 1);
+      entry = _entryCount++;
+      ((TrinoData) key).writeToBlock(_keyBuilder);
+      _keyHashes[entry] = hash;
+      insertIntoHashTable(entry);
+    } else if (++_replacedValueCount > Math.max(_entryCount, INITIAL_ENTRIES)) {
+      compactValues();
     }
-    if (valuePosition == -1) {
-      ((TrinoData) key).writeToBlock(entryBuilder);
-      ((TrinoData) value).writeToBlock(entryBuilder);
+    // Values of duplicate keys are appended as well; the entry is pointed to the latest one
+    _valuePositions[entry] = _valueBuilder.getPositionCount();
+    if (value == null) {
+      _valueBuilder.appendNull();
+    } else {
+      ((TrinoData) value).writeToBlock(_valueBuilder);
     }
-
-    mutable.closeEntry();
-    _block = ((MapType) _mapType).getObject(mutable.build(), 0);
   }
 
   public Set<StdData> keySet() {
@@ -115,17 +132,19 @@ public class TrinoMap extends TrinoData implements StdMap {
       @Override
       public Iterator<StdData> iterator() {
         return new Iterator<StdData>() {
-          int i = -2;
+          int i = -1;
 
           @Override
           public boolean hasNext() {
-            return !(i + 2 == size() * 2);
+            return i + 1 < size();
           }
 
           @Override
           public StdData next() {
-            i += 2;
-            return TrinoWrapper.createStdData(readNativeValue(_keyType, _block, i), _keyType, _stdFactory);
+            i++;
+            Object key = isBuilding() ? readNativeValue(_keyType, _keyBuilder, i)
+                : readNativeValue(_keyType, _block, 2 * i);
+            return TrinoWrapper.createStdData(key, _keyType, _stdFactory);
           }
         };
       }
@@ -144,17 +163,19 @@ public class TrinoMap extends TrinoData implements StdMap {
       @Override
       public Iterator<StdData> iterator() {
         return new Iterator<StdData>() {
-          int i = -2;
+          int i = -1;
 
           @Override
           public boolean hasNext() {
-            return !(i + 2 == size() * 2);
+            return i + 1 < size();
           }
 
           @Override
           public StdData next() {
-            i += 2;
-            return TrinoWrapper.createStdData(readNativeValue(_valueType, _block, i + 1), _valueType, _stdFactory);
+            i++;
+            Object value = isBuilding() ? readNativeValue(_valueType, _valueBuilder, _valuePositions[i])
+                : readNativeValue(_valueType, _block, 2 * i + 1);
+            return TrinoWrapper.createStdData(value, _valueType, _stdFactory);
           }
         };
       }
@@ -168,36 +189,179 @@ public class TrinoMap extends TrinoData implements StdMap {
 
   @Override
   public boolean containsKey(StdData key) {
-    return get(key) != null;
+    Object trinoKey = ((PlatformData) key).getUnderlyingData();
+    if (isBuilding()) {
+      return findEntry(trinoKey, hashKey(trinoKey)) != -1;
+    }
+    return seekKey(trinoKey) != -1;
   }
 
   @Override
   public Object getUnderlyingData() {
+    seal();
     return _block;
   }
 
   @Override
   public void setUnderlyingData(Object value) {
     _block = (Block) value;
+    stopBuilding();
   }
 
   private int seekKey(Object key) {
+    if (_block instanceof SingleMapBlock) {
+      // Probe the hash table Trino keeps for map blocks. It is built lazily upon the first lookup and shared by all
+      // the maps of the underlying MapBlock, so repeated lookups do not rescan the entries.
+      return ((SingleMapBlock) _block).seekKey(key);
+    }
     for (int i = 0; i < _block.getPositionCount(); i += 2) {
       try {
         if ((boolean) _keyEqualsMethod.invoke(readNativeValue(_keyType, _block, i), key)) {
           return i + 1;
         }
       } catch (Throwable t) {
-        Throwables.propagateIfInstanceOf(t, Error.class);
-        Throwables.propagateIfInstanceOf(t, TrinoException.class);
-        throw new TrinoException(GENERIC_INTERNAL_ERROR, t);
+        throw propagate(t);
+      }
+    }
+    return -1;
+  }
+
+  private boolean isBuilding() {
+    return _keyBuilder != null;
+  }
+
+  /**
+   * Switches the map to the building mode, copying the entries of the current map Block (if any) into the builders
+   */
+  private void startBuilding(int expectedEntries) {
+    int capacity = Math.max(expectedEntries, INITIAL_ENTRIES);
+    _keyBuilder = _keyType.createBlockBuilder(new PageBuilderStatus().createBlockBuilderStatus(), capacity);
+    _valueBuilder = _valueType.createBlockBuilder(new PageBuilderStatus().createBlockBuilderStatus(), capacity);
+    _valuePositions = new int[capacity];
+    _keyHashes = new long[capacity];
+    _hashTable = newHashTable(capacity);
+    _entryCount = 0;
+    _replacedValueCount = 0;
+    if (_block != null) {
+      for (int i = 0; i < _block.getPositionCount(); i += 2) {
+        _keyType.appendTo(_block, i, _keyBuilder);
+        _valueType.appendTo(_block, i + 1, _valueBuilder);
+        _valuePositions[_entryCount] = _entryCount;
+        _keyHashes[_entryCount] = hashKey(readNativeValue(_keyType, _block, i));
+        insertIntoHashTable(_entryCount);
+        _entryCount++;
+      }
+      _block = null;
+    }
+  }
+
+  private void stopBuilding() {
+    _keyBuilder = null;
+    _valueBuilder = null;
+    _valuePositions = null;
+    _keyHashes = null;
+    _hashTable = null;
+    _entryCount = 0;
+    _replacedValueCount = 0;
+  }
+
+  /**
+   * Copies the current values of the entries into a new value builder, dropping the values replaced by updates
+   */
+  private void compactValues() {
+    BlockBuilder valueBuilder = _valueType.createBlockBuilder(new PageBuilderStatus().createBlockBuilderStatus(),
+        _valuePositions.length);
+    for (int i = 0; i < _entryCount; i++) {
+      _valueType.appendTo(_valueBuilder, _valuePositions[i], valueBuilder);
+      _valuePositions[i] = i;
+    }
+    _valueBuilder = valueBuilder;
+    _replacedValueCount = 0;
+  }
+
+  /**
+   * Materializes the entries buffered while building the map into a single map Block
+   */
+  private void seal() {
+    if (!isBuilding()) {
+      return;
+    }
+    BlockBuilder mutable = _mapType.createBlockBuilder(new PageBuilderStatus().createBlockBuilderStatus(), 1);
+    BlockBuilder entryBuilder = mutable.beginBlockEntry();
+    for (int i = 0; i < _entryCount; i++) {
+      _keyType.appendTo(_keyBuilder, i, entryBuilder);
+      _valueType.appendTo(_valueBuilder, _valuePositions[i], entryBuilder);
+    }
+    mutable.closeEntry();
+    _block = ((MapType) _mapType).getObject(mutable.build(), 0);
+    stopBuilding();
+  }
+
+  private long hashKey(Object key) {
+    try {
+      return (long) ((MapType) _mapType).getKeyNativeHashCode().invoke(key);
+    } catch (Throwable t) {
+      throw propagate(t);
+    }
+  }
+
+  private int findEntry(Object key, long hash) {
+    int mask = _hashTable.length - 1;
+    for (int slot = (int) (hash & mask); _hashTable[slot] != -1; slot = (slot + 1) & mask) {
+      int entry = _hashTable[slot];
+      if (_keyHashes[entry] == hash && keyEquals(entry, key)) {
+        return entry;
       }
     }
     return -1;
   }
 
+  private boolean keyEquals(int entry, Object key) {
+    try {
+      return Boolean.TRUE.equals(((MapType) _mapType).getKeyBlockNativeEqual().invoke(_keyBuilder, entry, key));
+    } catch (Throwable t) {
+      throw propagate(t);
+    }
+  }
+
+  private void ensureCapacity(int entries) {
+    if (entries <= _valuePositions.length) {
+      return;
+    }
+    int capacity = Math.max(entries, _valuePositions.length * 2);
+    _valuePositions = Arrays.copyOf(_valuePositions, capacity);
+    _keyHashes = Arrays.copyOf(_keyHashes, capacity);
+    _hashTable = newHashTable(capacity);
+    for (int i = 0; i < _entryCount; i++) {
+      insertIntoHashTable(i);
+    }
+  }
+
+  private void insertIntoHashTable(int entry) {
+    int mask = _hashTable.length - 1;
+    int slot = (int) (_keyHashes[entry] & mask);
+    while (_hashTable[slot] != -1) {
+      slot = (slot + 1) & mask;
+    }
+    _hashTable[slot] = entry;
+  }
+
+  private static int[] newHashTable(int capacity) {
+    // Keep the load factor at or below 0.5
+    int[] hashTable = new int[Integer.highestOneBit(capacity) * 4];
+    Arrays.fill(hashTable, -1);
+    return hashTable;
+  }
+
+  private static RuntimeException propagate(Throwable t) {
+    Throwables.propagateIfInstanceOf(t, Error.class);
+    Throwables.propagateIfInstanceOf(t, TrinoException.class);
+    return new TrinoException(GENERIC_INTERNAL_ERROR, t);
+  }
+
   @Override
   public void writeToBlock(BlockBuilder blockBuilder) {
+    seal();
     _mapType.writeObject(blockBuilder, _block);
   }
 }
@@ -5,7 +5,11 @@
  */
 package com.linkedin.transport.trino.data;
 
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import com.linkedin.transport.api.StdFactory;
+import com.linkedin.transport.api.data.PlatformData;
 import com.linkedin.transport.api.data.StdData;
 import com.linkedin.transport.api.data.StdStruct;
 import com.linkedin.transport.trino.TrinoWrapper;
@@ -16,7 +20,9 @@ import io.trino.spi.block.PageBuilderStatus;
 import io.trino.spi.type.RowType;
 import io.trino.spi.type.Type;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -26,9 +32,16 @@ import static io.trino.spi.type.TypeUtils.*;
 
 public class TrinoStruct extends TrinoData implements StdStruct {
 
+  // Field name to index tables, shared by all the structs of a given RowType instance
+  private static final LoadingCache<RowType, Map<String, Integer>> FIELD_INDICES =
+      CacheBuilder.newBuilder().weakKeys().build(CacheLoader.from(TrinoStruct::createFieldIndices));
+
   final RowType _rowType;
   final StdFactory _stdFactory;
   Block _block;
+  // Non-null while the struct is being built through setField(); the row Block is materialized once it is read
+  Object[] _fieldValues;
+  Map<String, Integer> _fieldIndices;
 
   public TrinoStruct(Type rowType, StdFactory stdFactory) {
     _rowType = (RowType) rowType;
@@ -55,99 +68,126 @@ public class TrinoStruct extends TrinoData implements StdStruct {
 
   @Override
   public StdData getField(int index) {
-    int position = TrinoWrapper.checkedIndexToBlockPosition(_block, index);
-    if (position == -1) {
+    if (_fieldValues == null) {
+      int position = TrinoWrapper.checkedIndexToBlockPosition(_block, index);
+      if (position == -1) {
+        return null;
+      }
+      return readField(position);
+    }
+    if (index < 0 || index >= _fieldValues.length) {
       return null;
     }
-    Type elementType = _rowType.getFields().get(position).getType();
-    Object element = readNativeValue(elementType, _block, position);
-    return TrinoWrapper.createStdData(element, elementType, _stdFactory);
+    return TrinoWrapper.createStdData(_fieldValues[index], getFieldType(index), _stdFactory);
   }
 
   @Override
   public StdData getField(String name) {
-    int index = -1;
-    Type elementType = null;
-    int i = 0;
-    for (RowType.Field field : _rowType.getFields()) {
-      if (field.getName().isPresent() && name.equals(field.getName().get())) {
-        index = i;
-        elementType = field.getType();
-        break;
-      }
-      i++;
-    }
-    if (index == -1) {
+    Integer index = getFieldIndices().get(name);
+    if (index == null) {
       return null;
     }
-    Object element = readNativeValue(elementType, _block, index);
-    return TrinoWrapper.createStdData(element, elementType, _stdFactory);
+    return getField(index);
   }
 
   @Override
   public void setField(int index, StdData value) {
-    // TODO: This is not the right way to get this object. The status should be passed in from the invocation of the
-    // function and propagated to here. See PRESTO-1359 for more details.
-    BlockBuilderStatus blockBuilderStatus = new PageBuilderStatus().createBlockBuilderStatus();
-    BlockBuilder mutable = _rowType.createBlockBuilder(blockBuilderStatus, 1);
-    BlockBuilder rowBlockBuilder = mutable.beginBlockEntry();
-    int i = 0;
-    for (RowType.Field field : _rowType.getFields()) {
-      if (i == index) {
-        ((TrinoData) value).writeToBlock(rowBlockBuilder);
-      } else {
-        if (_block == null) {
-          rowBlockBuilder.appendNull();
-        } else {
-          field.getType().appendTo(_block, i, rowBlockBuilder);
-        }
-      }
-      i++;
+    if (_fieldValues == null) {
+      startBuilding();
+    }
+    // Like a field name which is not in the row, an index out of its range leaves the fields unchanged
+    if (index >= 0 && index < _fieldValues.length) {
+      _fieldValues[index] = value == null ? null : ((PlatformData) value).getUnderlyingData();
     }
-    mutable.closeEntry();
-    _block = _rowType.getObject(mutable.build(), 0);
   }
 
   @Override
   public void setField(String name, StdData value) {
-    BlockBuilder mutable = _rowType.createBlockBuilder(new PageBuilderStatus().createBlockBuilderStatus(), 1);
-    BlockBuilder rowBlockBuilder = mutable.beginBlockEntry();
-    int i = 0;
-    for (RowType.Field field : _rowType.getFields()) {
-      if (field.getName().isPresent() && name.equals(field.getName().get())) {
-        ((TrinoData) value).writeToBlock(rowBlockBuilder);
-      } else {
-        if (_block == null) {
-          rowBlockBuilder.appendNull();
-        } else {
-          field.getType().appendTo(_block, i, rowBlockBuilder);
-        }
-      }
-      i++;
+    Integer index = getFieldIndices().get(name);
+    if (index != null) {
+      setField(index, value);
     }
-    mutable.closeEntry();
-    _block = _rowType.getObject(mutable.build(), 0);
   }
 
   @Override
   public List<StdData> fields() {
-    ArrayList<StdData> fields = new ArrayList<>();
-    for (int i = 0; i < _block.getPositionCount(); i++) {
-      Type elementType = _rowType.getFields().get(i).getType();
-      Object element = readNativeValue(elementType, _block, i);
-      fields.add(TrinoWrapper.createStdData(element, elementType, _stdFactory));
+    int fieldCount = _fieldValues == null ? _block.getPositionCount() : _fieldValues.length;
+    ArrayList<StdData> fields = new ArrayList<>(fieldCount);
+    for (int i = 0; i < fieldCount; i++) {
+      fields.add(getField(i));
     }
     return fields;
   }
 
   @Override
   public Object getUnderlyingData() {
+    seal();
     return _block;
   }
 
   @Override
   public void setUnderlyingData(Object value) {
     _block = (Block) value;
+    _fieldValues = null;
+  }
+
+  private Type getFieldType(int index) {
+    return _rowType.getFields().get(index).getType();
+  }
+
+  private StdData readField(int index) {
+    Type fieldType = getFieldType(index);
+    return TrinoWrapper.createStdData(readNativeValue(fieldType, _block, index), fieldType, _stdFactory);
+  }
+
+  private Map<String, Integer> getFieldIndices() {
+    if (_fieldIndices == null) {
+      _fieldIndices = FIELD_INDICES.getUnchecked(_rowType);
+    }
+    return _fieldIndices;
+  }
+
+  private static Map<String, Integer> createFieldIndices(RowType rowType) {
+    Map<String, Integer> fieldIndices = new HashMap<>();
+    List<RowType.Field> fields = rowType.getFields();
+    for (int i = 0; i < fields.size(); i++) {
+      // In case of duplicate names, the first field with the name is the one that is accessed
+      int index = i;
+      fields.get(i).getName().ifPresent(name -> fieldIndices.putIfAbsent(name, index));
+    }
+    return fieldIndices;
+  }
+
+  /**
+   * Switches the struct to the building mode, where field values are kept in a slot array until the row is read
+   */
+  private void startBuilding() {
+    _fieldValues = new Object[_rowType.getFields().size()];
+    if (_block != null) {
+      for (int i = 0; i < _fieldValues.length; i++) {
+        _fieldValues[i] = readNativeValue(getFieldType(i), _block, i);
+      }
+    }
+  }
+
+  /**
+   * Materializes the field values set while building the struct into a single row Block
+   */
+  private void seal() {
+    if (_fieldValues == null) {
+      return;
+    }
+    // TODO: This is not the right way to get this object. The status should be passed in from the invocation of the
+    // function and propagated to here. See PRESTO-1359 for more details.
+    BlockBuilderStatus blockBuilderStatus = new PageBuilderStatus().createBlockBuilderStatus();
+    BlockBuilder mutable = _rowType.createBlockBuilder(blockBuilderStatus, 1);
+    BlockBuilder rowBlockBuilder = mutable.beginBlockEntry();
+    for (int i = 0; i < _fieldValues.length; i++) {
+      writeNativeValue(getFieldType(i), rowBlockBuilder, _fieldValues[i]);
+    }
+    mutable.closeEntry();
+    _block = _rowType.getObject(mutable.build(), 0);
+    _fieldValues = null;
   }
 
   @Override
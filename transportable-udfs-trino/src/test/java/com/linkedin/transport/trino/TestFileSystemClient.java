@@ -0,0 +1,110 @@
+/**
+ * Copyright 2021 LinkedIn Corporation. All rights reserved.
+ * Licensed under the BSD-2 Clause license.
+ * See LICENSE in the project root for license information.
+ */
+package com.linkedin.transport.trino;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.Properties;
+import org.apache.hadoop.conf.Configuration;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class TestFileSystemClient {
+
+  @Test
+  public void testUnchangedFilesAreNotDownloadedAgain() throws IOException {
+    Path remoteDir = Files.createTempDirectory("transport-remote");
+    Path remoteFile = write(remoteDir.resolve("lookup.txt"), "first", 1000);
+    FileSystemClient client = createClient(Files.createTempDirectory("transport-cache"), Long.MAX_VALUE);
+
+    String localFile = client.copyToLocalFile(remoteFile.toString());
+    Assert.assertEquals(read(localFile), "first");
+    Assert.assertTrue(localFile.endsWith("-lookup.txt"));
+    // The cached copy is returned as is while the remote file is unchanged
+    Files.write(Paths.get(localFile), "cached".getBytes(StandardCharsets.UTF_8));
+    Assert.assertEquals(client.copyToLocalFile(remoteFile.toString()), localFile);
+    Assert.assertEquals(read(localFile), "cached");
+
+    // A new version of the remote file gets its own local copy
+    write(remoteFile, "second", 2000);
+    String refreshedLocalFile = client.copyToLocalFile(remoteFile.toString());
+    Assert.assertNotEquals(refreshedLocalFile, localFile);
+    Assert.assertEquals(read(refreshedLocalFile), "second");
+  }
+
+  @Test
+  public void testFilesWithTheSameNameDoNotCollide() throws IOException {
+    Path remoteDir = Files.createTempDirectory("transport-remote");
+    Path remoteFile1 = write(Files.createDirectory(remoteDir.resolve("a")).resolve("lookup.txt"), "a", 1000);
+    Path remoteFile2 = write(Files.createDirectory(remoteDir.resolve("b")).resolve("lookup.txt"), "b", 1000);
+    FileSystemClient client = createClient(Files.createTempDirectory("transport-cache"), Long.MAX_VALUE);
+
+    Assert.assertEquals(read(client.copyToLocalFile(remoteFile1.toString())), "a");
+    Assert.assertEquals(read(client.copyToLocalFile(remoteFile2.toString())), "b");
+    Assert.assertEquals(read(client.copyToLocalFile(remoteFile1.toString())), "a");
+  }
+
+  @Test
+  public void testLeastRecentlyUsedFilesAreEvicted() throws IOException {
+    Path cacheDir = Files.createTempDirectory("transport-cache");
+    LocalFileCache cache = new LocalFileCache(cacheDir, 10, 0);
+
+    Path first = cache.get("first", "first.txt", path -> write(path, "12345", 1000));
+    Path second = cache.get("second", "second.txt", path -> write(path, "12345", 1000));
+    // Using the first file makes the second one the least recently used, without modifying the first one
+    Assert.assertEquals(cache.get("first", "first.txt", path -> Assert.fail("Cached file downloaded again")), first);
+    Assert.assertEquals(Files.getLastModifiedTime(first).toMillis(), 1000);
+    cache.get("third", "third.txt", path -> write(path, "12345", 1000));
+    Assert.assertTrue(Files.exists(first));
+    Assert.assertFalse(Files.exists(second));
+  }
+
+  @Test
+  public void testFilesCachedBeforeARestartAreEvictedByModificationTime() throws IOException {
+    Path cacheDir = Files.createTempDirectory("transport-cache");
+    Path older = write(cacheDir.resolve("older.txt"), "12345", 1000);
+    Path newer = write(cacheDir.resolve("newer.txt"), "12345", 2000);
+    LocalFileCache cache = new LocalFileCache(cacheDir, 10, 0);
+
+    cache.get("first", "first.txt", path -> write(path, "12345", 3000));
+    Assert.assertFalse(Files.exists(older));
+    Assert.assertTrue(Files.exists(newer));
+  }
+
+  @Test
+  public void testDownloadLocksAreReleased() throws IOException {
+    LocalFileCache cache = new LocalFileCache(Files.createTempDirectory("transport-cache"), Long.MAX_VALUE, 0);
+
+    cache.get("first", "first.txt", path -> write(path, "first", 1000));
+    cache.get("first", "first.txt", path -> Assert.fail("Cached file downloaded again"));
+    Assert.expectThrows(IOException.class, () -> cache.get("second", "second.txt", path -> {
+      throw new IOException("Failed download");
+    }));
+    Assert.assertEquals(LocalFileCache.getDownloadLockCount(), 0);
+  }
+
+  private static FileSystemClient createClient(Path cacheDir, long maxSizeBytes) {
+    Properties properties = new Properties();
+    properties.setProperty("udf.hdfs-cache-dir", cacheDir.toString());
+    properties.setProperty("udf.hdfs-cache-max-size-bytes", String.valueOf(maxSizeBytes));
+    return new FileSystemClient(properties, new Configuration());
+  }
+
+  private static Path write(Path path, String content, long lastModifiedTime) throws IOException {
+    Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+    Files.setLastModifiedTime(path, FileTime.fromMillis(lastModifiedTime));
+    return path;
+  }
+
+  private static String read(String path) throws IOException {
+    return new String(Files.readAllBytes(Paths.get(path)), StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,461 @@
+/**
+ * Copyright 2021 LinkedIn Corporation. All rights reserved.
+ * Licensed under the BSD-2 Clause license.
+ * See LICENSE in the project root for license information.
+ */
+package com.linkedin.transport.trino;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.linkedin.transport.api.data.StdData;
+import com.linkedin.transport.api.data.StdLong;
+import com.linkedin.transport.api.data.StdString;
+import com.linkedin.transport.api.udf.StdPrimitiveUDF2;
+import com.linkedin.transport.api.udf.StdUDF;
+import com.linkedin.transport.api.udf.StdUDF1;
+import com.linkedin.transport.api.udf.StdUDF2;
+import com.linkedin.transport.api.udf.TopLevelStdUDF;
+import com.sun.management.ThreadMXBean;
+import io.trino.metadata.BoundSignature;
+import io.trino.metadata.FunctionBinding;
+import io.trino.metadata.FunctionId;
+import io.trino.operator.scalar.ChoicesScalarFunctionImplementation;
+import io.trino.spi.type.Type;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.testng.Assert;
+import org.testng.SkipException;
+import org.testng.annotations.Test;
+
+import static io.airlift.slice.Slices.*;
+import static io.trino.spi.type.BigintType.*;
+import static io.trino.spi.type.IntegerType.*;
+import static io.trino.spi.type.VarcharType.*;
+
+
+public class TestStdUdfWrapper {
+
+  private static final int NUM_ROWS = 10000;
+
+  @Test
+  public void testArgumentWrappersAreReusedAcrossRows() throws Throwable {
+    RecordingStdUDF udf = new RecordingStdUDF();
+    MethodHandle methodHandle = specialize(udf);
+
+    for (int i = 0; i < NUM_ROWS; i++) {
+      Assert.assertEquals(methodHandle.invoke((long) i, utf8Slice("ab")), i + 2L);
+    }
+    // A single wrapper per argument is created for all rows evaluated by this thread
+    Assert.assertEquals(udf._seenArguments1.size(), 1);
+    Assert.assertEquals(udf._seenArguments2.size(), 1);
+  }
+
+  @Test
+  public void testNullArgumentsAreNotWrapped() throws Throwable {
+    RecordingStdUDF udf = new RecordingStdUDF();
+    MethodHandle methodHandle = specialize(udf);
+
+    Assert.assertEquals(methodHandle.invoke(1L, utf8Slice("abc")), 4L);
+    Assert.assertEquals(methodHandle.invoke(1L, null), 1L);
+    Assert.assertEquals(methodHandle.invoke(1L, utf8Slice("abc")), 4L);
+    Assert.assertEquals(udf._seenArguments2.size(), 1);
+  }
+
+  @Test
+  public void testArgumentWrappersAreNotSharedAcrossThreads() throws Throwable {
+    RecordingStdUDF udf = new RecordingStdUDF();
+    MethodHandle methodHandle = specialize(udf);
+
+    methodHandle.invoke(1L, utf8Slice("a"));
+    Thread thread = new Thread(() -> {
+      try {
+        methodHandle.invoke(1L, utf8Slice("a"));
+      } catch (Throwable throwable) {
+        throw new RuntimeException(throwable);
+      }
+    });
+    thread.start();
+    thread.join();
+    Assert.assertEquals(udf._seenArguments1.size(), 2);
+    Assert.assertEquals(udf._seenArguments2.size(), 2);
+  }
+
+  @Test
+  public void testNoAllocationsForPrimitiveArguments() throws Throwable {
+    ThreadMXBean threadMXBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    if (!threadMXBean.isThreadAllocatedMemorySupported()) {
+      throw new SkipException("Thread allocated memory is not supported by this JVM");
+    }
+    MaxStdUDF udf = new MaxStdUDF();
+    MethodHandle methodHandle = specialize(udf, ImmutableList.of(BIGINT, BIGINT));
+
+    long result = 0;
+    // Warm up
+    for (int i = 0; i < NUM_ROWS; i++) {
+      result += (Long) methodHandle.invokeExact((long) (i & 63), 32L);
+    }
+    long threadId = Thread.currentThread().getId();
+    long allocatedBytesBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+    for (int i = 0; i < NUM_ROWS; i++) {
+      // Results stay within the range of cached Long instances, so only the wrapping of arguments could allocate
+      result += (Long) methodHandle.invokeExact((long) (i & 63), 32L);
+    }
+    long allocatedBytes = threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBytesBefore;
+    Assert.assertTrue(result > 0);
+    // Allocating anything per row would amount to at least 16 bytes per row
+    Assert.assertTrue(allocatedBytes < NUM_ROWS, "Allocated " + allocatedBytes + " bytes for " + NUM_ROWS + " rows");
+  }
+
+  @Test
+  public void testPrimitiveUdfIsEvaluatedOnNativeValues() throws Throwable {
+    AddIntegersStdUDF udf = new AddIntegersStdUDF();
+    MethodHandle methodHandle = specialize(udf, INTEGER, ImmutableList.of(INTEGER, INTEGER));
+
+    Assert.assertEquals(methodHandle.type(), MethodType.methodType(long.class, long.class, long.class));
+    long result = 0;
+    for (int i = 0; i < NUM_ROWS; i++) {
+      result += (long) methodHandle.invokeExact((long) i, 1L);
+    }
+    Assert.assertEquals(result, (long) NUM_ROWS * (NUM_ROWS + 1) / 2);
+    // Arguments are only wrapped to refresh the required files, which is due once
+    Assert.assertEquals(udf._requiredFilesCalls.get(), 1);
+  }
+
+  @Test
+  public void testPrimitiveUdfWithDifferentArgumentTypes() throws Throwable {
+    ShiftLeftStdUDF udf = new ShiftLeftStdUDF();
+    Assert.assertEquals(udf.getInputParameterSignatures(), ImmutableList.of("bigint", "integer"));
+    Assert.assertEquals(udf.getOutputParameterSignature(), "bigint");
+    MethodHandle methodHandle = specialize(udf, BIGINT, ImmutableList.of(BIGINT, INTEGER));
+
+    Assert.assertEquals(methodHandle.type(), MethodType.methodType(long.class, long.class, long.class));
+    Assert.assertEquals((long) methodHandle.invokeExact(3L, 4L), 48L);
+  }
+
+  @Test
+  public void testPrimitiveUdfWithAmbiguousEvalMethods() {
+    Assert.expectThrows(IllegalStateException.class, AmbiguousStdUDF::new);
+  }
+
+  @Test
+  public void testRequiredFilesAreRefreshedInTheBackground() throws Throwable {
+    AtomicInteger generations = new AtomicInteger();
+    CountDownLatch refreshStarted = new CountDownLatch(1);
+    CountDownLatch refreshReleased = new CountDownLatch(1);
+    GenerationStdUDF udf = new GenerationStdUDF(generations, refreshStarted, refreshReleased);
+    StdUdfWrapper wrapper = new StdUdfWrapper(udf) {
+      @Override
+      protected StdUDF getStdUDF() {
+        return new GenerationStdUDF(generations, refreshStarted, refreshReleased);
+      }
+
+      @Override
+      protected long getRefreshIntervalMillis() {
+        return 100;
+      }
+    };
+    MethodHandle methodHandle = ((ChoicesScalarFunctionImplementation) wrapper.specialize(
+        createFunctionBinding(udf, BIGINT, ImmutableList.of(BIGINT)), null)).getChoices().get(0).getMethodHandle();
+    RequiredFilesRefreshStats stats = wrapper.getRequiredFilesRefreshStats();
+
+    // The first load happens on the query thread
+    Assert.assertEquals(methodHandle.invoke(0L), 1L);
+    Assert.assertEquals(stats.getRefreshCount(), 1);
+    Thread.sleep(200);
+
+    // The refresh is blocked in the background, while rows keep being evaluated with the loaded required files
+    Assert.assertEquals(methodHandle.invoke(0L), 1L);
+    Assert.assertTrue(refreshStarted.await(10, TimeUnit.SECONDS));
+    Assert.assertEquals(methodHandle.invoke(0L), 1L);
+    Assert.assertTrue(stats.getStalenessMillis() >= 200);
+
+    // The refreshed instance is published once its required files are loaded
+    refreshReleased.countDown();
+    long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+    while ((Long) methodHandle.invoke(0L) < 2L && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    Assert.assertTrue((Long) methodHandle.invoke(0L) >= 2L);
+    Assert.assertTrue(stats.getRefreshCount() >= 2);
+    Assert.assertEquals(stats.getFailedRefreshCount(), 0);
+  }
+
+  @Test
+  public void testRequiredFilesRefreshStatsReportTheStalestSpecialization() throws Throwable {
+    AddIntegersStdUDF udf = new AddIntegersStdUDF();
+    StdUdfWrapper wrapper = createWrapper(udf);
+    FunctionBinding functionBinding = createFunctionBinding(udf, INTEGER, ImmutableList.of(INTEGER, INTEGER));
+    MethodHandle firstMethodHandle = ((ChoicesScalarFunctionImplementation) wrapper.specialize(functionBinding, null))
+        .getChoices().get(0).getMethodHandle();
+    MethodHandle secondMethodHandle = ((ChoicesScalarFunctionImplementation) wrapper.specialize(functionBinding, null))
+        .getChoices().get(0).getMethodHandle();
+    RequiredFilesRefreshStats stats = wrapper.getRequiredFilesRefreshStats();
+    Assert.assertEquals(stats.getStalenessMillis(), -1);
+
+    Assert.assertEquals(firstMethodHandle.invoke(1L, 2L), 3L);
+    Thread.sleep(200);
+    Assert.assertEquals(secondMethodHandle.invoke(1L, 2L), 3L);
+    Assert.assertEquals(stats.getRefreshCount(), 2);
+    // The first specialization loaded its required files first, so it is the stalest one
+    Assert.assertTrue(stats.getStalenessMillis() >= 200);
+
+    ObjectName objectName = wrapper.getRequiredFilesRefreshStatsName();
+    MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+    Assert.assertEquals(mbeanServer.getAttribute(objectName, "RefreshCount"), 2L);
+    Assert.assertTrue((Long) mbeanServer.getAttribute(objectName, "StalenessMillis") >= 200);
+  }
+
+  @Test
+  public void testRequiredFilesRefreshStatsOfWrappersOfTheSameClassAreExportedSeparately() throws Throwable {
+    AddIntegersStdUDF udf = new AddIntegersStdUDF();
+    FunctionBinding functionBinding = createFunctionBinding(udf, INTEGER, ImmutableList.of(INTEGER, INTEGER));
+    StdUdfWrapper firstWrapper = createWrapper(udf);
+    StdUdfWrapper secondWrapper = createWrapper(udf);
+    // Both wrappers are of the same class, and the stats are exported once the function is specialized
+    Assert.assertNull(firstWrapper.getRequiredFilesRefreshStatsName());
+    MethodHandle methodHandle = ((ChoicesScalarFunctionImplementation) firstWrapper.specialize(functionBinding, null))
+        .getChoices().get(0).getMethodHandle();
+    secondWrapper.specialize(functionBinding, null);
+    Assert.assertEquals(methodHandle.invoke(1L, 2L), 3L);
+
+    ObjectName firstName = firstWrapper.getRequiredFilesRefreshStatsName();
+    ObjectName secondName = secondWrapper.getRequiredFilesRefreshStatsName();
+    Assert.assertNotEquals(firstName, secondName);
+    MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+    Assert.assertEquals(mbeanServer.getAttribute(firstName, "RefreshCount"), 1L);
+    Assert.assertEquals(mbeanServer.getAttribute(secondName, "RefreshCount"), 0L);
+  }
+
+  private static MethodHandle specialize(RecordingStdUDF udf) {
+    return specialize(udf, ImmutableList.of(BIGINT, VARCHAR));
+  }
+
+  private static <T extends StdUDF & TopLevelStdUDF> MethodHandle specialize(T udf, List<Type> argumentTypes) {
+    return specialize(udf, BIGINT, argumentTypes);
+  }
+
+  private static <T extends StdUDF & TopLevelStdUDF> MethodHandle specialize(T udf, Type returnType,
+      List<Type> argumentTypes) {
+    ChoicesScalarFunctionImplementation implementation = (ChoicesScalarFunctionImplementation) createWrapper(udf)
+        .specialize(createFunctionBinding(udf, returnType, argumentTypes), null);
+    return implementation.getChoices().get(0).getMethodHandle();
+  }
+
+  private static StdUdfWrapper createWrapper(StdUDF udf) {
+    return new StdUdfWrapper(udf) {
+      @Override
+      protected StdUDF getStdUDF() {
+        return udf;
+      }
+    };
+  }
+
+  private static <T extends StdUDF & TopLevelStdUDF> FunctionBinding createFunctionBinding(T udf, Type returnType,
+      List<Type> argumentTypes) {
+    return new FunctionBinding(new FunctionId(udf.getFunctionName()),
+        new BoundSignature(udf.getFunctionName(), returnType, argumentTypes), ImmutableMap.of(), ImmutableMap.of());
+  }
+
+  private static class RecordingStdUDF extends StdUDF2<StdLong, StdString, StdLong> implements TopLevelStdUDF {
+
+    private final Set<StdData> _seenArguments1 = Collections.synchronizedSet(
+        Collections.newSetFromMap(new IdentityHashMap<>()));
+    private final Set<StdData> _seenArguments2 = Collections.synchronizedSet(
+        Collections.newSetFromMap(new IdentityHashMap<>()));
+
+    @Override
+    public List<String> getInputParameterSignatures() {
+      return ImmutableList.of("bigint", "varchar");
+    }
+
+    @Override
+    public String getOutputParameterSignature() {
+      return "bigint";
+    }
+
+    @Override
+    public boolean[] getNullableArguments() {
+      return new boolean[]{false, true};
+    }
+
+    @Override
+    public StdLong eval(StdLong value, StdString suffix) {
+      _seenArguments1.add(value);
+      if (suffix == null) {
+        return getStdFactory().createLong(value.get());
+      }
+      _seenArguments2.add(suffix);
+      return getStdFactory().createLong(value.get() + suffix.get().length());
+    }
+
+    @Override
+    public String getFunctionName() {
+      return "recording_udf";
+    }
+
+    @Override
+    public String getFunctionDescription() {
+      return "Records the argument wrappers it is called with";
+    }
+  }
+
+  private static class GenerationStdUDF extends StdUDF1<StdLong, StdLong> implements TopLevelStdUDF {
+
+    private final AtomicInteger _generations;
+    private final CountDownLatch _refreshStarted;
+    private final CountDownLatch _refreshReleased;
+    private int _generation;
+
+    GenerationStdUDF(AtomicInteger generations, CountDownLatch refreshStarted, CountDownLatch refreshReleased) {
+      _generations = generations;
+      _refreshStarted = refreshStarted;
+      _refreshReleased = refreshReleased;
+    }
+
+    @Override
+    public List<String> getInputParameterSignatures() {
+      return ImmutableList.of("bigint");
+    }
+
+    @Override
+    public String getOutputParameterSignature() {
+      return "bigint";
+    }
+
+    @Override
+    public StdLong eval(StdLong value) {
+      return getStdFactory().createLong(value.get() + _generation);
+    }
+
+    @Override
+    public String[] getRequiredFiles(StdLong value) {
+      return new String[]{};
+    }
+
+    @Override
+    public void processRequiredFiles(String[] localFiles) {
+      int generation = _generations.incrementAndGet();
+      if (generation > 1) {
+        // Refreshes wait until the test releases them
+        _refreshStarted.countDown();
+        try {
+          _refreshReleased.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          throw new RuntimeException(e);
+        }
+      }
+      _generation = generation;
+    }
+
+    @Override
+    public String getFunctionName() {
+      return "generation_udf";
+    }
+
+    @Override
+    public String getFunctionDescription() {
+      return "Adds the number of times required files were loaded to a bigint";
+    }
+  }
+
+  private static class MaxStdUDF extends StdUDF2<StdLong, StdLong, StdLong> implements TopLevelStdUDF {
+
+    @Override
+    public List<String> getInputParameterSignatures() {
+      return ImmutableList.of("bigint", "bigint");
+    }
+
+    @Override
+    public String getOutputParameterSignature() {
+      return "bigint";
+    }
+
+    @Override
+    public StdLong eval(StdLong first, StdLong second) {
+      return first.get() >= second.get() ? first : second;
+    }
+
+    @Override
+    public String getFunctionName() {
+      return "max_udf";
+    }
+
+    @Override
+    public String getFunctionDescription() {
+      return "Returns the larger of two bigints";
+    }
+  }
+
+  private static class AddIntegersStdUDF extends StdPrimitiveUDF2 implements TopLevelStdUDF {
+
+    private final AtomicInteger _requiredFilesCalls = new AtomicInteger();
+
+    public int eval(int first, int second) {
+      return first + second;
+    }
+
+    @Override
+    public String[] getRequiredFiles(StdData first, StdData second) {
+      _requiredFilesCalls.incrementAndGet();
+      return new String[]{};
+    }
+
+    @Override
+    public String getFunctionName() {
+      return "add_integers_udf";
+    }
+
+    @Override
+    public String getFunctionDescription() {
+      return "Returns the sum of two integers";
+    }
+  }
+
+  private static class ShiftLeftStdUDF extends StdPrimitiveUDF2 implements TopLevelStdUDF {
+
+    public long eval(long value, int shift) {
+      return value << shift;
+    }
+
+    @Override
+    public String getFunctionName() {
+      return "shift_left_udf";
+    }
+
+    @Override
+    public String getFunctionDescription() {
+      return "Shifts a bigint to the left";
+    }
+  }
+
+  private static class AmbiguousStdUDF extends StdPrimitiveUDF2 implements TopLevelStdUDF {
+
+    public long eval(long first, long second) {
+      return first + second;
+    }
+
+    public double eval(double first, double second) {
+      return first + second;
+    }
+
+    @Override
+    public String getFunctionName() {
+      return "ambiguous_udf";
+    }
+
+    @Override
+    public String getFunctionDescription() {
+      return "Declares two primitive eval methods";
+    }
+  }
+}
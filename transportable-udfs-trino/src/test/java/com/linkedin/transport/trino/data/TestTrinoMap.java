@@ -0,0 +1,145 @@
+/**
+ * Copyright 2021 LinkedIn Corporation. All rights reserved.
+ * Licensed under the BSD-2 Clause license.
+ * See LICENSE in the project root for license information.
+ */
+package com.linkedin.transport.trino.data;
+
+import com.google.common.collect.ImmutableList;
+import com.linkedin.transport.api.StdFactory;
+import com.linkedin.transport.api.data.PlatformData;
+import com.linkedin.transport.api.data.StdData;
+import com.linkedin.transport.api.data.StdLong;
+import com.linkedin.transport.api.data.StdMap;
+import com.linkedin.transport.api.data.StdString;
+import com.linkedin.transport.trino.TrinoFactory;
+import io.trino.spi.block.Block;
+import io.trino.spi.block.BlockBuilder;
+import io.trino.spi.block.SingleMapBlock;
+import io.trino.spi.type.MapType;
+import io.trino.spi.type.TypeOperators;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import static io.trino.metadata.MetadataManager.*;
+import static io.trino.spi.type.BigintType.*;
+import static io.trino.spi.type.IntegerType.*;
+import static io.trino.spi.type.VarcharType.*;
+
+
+public class TestTrinoMap {
+
+  private static final int NUM_ENTRIES = 500;
+
+  private final StdFactory _stdFactory = new TrinoFactory(null, createTestMetadataManager());
+  private final TypeOperators _typeOperators = new TypeOperators();
+
+  @Test
+  public void testGetAndContainsKey() {
+    StdMap stdMap = new TrinoMap(new MapType(VARCHAR, BIGINT, _typeOperators), _stdFactory);
+    for (int i = 0; i < NUM_ENTRIES; i++) {
+      stdMap.put(_stdFactory.createString("k" + i), _stdFactory.createLong(i));
+    }
+    assertContainsEntries(stdMap);
+    Assert.assertTrue(((PlatformData) stdMap).getUnderlyingData() instanceof SingleMapBlock);
+    assertContainsEntries(stdMap);
+  }
+
+  private void assertContainsEntries(StdMap stdMap) {
+    Assert.assertEquals(stdMap.size(), NUM_ENTRIES);
+    for (int i = 0; i < NUM_ENTRIES; i++) {
+      Assert.assertEquals(((StdLong) stdMap.get(_stdFactory.createString("k" + i))).get(), i);
+      Assert.assertTrue(stdMap.containsKey(_stdFactory.createString("k" + i)));
+    }
+    Assert.assertNull(stdMap.get(_stdFactory.createString("k" + NUM_ENTRIES)));
+    Assert.assertFalse(stdMap.containsKey(_stdFactory.createString("k" + NUM_ENTRIES)));
+  }
+
+  @Test
+  public void testGetWithIntegerKeys() {
+    StdMap stdMap = new TrinoMap(new MapType(INTEGER, VARCHAR, _typeOperators), _stdFactory);
+    for (int i = 0; i < NUM_ENTRIES; i++) {
+      stdMap.put(_stdFactory.createInteger(i), _stdFactory.createString("v" + i));
+    }
+
+    for (int i = 0; i < NUM_ENTRIES; i++) {
+      Assert.assertEquals(((StdString) stdMap.get(_stdFactory.createInteger(i))).get(), "v" + i);
+    }
+    Assert.assertFalse(stdMap.containsKey(_stdFactory.createInteger(-1)));
+  }
+
+  @Test
+  public void testPutDuplicateKeys() {
+    StdMap stdMap = new TrinoMap(new MapType(VARCHAR, BIGINT, _typeOperators), _stdFactory);
+    stdMap.put(_stdFactory.createString("a"), _stdFactory.createLong(1));
+    stdMap.put(_stdFactory.createString("b"), _stdFactory.createLong(2));
+    stdMap.put(_stdFactory.createString("a"), _stdFactory.createLong(3));
+    Assert.assertEquals(stdMap.size(), 2);
+    Assert.assertEquals(((StdLong) stdMap.get(_stdFactory.createString("a"))).get(), 3);
+
+    Block block = (Block) ((PlatformData) stdMap).getUnderlyingData();
+    Assert.assertEquals(block.getPositionCount(), 4);
+    Assert.assertEquals(toList(stdMap.keySet()), ImmutableList.of("a", "b"));
+    Assert.assertEquals(toList(stdMap.values()), ImmutableList.of(3L, 2L));
+  }
+
+  @Test
+  public void testRepeatedPutsDoNotGrowTheMap() {
+    TrinoMap trinoMap = new TrinoMap(new MapType(VARCHAR, BIGINT, _typeOperators), _stdFactory);
+    for (int i = 0; i < NUM_ENTRIES; i++) {
+      trinoMap.put(_stdFactory.createString("a"), _stdFactory.createLong(i));
+      trinoMap.put(_stdFactory.createString("b"), _stdFactory.createLong(-i));
+    }
+    // Replaced values are dropped once they outnumber the entries
+    Assert.assertTrue(trinoMap._valueBuilder.getPositionCount() <= 2 * TrinoMap.INITIAL_ENTRIES,
+        String.valueOf(trinoMap._valueBuilder.getPositionCount()));
+    Assert.assertEquals(toList(trinoMap.values()), ImmutableList.of((long) NUM_ENTRIES - 1, (long) 1 - NUM_ENTRIES));
+  }
+
+  @Test
+  public void testPutAfterSealing() {
+    MapType mapType = new MapType(VARCHAR, BIGINT, _typeOperators);
+    StdMap stdMap = new TrinoMap(mapType, _stdFactory);
+    stdMap.put(_stdFactory.createString("a"), _stdFactory.createLong(1));
+    Block sealed = (Block) ((PlatformData) stdMap).getUnderlyingData();
+
+    stdMap.put(_stdFactory.createString("b"), _stdFactory.createLong(2));
+    stdMap.put(_stdFactory.createString("a"), _stdFactory.createLong(4));
+    Assert.assertEquals(toList(stdMap.keySet()), ImmutableList.of("a", "b"));
+    Assert.assertEquals(toList(stdMap.values()), ImmutableList.of(4L, 2L));
+    // The previously returned Block is not affected by later updates
+    Assert.assertEquals(sealed.getPositionCount(), 2);
+
+    BlockBuilder blockBuilder = mapType.createBlockBuilder(null, 1);
+    ((TrinoData) stdMap).writeToBlock(blockBuilder);
+    StdMap copy = new TrinoMap(mapType.getObject(blockBuilder.build(), 0), mapType, _stdFactory);
+    Assert.assertEquals(toList(copy.keySet()), ImmutableList.of("a", "b"));
+    Assert.assertEquals(toList(copy.values()), ImmutableList.of(4L, 2L));
+  }
+
+  @Test
+  public void testGetAfterRebinding() {
+    MapType mapType = new MapType(VARCHAR, BIGINT, _typeOperators);
+    StdMap first = new TrinoMap(mapType, _stdFactory);
+    first.put(_stdFactory.createString("a"), _stdFactory.createLong(1));
+    StdMap second = new TrinoMap(mapType, _stdFactory);
+    second.put(_stdFactory.createString("b"), _stdFactory.createLong(2));
+
+    StdMap stdMap = new TrinoMap(mapType, _stdFactory);
+    ((PlatformData) stdMap).setUnderlyingData(((PlatformData) first).getUnderlyingData());
+    Assert.assertEquals(((StdLong) stdMap.get(_stdFactory.createString("a"))).get(), 1);
+    Assert.assertFalse(stdMap.containsKey(_stdFactory.createString("b")));
+
+    ((PlatformData) stdMap).setUnderlyingData(((PlatformData) second).getUnderlyingData());
+    Assert.assertEquals(((StdLong) stdMap.get(_stdFactory.createString("b"))).get(), 2);
+    Assert.assertFalse(stdMap.containsKey(_stdFactory.createString("a")));
+  }
+
+  private static List<Object> toList(Collection<StdData> stdData) {
+    return stdData.stream().map(data -> data instanceof StdString ? ((StdString) data).get() : ((StdLong) data).get())
+        .collect(Collectors.toList());
+  }
+}
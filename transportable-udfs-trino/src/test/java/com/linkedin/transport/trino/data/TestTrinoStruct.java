@@ -0,0 +1,99 @@
+/**
+ * Copyright 2021 LinkedIn Corporation. All rights reserved.
+ * Licensed under the BSD-2 Clause license.
+ * See LICENSE in the project root for license information.
+ */
+package com.linkedin.transport.trino.data;
+
+import com.google.common.collect.ImmutableList;
+import com.linkedin.transport.api.StdFactory;
+import com.linkedin.transport.api.data.PlatformData;
+import com.linkedin.transport.api.data.StdData;
+import com.linkedin.transport.api.data.StdInteger;
+import com.linkedin.transport.api.data.StdString;
+import com.linkedin.transport.api.data.StdStruct;
+import com.linkedin.transport.trino.TrinoFactory;
+import io.trino.spi.block.Block;
+import io.trino.spi.type.RowType;
+import io.trino.spi.type.Type;
+import java.util.List;
+import java.util.Optional;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import static io.trino.metadata.MetadataManager.*;
+import static io.trino.spi.type.IntegerType.*;
+import static io.trino.spi.type.VarcharType.*;
+
+
+public class TestTrinoStruct {
+
+  private final StdFactory _stdFactory = new TrinoFactory(null, createTestMetadataManager());
+  private final RowType _rowType = RowType.from(ImmutableList.of(
+      new RowType.Field(Optional.of("name"), VARCHAR),
+      new RowType.Field(Optional.of("age"), INTEGER),
+      new RowType.Field(Optional.of("city"), VARCHAR)));
+
+  @Test
+  public void testSetFieldsByName() {
+    StdStruct struct = new TrinoStruct(_rowType, _stdFactory);
+    struct.setField("name", _stdFactory.createString("alice"));
+    struct.setField("age", _stdFactory.createInteger(30));
+    struct.setField("unknown", _stdFactory.createString("ignored"));
+    // Fields can be read back before the row is materialized
+    Assert.assertEquals(((StdString) struct.getField("name")).get(), "alice");
+    Assert.assertEquals(((StdInteger) struct.getField(1)).get(), 30);
+    Assert.assertNull(struct.getField("city"));
+    Assert.assertNull(struct.getField("unknown"));
+
+    Block block = (Block) ((PlatformData) struct).getUnderlyingData();
+    Assert.assertEquals(block.getPositionCount(), 3);
+    Assert.assertEquals(INTEGER.getLong(block, 1), 30);
+    Assert.assertTrue(block.isNull(2));
+    Assert.assertSame(((PlatformData) struct).getUnderlyingData(), block);
+  }
+
+  @Test
+  public void testSetFieldAfterMaterialization() {
+    StdStruct struct = new TrinoStruct(_rowType, _stdFactory);
+    struct.setField(0, _stdFactory.createString("bob"));
+    Block first = (Block) ((PlatformData) struct).getUnderlyingData();
+
+    struct.setField("city", _stdFactory.createString("paris"));
+    List<StdData> fields = struct.fields();
+    Assert.assertEquals(fields.size(), 3);
+    Assert.assertEquals(((StdString) fields.get(0)).get(), "bob");
+    Assert.assertNull(fields.get(1));
+    Assert.assertEquals(((StdString) fields.get(2)).get(), "paris");
+    // Previously materialized rows are not affected by later updates
+    Assert.assertTrue(first.isNull(2));
+  }
+
+  @Test
+  public void testSetFieldOutOfRange() {
+    StdStruct struct = new TrinoStruct(_rowType, _stdFactory);
+    struct.setField(0, _stdFactory.createString("carol"));
+    struct.setField(3, _stdFactory.createString("ignored"));
+    struct.setField(-1, _stdFactory.createString("ignored"));
+
+    Block block = (Block) ((PlatformData) struct).getUnderlyingData();
+    Assert.assertEquals(block.getPositionCount(), 3);
+    Assert.assertEquals(((StdString) struct.getField(0)).get(), "carol");
+    Assert.assertNull(struct.getField(3));
+  }
+
+  @Test
+  public void testAnonymousFields() {
+    List<Type> fieldTypes = ImmutableList.of(VARCHAR, INTEGER);
+    StdStruct struct = new TrinoStruct(fieldTypes, _stdFactory);
+    struct.setField(0, _stdFactory.createString("x"));
+    struct.setField(1, _stdFactory.createInteger(7));
+    Assert.assertNull(struct.getField("field0"));
+
+    StdStruct copy = new TrinoStruct((Block) ((PlatformData) struct).getUnderlyingData(), RowType.anonymous(fieldTypes),
+        _stdFactory);
+    Assert.assertEquals(((StdString) copy.getField(0)).get(), "x");
+    Assert.assertEquals(((StdInteger) copy.getField(1)).get(), 7);
+    Assert.assertNull(copy.getField(2));
+  }
+}
@@ -6,9 +6,12 @@
 package com.linkedin.transport.typesystem;
 
 import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.linkedin.transport.api.StdFactory;
 import com.linkedin.transport.api.udf.StdUDF;
 import com.linkedin.transport.api.udf.TopLevelStdUDF;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
@@ -16,6 +19,14 @@ import java.util.stream.Collectors;
 
 
 public abstract class AbstractTypeInference<T> {
+  static final int MAXIMUM_COMPILED_SIGNATURES_PER_UDF = 64;
+
+  // Results of compile() shared by all the type inferences of the process, by top level UDF class and then by
+  // platform, implementations and input data types. The UDF classes are weakly referenced so that they can be
+  // unloaded, which is why the keys of the inner caches only hold class names.
+  private static final Cache<Class<? extends TopLevelStdUDF>, Cache<List<Object>, CompiledSignature<?>>>
+      COMPILED_SIGNATURES = CacheBuilder.newBuilder().weakKeys().build();
+
   private T[] _inputDataTypes;
   private T _outputDataType;
   private StdUDF _stdUdf;
@@ -98,9 +109,23 @@ public abstract class AbstractTypeInference<T> {
       Class<? extends TopLevelStdUDF> topLevelUdfClass) {
     Preconditions.checkArgument(stdUdfImplementations.size() > 0,
         "Empty Standard UDF Implementations list");
+    Cache<List<Object>, CompiledSignature<?>> compiledSignatures = getCompiledSignatures(topLevelUdfClass);
+    List<Object> compiledSignatureKey = getCompiledSignatureKey(dataTypes, stdUdfImplementations);
+    CompiledSignature<T> compiledSignature = getCompiledSignature(compiledSignatures, compiledSignatureKey);
+    if (compiledSignature != null) {
+      // The bound variables are only read once bound, so they are shared by the factories of all the UDF instances
+      _inputDataTypes = dataTypes;
+      _stdFactory = createStdFactory(compiledSignature._boundVariables);
+      _stdUdf = stdUdfImplementations.get(compiledSignature._stdUdfIndex);
+      _outputDataType = compiledSignature._outputDataType;
+      return;
+    }
+
     AbstractBoundVariables<T> boundVariables = null;
     boolean atLeastOneInputParametersSignaturesBindingSuccess = false;
+    int stdUdfIndex = -1;
     for (StdUDF stdUdf: stdUdfImplementations) {
+      stdUdfIndex++;
       List<String> inputParameterSignatures = stdUdf.getInputParameterSignatures();
       if (inputParameterSignatures.size() != dataTypes.length) {
         continue;
@@ -135,6 +160,54 @@ public abstract class AbstractTypeInference<T> {
         TypeSignature.parse(_stdUdf.getOutputParameterSignature()),
         boundVariables
     );
+    compiledSignatures.put(compiledSignatureKey, new CompiledSignature<>(stdUdfIndex, boundVariables, _outputDataType));
+  }
+
+  private static Cache<List<Object>, CompiledSignature<?>> getCompiledSignatures(
+      Class<? extends TopLevelStdUDF> topLevelUdfClass) {
+    Cache<List<Object>, CompiledSignature<?>> compiledSignatures = COMPILED_SIGNATURES.getIfPresent(topLevelUdfClass);
+    if (compiledSignatures == null) {
+      compiledSignatures = CacheBuilder.newBuilder().maximumSize(MAXIMUM_COMPILED_SIGNATURES_PER_UDF).build();
+      Cache<List<Object>, CompiledSignature<?>> existingCompiledSignatures =
+          COMPILED_SIGNATURES.asMap().putIfAbsent(topLevelUdfClass, compiledSignatures);
+      if (existingCompiledSignatures != null) {
+        compiledSignatures = existingCompiledSignatures;
+      }
+    }
+    return compiledSignatures;
+  }
+
+  // Keys start with the name of the type inference class, so cached signatures hold the data types of this type system
+  @SuppressWarnings("unchecked")
+  private CompiledSignature<T> getCompiledSignature(Cache<List<Object>, CompiledSignature<?>> compiledSignatures,
+      List<Object> compiledSignatureKey) {
+    return (CompiledSignature<T>) compiledSignatures.getIfPresent(compiledSignatureKey);
+  }
+
+  private List<Object> getCompiledSignatureKey(T[] dataTypes, List<? extends StdUDF> stdUdfImplementations) {
+    List<Object> key = new ArrayList<>(1 + stdUdfImplementations.size() + dataTypes.length);
+    key.add(getClass().getName());
+    for (StdUDF stdUdf : stdUdfImplementations) {
+      key.add(stdUdf.getClass().getName());
+    }
+    key.addAll(Arrays.asList(dataTypes));
+    return key;
+  }
+
+  /**
+   * The result of compiling a UDF for some input data types: the index of the chosen implementation, the variables
+   * bound by its input signatures and the output data type.
+   */
+  private static class CompiledSignature<T> {
+    final int _stdUdfIndex;
+    final AbstractBoundVariables<T> _boundVariables;
+    final T _outputDataType;
+
+    CompiledSignature(int stdUdfIndex, AbstractBoundVariables<T> boundVariables, T outputDataType) {
+      _stdUdfIndex = stdUdfIndex;
+      _boundVariables = boundVariables;
+      _outputDataType = outputDataType;
+    }
   }
 
   private String dataTypesToString(T[] dataTypes) {
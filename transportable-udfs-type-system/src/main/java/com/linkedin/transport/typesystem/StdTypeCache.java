@@ -0,0 +1,69 @@
+/**
+ * Copyright 2021 LinkedIn Corporation. All rights reserved.
+ * Licensed under the BSD-2 Clause license.
+ * See LICENSE in the project root for license information.
+ */
+package com.linkedin.transport.typesystem;
+
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.linkedin.transport.api.types.StdType;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+
+
+/**
+ * A bounded, thread-safe cache of the {@link StdType}s created by a {@link com.linkedin.transport.api.StdFactory} from
+ * type signatures.
+ *
+ * A type signature is resolved against the bound variables of the factory, so a cache must be scoped to a single
+ * factory and must not be shared across factories.
+ */
+public class StdTypeCache {
+
+  public static final int DEFAULT_MAXIMUM_SIZE = 256;
+
+  private final Cache<String, StdType> _cache;
+
+  public StdTypeCache() {
+    this(DEFAULT_MAXIMUM_SIZE);
+  }
+
+  public StdTypeCache(int maximumSize) {
+    if (maximumSize <= 0) {
+      throw new IllegalArgumentException("Maximum size must be positive: " + maximumSize);
+    }
+    _cache = CacheBuilder.newBuilder().maximumSize(maximumSize).build();
+  }
+
+  /**
+   * @return the cached type of the type signature, or null if it is not cached
+   */
+  public StdType get(String typeSignature) {
+    return _cache.getIfPresent(typeSignature);
+  }
+
+  /**
+   * Returns the cached type of the type signature, creating it with the loader if it is not cached. Concurrent callers
+   * of the same type signature wait for a single call of the loader, whose exceptions are rethrown as they are.
+   */
+  public StdType get(String typeSignature, Function<String, StdType> loader) {
+    try {
+      return _cache.get(typeSignature, () -> loader.apply(typeSignature));
+    } catch (ExecutionException | UncheckedExecutionException | ExecutionError e) {
+      Throwables.propagateIfPossible(e.getCause());
+      throw new RuntimeException(e.getCause());
+    }
+  }
+
+  public void put(String typeSignature, StdType stdType) {
+    _cache.put(typeSignature, stdType);
+  }
+
+  public long size() {
+    return _cache.size();
+  }
+}
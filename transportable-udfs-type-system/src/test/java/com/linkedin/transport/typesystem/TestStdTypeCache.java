@@ -0,0 +1,66 @@
+/**
+ * Copyright 2021 LinkedIn Corporation. All rights reserved.
+ * Licensed under the BSD-2 Clause license.
+ * See LICENSE in the project root for license information.
+ */
+package com.linkedin.transport.typesystem;
+
+import com.linkedin.transport.api.types.StdType;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+
+public class TestStdTypeCache {
+
+  @Test
+  public void testGetAndPut() {
+    StdTypeCache cache = new StdTypeCache();
+    StdType stdType = () -> "varchar";
+
+    assertNull(cache.get("varchar"));
+    cache.put("varchar", stdType);
+    assertSame(cache.get("varchar"), stdType);
+    assertNull(cache.get("array(varchar)"));
+  }
+
+  @Test
+  public void testGetWithLoader() {
+    StdTypeCache cache = new StdTypeCache();
+    AtomicInteger loads = new AtomicInteger();
+    Function<String, StdType> loader = typeSignature -> {
+      loads.incrementAndGet();
+      return () -> typeSignature;
+    };
+
+    StdType stdType = cache.get("varchar", loader);
+    assertEquals(stdType.underlyingType(), "varchar");
+    assertSame(cache.get("varchar", loader), stdType);
+    assertSame(cache.get("varchar"), stdType);
+    assertEquals(loads.get(), 1);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testGetWithFailingLoader() {
+    new StdTypeCache().get("unknown", typeSignature -> {
+      throw new IllegalArgumentException("Unknown type: " + typeSignature);
+    });
+  }
+
+  @Test
+  public void testCacheIsBounded() {
+    StdTypeCache cache = new StdTypeCache(2);
+    for (int i = 0; i < 10; i++) {
+      String typeSignature = "row(varchar, integer)" + i;
+      cache.put(typeSignature, () -> typeSignature);
+    }
+    assertTrue(cache.size() <= 2);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testInvalidMaximumSize() {
+    new StdTypeCache(0);
+  }
+}
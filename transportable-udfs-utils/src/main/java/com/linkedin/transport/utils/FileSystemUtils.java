@@ -5,15 +5,20 @@
  */
 package com.linkedin.transport.utils;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import java.io.IOException;
-import java.util.Arrays;
-import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import org.apache.commons.lang.StringUtils;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RemoteIterator;
 
 /**
  * This Utils class handles multiple utilities methods related with Hadoop FileSystem.
@@ -21,6 +26,18 @@ import org.apache.hadoop.fs.Path;
  */
 public class FileSystemUtils {
 
+  /**
+   * The {@link Configuration} key of the time in milliseconds for which the latest candidate of a directory is cached
+   * by {@link #resolveLatest(String, Configuration)}. The cache is disabled by default, and by a value of 0.
+   */
+  public static final String RESOLVE_LATEST_CACHE_TTL_KEY = "udf.resolve-latest.cache-ttl-millis";
+  public static final long DEFAULT_RESOLVE_LATEST_CACHE_TTL_MILLIS = 0;
+  private static final long MAXIMUM_CACHED_LATEST_CANDIDATES = 10_000;
+
+  // The latest candidates of directories, by qualified directory path and whether files are excluded, for each time to
+  // live they are cached for
+  private static final ConcurrentMap<Long, Cache<String, String>> LATEST_CANDIDATES = new ConcurrentHashMap<>();
+
   private FileSystemUtils() {
     // Empty on purpose
   }
@@ -73,6 +90,10 @@ public class FileSystemUtils {
    * with the most recent directory. If the input path does not contain the keyword "#LATEST" then it simply returns
    * the same path.
    *
+   * Every call lists the directories, so a new snapshot is picked up as soon as it is written. Setting
+   * {@link #RESOLVE_LATEST_CACHE_TTL_KEY} through {@link #resolveLatest(String, Configuration)} caches the latest
+   * candidate of each directory instead.
+   *
    * @param path the path to resolve
    * @return the resolved path
    * @throws IOException when the filesystem could not resolve the path
@@ -82,7 +103,10 @@ public class FileSystemUtils {
   }
 
   /**
-   * Same as {@link #resolveLatest(String)} but allows passing a {@link Configuration} used to resolve the path
+   * Same as {@link #resolveLatest(String)} but allows passing a {@link Configuration} used to resolve the path, and
+   * to set the time for which latest candidates are cached through {@link #RESOLVE_LATEST_CACHE_TTL_KEY}. A new
+   * snapshot may then take up to that long to be picked up, and concurrent resolutions of the same directory share a
+   * single listing.
    */
   public static String resolveLatest(String path, Configuration conf) throws IOException {
     if (!StringUtils.isBlank(path)) {
@@ -90,13 +114,14 @@ public class FileSystemUtils {
       String[] split = path.split("#LATEST");
       String retval = split[0];
       FileSystem fs = getFileSystem(path, conf);
+      long cacheTtlMillis = conf.getLong(RESOLVE_LATEST_CACHE_TTL_KEY, DEFAULT_RESOLVE_LATEST_CACHE_TTL_MILLIS);
       for (int i = 1; i < split.length; ++i) {
-        retval = resolveLatestHelper(retval, fs, true) + split[i];
+        retval = resolveLatestHelper(retval, fs, true, cacheTtlMillis) + split[i];
       }
 
       //if the path ends with #LATEST, get the latest candidate regardless of file or directory
       if (path.endsWith("#LATEST")) {
-        retval = resolveLatestHelper(retval, fs, false);
+        retval = resolveLatestHelper(retval, fs, false, cacheTtlMillis);
       }
 
       return retval;
@@ -105,24 +130,57 @@ public class FileSystemUtils {
     }
   }
 
-  private static String resolveLatestHelper(String path, FileSystem fs, boolean excludeFiles) throws IOException {
+  private static String resolveLatestHelper(String path, FileSystem fs, boolean excludeFiles, long cacheTtlMillis)
+      throws IOException {
     if (!StringUtils.isBlank(path)) {
       path = path.trim();
       if (path.endsWith("/")) {
         path = path.substring(0, path.length() - 1);
       }
 
-      FileStatus[] filesAndDirectories = fs.listStatus(new Path(path));
-      List<FileStatus> candidates = Arrays.stream(filesAndDirectories).filter(s -> !excludeFiles || s.isDirectory())
-          .sorted().collect(Collectors.toList());
-      if (candidates != null && candidates.size() != 0) {
-        String retval = path + "/" + candidates.get(candidates.size() - 1).getPath().getName();
-        return retval;
-      } else {
-        throw new IOException("The path to resolve does not exist: [" + path + "]");
-      }
+      String latestCandidate = cacheTtlMillis > 0 ? getCachedLatestCandidate(path, fs, excludeFiles, cacheTtlMillis)
+          : getLatestCandidate(path, fs, excludeFiles);
+      return path + "/" + latestCandidate;
     } else {
       throw new IllegalArgumentException("The path to resolve is an empty string.");
     }
   }
+
+  /**
+   * Returns the cached latest candidate of the directory, or lists the directory if it is not cached or has expired.
+   * Only one of the threads resolving an uncached directory lists it, while the others wait for its result. Failures
+   * are not cached.
+   */
+  private static String getCachedLatestCandidate(String path, FileSystem fs, boolean excludeFiles,
+      long cacheTtlMillis) throws IOException {
+    Cache<String, String> latestCandidates = LATEST_CANDIDATES.computeIfAbsent(cacheTtlMillis,
+        ttl -> CacheBuilder.newBuilder().expireAfterWrite(ttl, TimeUnit.MILLISECONDS)
+            .maximumSize(MAXIMUM_CACHED_LATEST_CANDIDATES).build());
+    String key = fs.makeQualified(new Path(path)) + (excludeFiles ? "|directories" : "|all");
+    try {
+      return latestCandidates.get(key, () -> getLatestCandidate(path, fs, excludeFiles));
+    } catch (ExecutionException e) {
+      throw new IOException(e.getCause().getMessage(), e.getCause());
+    } catch (UncheckedExecutionException e) {
+      throw new RuntimeException(e.getCause());
+    }
+  }
+
+  /**
+   * Lists the directory and returns the name of its greatest entry, without sorting or holding all its entries.
+   */
+  private static String getLatestCandidate(String path, FileSystem fs, boolean excludeFiles) throws IOException {
+    Path latest = null;
+    RemoteIterator<FileStatus> filesAndDirectories = fs.listStatusIterator(new Path(path));
+    while (filesAndDirectories.hasNext()) {
+      FileStatus candidate = filesAndDirectories.next();
+      if ((!excludeFiles || candidate.isDirectory()) && (latest == null || candidate.getPath().compareTo(latest) > 0)) {
+        latest = candidate.getPath();
+      }
+    }
+    if (latest == null) {
+      throw new IOException("The path to resolve does not exist: [" + path + "]");
+    }
+    return latest.getName();
+  }
 }
@@ -0,0 +1,463 @@
+/**
+ * Copyright 2021 LinkedIn Corporation. All rights reserved.
+ * Licensed under the BSD-2 Clause license.
+ * See LICENSE in the project root for license information.
+ */
+package com.linkedin.transport.utils;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+
+/**
+ * An immutable set of integers loaded from a required file, shared by all the UDF instances of the JVM which load the
+ * same content.
+ *
+ * The file holds one integer per line, and empty lines and lines starting with {@code #} are ignored. It is loaded
+ * once per JVM for a given content: loading a file whose SHA-256 hash is the one of an already loaded table returns
+ * that table, whatever the path and modification time of the file, which the local copies made by the platforms do
+ * not preserve. UDF instances across tasks, threads and specializations therefore do not each hold their own copy.
+ * The table is released once no UDF instance references it anymore.
+ *
+ * The integers are kept sorted and deduplicated in an index file, memory-mapped read-only rather than held on the heap,
+ * which takes 4 bytes per integer and adds no garbage collection pressure. Indexes are written to a temporary
+ * directory created by the JVM, readable by its user only and deleted on exit, and record the hash of the content they
+ * were written from, so a table loaded again after being released maps its index as is. An index is written with a
+ * bounded amount of memory: the file is sorted in chunks, which are merged once sorted. Lookups binary search the
+ * sorted integers within the bucket of their 16 high bits, and an empty bucket is a miss without touching the mapped
+ * integers. The table is thread-safe.
+ */
+public final class IntLookupTable {
+
+  private static final int BUCKET_COUNT = 1 << 16;
+  private static final int MAX_SIZE = Integer.MAX_VALUE / Integer.BYTES;
+  // The number of integers sorted in memory at once while writing an index
+  private static final int CHUNK_SIZE = 1 << 20;
+  // The number of sorted runs merged at once
+  private static final int MAX_MERGED_RUNS = 64;
+  private static final String INDEX_SUFFIX = ".idx";
+  private static final int INDEX_MAGIC = 0x54494c32;
+  private static final int HASH_SIZE = 32;
+  // The magic number, the SHA-256 hash of the file, and the number of integers
+  private static final int INDEX_HEADER_SIZE = Integer.BYTES + HASH_SIZE + Integer.BYTES;
+  // Loaded tables by hash of their file
+  private static final ConcurrentMap<String, WeakReference<IntLookupTable>> TABLES = new ConcurrentHashMap<>();
+  private static final ConcurrentMap<String, Object> LOAD_LOCKS = new ConcurrentHashMap<>();
+  // The directory of the indexes, created on first use
+  private static Path _indexDirectory;
+
+  private final IntBuffer _values;
+  // The index in _values of the first integer of every bucket, followed by the size of the table
+  private final int[] _bucketOffsets;
+
+  private IntLookupTable(IntBuffer values, int[] bucketOffsets) {
+    _values = values;
+    _bucketOffsets = bucketOffsets;
+  }
+
+  /**
+   * Returns the table of the integers in a local file, loading it if it is not loaded in the JVM yet.
+   *
+   * @param localPath  the local path of the file, as passed to {@code processRequiredFiles()}
+   * @throws UncheckedIOException if the file cannot be read
+   * @throws NumberFormatException if a line of the file is not an integer
+   */
+  public static IntLookupTable load(String localPath) {
+    try {
+      Path path = Paths.get(localPath);
+      HashCode hash = hash(path);
+      String key = hash.toString();
+      while (true) {
+        Object lock = LOAD_LOCKS.computeIfAbsent(key, k -> new Object());
+        synchronized (lock) {
+          // Locks are removed once released, so a thread which waited for a removed lock retries with the current one
+          if (LOAD_LOCKS.get(key) != lock) {
+            continue;
+          }
+          try {
+            WeakReference<IntLookupTable> reference = TABLES.get(key);
+            IntLookupTable table = reference == null ? null : reference.get();
+            if (table == null) {
+              table = create(path, hash, getIndexDirectory(), CHUNK_SIZE);
+              TABLES.put(key, new WeakReference<>(table));
+              removeReleasedTables();
+            }
+            return table;
+          } finally {
+            LOAD_LOCKS.remove(key, lock);
+          }
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to load lookup table from " + localPath, e);
+    }
+  }
+
+  public boolean contains(int value) {
+    int bucket = bucketOf(value);
+    int low = _bucketOffsets[bucket];
+    int high = _bucketOffsets[bucket + 1] - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      int middleValue = _values.get(middle);
+      if (middleValue < value) {
+        low = middle + 1;
+      } else if (middleValue > value) {
+        high = middle - 1;
+      } else {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return the number of distinct integers in the table
+   */
+  public int size() {
+    return _bucketOffsets[BUCKET_COUNT];
+  }
+
+  private static void removeReleasedTables() {
+    for (Map.Entry<String, WeakReference<IntLookupTable>> entry : TABLES.entrySet()) {
+      if (entry.getValue().get() == null) {
+        // A table loaded concurrently under the same key replaces the released reference, and is kept
+        TABLES.remove(entry.getKey(), entry.getValue());
+      }
+    }
+  }
+
+  /**
+   * Returns the SHA-256 hash of the content of a file, which identifies its table and index.
+   */
+  static HashCode hash(Path path) throws IOException {
+    return com.google.common.io.Files.asByteSource(path.toFile()).hash(Hashing.sha256());
+  }
+
+  /**
+   * Returns the directory of the indexes, which is created by the JVM so that no other user can write indexes to it,
+   * and created again if it was deleted, e.g. by a cleanup of the temporary directory.
+   */
+  private static synchronized Path getIndexDirectory() throws IOException {
+    if (_indexDirectory == null || !Files.isDirectory(_indexDirectory)) {
+      Path indexDirectory = Files.createTempDirectory("transport-lookup-");
+      // Files registered later are deleted first, so the indexes are deleted before their directory
+      indexDirectory.toFile().deleteOnExit();
+      _indexDirectory = indexDirectory;
+    }
+    return _indexDirectory;
+  }
+
+  /**
+   * Maps the index of a file, writing it first unless an earlier load left an index of the same content of the file.
+   *
+   * @param hash  the SHA-256 hash of the file
+   */
+  static IntLookupTable create(Path path, HashCode hash, Path indexDirectory, int chunkSize) throws IOException {
+    Path indexPath = indexDirectory.resolve(hash + INDEX_SUFFIX);
+    IntBuffer values = mapIndex(indexPath, hash);
+    if (values == null) {
+      Path temporaryIndexPath = writeIndex(path, indexPath, hash, chunkSize);
+      try {
+        // The mapping stays valid after the index is moved, replaced or deleted
+        values = mapIndex(temporaryIndexPath, hash);
+        if (values == null) {
+          throw new IOException("Failed to write the index of lookup table " + path + " to " + temporaryIndexPath);
+        }
+        try {
+          Files.move(temporaryIndexPath, indexPath, StandardCopyOption.ATOMIC_MOVE);
+          indexPath.toFile().deleteOnExit();
+        } catch (IOException e) {
+          // Some platforms cannot replace a mapped index, so the index is only used by this table
+        }
+      } finally {
+        Files.deleteIfExists(temporaryIndexPath);
+      }
+    }
+    return new IntLookupTable(values, getBucketOffsets(values));
+  }
+
+  /**
+   * Maps the integers of an index read-only.
+   *
+   * @return the mapped integers, or null if there is no index of the content with the given hash
+   */
+  private static IntBuffer mapIndex(Path indexPath, HashCode hash) throws IOException {
+    try (FileChannel channel = FileChannel.open(indexPath, StandardOpenOption.READ)) {
+      ByteBuffer header = ByteBuffer.allocate(INDEX_HEADER_SIZE);
+      while (header.hasRemaining()) {
+        if (channel.read(header) < 0) {
+          return null;
+        }
+      }
+      header.flip();
+      if (header.getInt() != INDEX_MAGIC) {
+        return null;
+      }
+      byte[] indexHash = new byte[HASH_SIZE];
+      header.get(indexHash);
+      if (!Arrays.equals(indexHash, hash.asBytes())) {
+        return null;
+      }
+      int size = header.getInt();
+      if (size < 0 || channel.size() != INDEX_HEADER_SIZE + (long) size * Integer.BYTES) {
+        return null;
+      }
+      // The mapping stays valid after the channel is closed
+      return channel.map(FileChannel.MapMode.READ_ONLY, INDEX_HEADER_SIZE, (long) size * Integer.BYTES).asIntBuffer();
+    } catch (NoSuchFileException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Writes the index of a file to a temporary file next to the index: a header holding the hash of the file and the
+   * number of integers, followed by the sorted distinct integers.
+   *
+   * @return the temporary file
+   */
+  private static Path writeIndex(Path path, Path indexPath, HashCode hash, int chunkSize) throws IOException {
+    Path temporaryIndexPath =
+        Files.createTempFile(indexPath.getParent(), "." + indexPath.getFileName() + "-", ".tmp");
+    List<Path> runs = new ArrayList<>();
+    try {
+      int size;
+      try (DataOutputStream output = newOutputStream(temporaryIndexPath)) {
+        output.writeInt(INDEX_MAGIC);
+        output.write(hash.asBytes());
+        // The number of integers is only known once they are all written
+        output.writeInt(0);
+        size = writeSortedDistinct(path, indexPath.getParent(), output, runs, chunkSize);
+      }
+      try (FileChannel channel = FileChannel.open(temporaryIndexPath, StandardOpenOption.WRITE)) {
+        channel.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, size), INDEX_HEADER_SIZE - Integer.BYTES);
+      }
+      return temporaryIndexPath;
+    } catch (IOException | RuntimeException e) {
+      Files.deleteIfExists(temporaryIndexPath);
+      throw e;
+    } finally {
+      for (Path run : runs) {
+        Files.deleteIfExists(run);
+      }
+    }
+  }
+
+  /**
+   * Parses the integers of a file in chunks of at most {@code chunkSize} integers, so that memory use is bounded by
+   * the chunk size rather than the size of the file. Files fitting in a single chunk are sorted in memory. Otherwise,
+   * every chunk is sorted into a run written to a temporary file of the run directory, and the runs are merged.
+   *
+   * @param runs  receives the temporary files of the runs, which are deleted by the caller
+   * @return the number of distinct integers written
+   */
+  private static int writeSortedDistinct(Path path, Path runDirectory, DataOutputStream output, List<Path> runs,
+      int chunkSize) throws IOException {
+    int[] chunk = new int[Math.min(chunkSize, 1024)];
+    int length = 0;
+    try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (!line.startsWith("#") && !line.isEmpty()) {
+          if (length == chunk.length) {
+            if (length == chunkSize) {
+              int[] values = chunk;
+              int distinctLength = sortDistinct(chunk, length);
+              runs.add(writeRun(runDirectory, runOutput -> writeValues(runOutput, values, distinctLength)));
+              length = 0;
+            } else {
+              chunk = Arrays.copyOf(chunk, (int) Math.min((long) length * 2, chunkSize));
+            }
+          }
+          chunk[length++] = Integer.parseInt(line);
+        }
+      }
+    }
+    // Duplicates are dropped so that the table holds the distinct integers only
+    int distinctLength = sortDistinct(chunk, length);
+    if (runs.isEmpty()) {
+      writeValues(output, chunk, distinctLength);
+      return distinctLength;
+    }
+    int[] values = chunk;
+    runs.add(writeRun(runDirectory, runOutput -> writeValues(runOutput, values, distinctLength)));
+    // Runs are merged in groups of bounded size, so that a bounded number of them are open at once
+    while (runs.size() > MAX_MERGED_RUNS) {
+      List<Path> mergedRuns = runs.subList(0, MAX_MERGED_RUNS);
+      Path run = writeRun(runDirectory, runOutput -> mergeRuns(path, mergedRuns, runOutput));
+      for (Path mergedRun : mergedRuns) {
+        Files.delete(mergedRun);
+      }
+      mergedRuns.clear();
+      runs.add(run);
+    }
+    return mergeRuns(path, runs, output);
+  }
+
+  private static void writeValues(DataOutputStream output, int[] values, int length) throws IOException {
+    for (int i = 0; i < length; i++) {
+      output.writeInt(values[i]);
+    }
+  }
+
+  private static Path writeRun(Path runDirectory, RunWriter writer) throws IOException {
+    Path run = Files.createTempFile(runDirectory, ".run-", ".tmp");
+    try (DataOutputStream output = newOutputStream(run)) {
+      writer.write(output);
+      return run;
+    } catch (IOException | RuntimeException e) {
+      Files.deleteIfExists(run);
+      throw e;
+    }
+  }
+
+  /**
+   * Merges sorted runs, dropping the integers found in several runs.
+   *
+   * @return the number of distinct integers written
+   */
+  private static int mergeRuns(Path path, List<Path> runs, DataOutputStream output) throws IOException {
+    List<RunReader> readers = new ArrayList<>(runs.size());
+    try {
+      PriorityQueue<RunReader> queue = new PriorityQueue<>(runs.size(), Comparator.comparingInt(RunReader::current));
+      for (Path run : runs) {
+        RunReader reader = new RunReader(run);
+        readers.add(reader);
+        if (reader.next()) {
+          queue.add(reader);
+        }
+      }
+      int size = 0;
+      int previousValue = 0;
+      while (!queue.isEmpty()) {
+        RunReader reader = queue.poll();
+        int value = reader.current();
+        if (size == 0 || value != previousValue) {
+          if (size == MAX_SIZE) {
+            throw new IllegalArgumentException("Lookup table " + path + " exceeds " + MAX_SIZE + " integers");
+          }
+          output.writeInt(value);
+          previousValue = value;
+          size++;
+        }
+        if (reader.next()) {
+          queue.add(reader);
+        }
+      }
+      return size;
+    } finally {
+      for (RunReader reader : readers) {
+        reader.close();
+      }
+    }
+  }
+
+  private static int[] getBucketOffsets(IntBuffer values) {
+    int size = values.limit();
+    int[] bucketOffsets = new int[BUCKET_COUNT + 1];
+    for (int i = 0; i < size; i++) {
+      bucketOffsets[bucketOf(values.get(i)) + 1]++;
+    }
+    for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+      bucketOffsets[bucket + 1] += bucketOffsets[bucket];
+    }
+    return bucketOffsets;
+  }
+
+  private static DataOutputStream newOutputStream(Path path) throws IOException {
+    return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)));
+  }
+
+  /**
+   * Sorts the values and moves the distinct ones to the beginning of the array.
+   *
+   * @return the number of distinct values
+   */
+  private static int sortDistinct(int[] values, int length) {
+    Arrays.sort(values, 0, length);
+    int size = 0;
+    for (int i = 0; i < length; i++) {
+      if (size == 0 || values[i] != values[size - 1]) {
+        values[size++] = values[i];
+      }
+    }
+    return size;
+  }
+
+  private static int bucketOf(int value) {
+    // Buckets follow the signed order of the integers
+    return (value >> 16) + (BUCKET_COUNT >> 1);
+  }
+
+  /**
+   * Writes the integers of a sorted run.
+   */
+  private interface RunWriter {
+    void write(DataOutputStream output) throws IOException;
+  }
+
+  /**
+   * Reads the integers of a sorted run one at a time.
+   */
+  private static final class RunReader implements Closeable {
+
+    private final DataInputStream _input;
+    private long _remaining;
+    private int _current;
+
+    RunReader(Path run) throws IOException {
+      _input = new DataInputStream(new BufferedInputStream(Files.newInputStream(run)));
+      _remaining = Files.size(run) / Integer.BYTES;
+    }
+
+    /**
+     * Moves to the next integer of the run.
+     *
+     * @return false if the run has no more integers
+     */
+    boolean next() throws IOException {
+      if (_remaining == 0) {
+        return false;
+      }
+      _current = _input.readInt();
+      _remaining--;
+      return true;
+    }
+
+    int current() {
+      return _current;
+    }
+
+    @Override
+    public void close() throws IOException {
+      _input.close();
+    }
+  }
+}
@@ -8,7 +8,10 @@ package com.linkedin.transport.utils;
 
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import org.apache.hadoop.conf.Configuration;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
@@ -31,6 +34,31 @@ public class FileSystemUtilsTest {
         FileSystemUtils.resolveLatest(resourcePath + "/#LATEST/#LATEST").endsWith("/root/2019/13.dat"));
   }
 
+  @Test
+  public void testResolveLatestIsCachedWhenEnabled() throws IOException {
+    Path root = Files.createTempDirectory("transport-latest");
+    Files.createDirectory(root.resolve("2019"));
+    Files.createDirectory(root.resolve("2020"));
+    Files.createFile(root.resolve("2021.dat"));
+    String path = "file://" + root + "/#LATEST";
+    Configuration conf = new Configuration();
+    conf.setLong(FileSystemUtils.RESOLVE_LATEST_CACHE_TTL_KEY, 60_000);
+
+    Assert.assertTrue(FileSystemUtils.resolveLatest(path + "/", conf).endsWith("/2020/"));
+    Assert.assertTrue(FileSystemUtils.resolveLatest(path, conf).endsWith("/2021.dat"));
+    Files.createDirectory(root.resolve("2022"));
+    // The latest candidates are cached, so the new directory is not picked up yet
+    Assert.assertTrue(FileSystemUtils.resolveLatest(path + "/", conf).endsWith("/2020/"));
+    // The cache is disabled by default
+    Assert.assertTrue(FileSystemUtils.resolveLatest(path + "/").endsWith("/2022/"));
+  }
+
+  @Test(expectedExceptions = IOException.class)
+  public void testResolveLatestOfEmptyDirectory() throws IOException {
+    Path root = Files.createTempDirectory("transport-latest");
+    FileSystemUtils.resolveLatest("file://" + root + "/#LATEST");
+  }
+
   private String getPathForResource(String resource) throws URISyntaxException {
     String path = Paths.get(
         Thread.currentThread().getContextClassLoader().getResource(resource).toURI()).toFile().getAbsolutePath();
@@ -0,0 +1,140 @@
+/**
+ * Copyright 2021 LinkedIn Corporation. All rights reserved.
+ * Licensed under the BSD-2 Clause license.
+ * See LICENSE in the project root for license information.
+ */
+package com.linkedin.transport.utils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class TestIntLookupTable {
+
+  @Test
+  public void testLookup() throws IOException {
+    Path file = write(Files.createTempFile("lookup", ".txt"), "# ids\n3\n-70000\n\n1\n3\n2147483647\n-2147483648\n", 1000);
+    IntLookupTable table = IntLookupTable.load(file.toString());
+
+    Assert.assertEquals(table.size(), 5);
+    for (int value : new int[]{1, 3, -70000, Integer.MAX_VALUE, Integer.MIN_VALUE}) {
+      Assert.assertTrue(table.contains(value), String.valueOf(value));
+    }
+    for (int value : new int[]{0, 2, -3, 65539, -69999, Integer.MAX_VALUE - 1, Integer.MIN_VALUE + 1}) {
+      Assert.assertFalse(table.contains(value), String.valueOf(value));
+    }
+  }
+
+  @Test
+  public void testEmptyFile() throws IOException {
+    Path file = write(Files.createTempFile("lookup", ".txt"), "# no ids\n", 1000);
+    IntLookupTable table = IntLookupTable.load(file.toString());
+
+    Assert.assertEquals(table.size(), 0);
+    Assert.assertFalse(table.contains(0));
+  }
+
+  @Test
+  public void testTablesAreSharedUntilTheContentChanges() throws IOException {
+    Path file = write(Files.createTempFile("lookup", ".txt"), "1\n2\n", 1000);
+    IntLookupTable table = IntLookupTable.load(file.toString());
+    // A copy of the file with another modification time, e.g. made by a local file cache, shares the table
+    Path copy = write(Files.createTempFile("lookup", ".txt"), "1\n2\n", 2000);
+    Assert.assertSame(IntLookupTable.load(copy.toString()), table);
+
+    // Same modification time and size, but another content
+    write(file, "1\n3\n", 1000);
+    IntLookupTable reloadedTable = IntLookupTable.load(file.toString());
+    Assert.assertNotSame(reloadedTable, table);
+    Assert.assertTrue(reloadedTable.contains(3));
+    Assert.assertFalse(table.contains(3));
+  }
+
+  @Test
+  public void testContentChangeInvalidatesTheIndex() throws IOException {
+    Path indexDirectory = Files.createTempDirectory("transport-lookup-index");
+    Path file = write(Files.createTempFile("lookup", ".txt"), "1\n2\n", 1000);
+    Assert.assertTrue(create(file, indexDirectory, 1024).contains(1));
+    Path firstIndex = indexDirectory.resolve(IntLookupTable.hash(file) + ".idx");
+    Assert.assertTrue(Files.exists(firstIndex));
+
+    // Same modification time and size, but another content, so the index of the previous content is not used
+    write(file, "5\n6\n", 1000);
+    IntLookupTable table = create(file, indexDirectory, 1024);
+    Assert.assertTrue(table.contains(5));
+    Assert.assertFalse(table.contains(1));
+
+    // An index written from another content is detected by its hash, and written again
+    Path secondIndex = indexDirectory.resolve(IntLookupTable.hash(file) + ".idx");
+    Files.copy(firstIndex, secondIndex, StandardCopyOption.REPLACE_EXISTING);
+    table = create(file, indexDirectory, 1024);
+    Assert.assertTrue(table.contains(5));
+    Assert.assertFalse(table.contains(1));
+
+    // An invalid index is written again
+    Files.write(secondIndex, "invalid".getBytes(StandardCharsets.UTF_8));
+    table = create(file, indexDirectory, 1024);
+    Assert.assertTrue(table.contains(5));
+    Assert.assertFalse(table.contains(1));
+  }
+
+  @Test
+  public void testFileSortedInSeveralChunks() throws IOException {
+    Path file = write(Files.createTempFile("lookup", ".txt"), "9\n3\n# ids\n3\n-1\n9\n7\n\n-1\n3\n", 1000);
+    IntLookupTable table = create(file, Files.createTempDirectory("transport-lookup-index"), 2);
+
+    Assert.assertEquals(table.size(), 4);
+    for (int value : new int[]{-1, 3, 7, 9}) {
+      Assert.assertTrue(table.contains(value), String.valueOf(value));
+    }
+    for (int value : new int[]{-2, 0, 1, 8, 10}) {
+      Assert.assertFalse(table.contains(value), String.valueOf(value));
+    }
+  }
+
+  @Test
+  public void testChunkSizesGiveTheSameTable() throws IOException {
+    Random random = new Random(42);
+    Set<Integer> values = new HashSet<>();
+    StringBuilder content = new StringBuilder();
+    for (int i = 0; i < 20000; i++) {
+      int value = random.nextInt(200000) - 100000;
+      values.add(value);
+      content.append(value).append('\n');
+    }
+    Path file = write(Files.createTempFile("lookup", ".txt"), content.toString(), 1000);
+
+    for (int chunkSize : new int[]{1, 1000, 1 << 20}) {
+      IntLookupTable table = create(file, Files.createTempDirectory("transport-lookup-index"), chunkSize);
+      Assert.assertEquals(table.size(), values.size());
+      for (int value = -100001; value <= 100000; value++) {
+        Assert.assertEquals(table.contains(value), values.contains(value), String.valueOf(value));
+      }
+    }
+  }
+
+  @Test(expectedExceptions = NumberFormatException.class)
+  public void testInvalidLine() throws IOException {
+    Path file = write(Files.createTempFile("lookup", ".txt"), "1\nfoo\n", 1000);
+    IntLookupTable.load(file.toString());
+  }
+
+  private static IntLookupTable create(Path file, Path indexDirectory, int chunkSize) throws IOException {
+    return IntLookupTable.create(file, IntLookupTable.hash(file), indexDirectory, chunkSize);
+  }
+
+  private static Path write(Path path, String content, long lastModifiedTime) throws IOException {
+    Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+    Files.setLastModifiedTime(path, FileTime.fromMillis(lastModifiedTime));
+    return path;
+  }
+}